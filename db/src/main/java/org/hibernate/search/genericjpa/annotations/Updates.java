@@ -29,4 +29,16 @@ public @interface Updates {
 	 */
 	String originalTableName();
 
+	/**
+	 * @return the number of Updates-Tables the updates of the original table are split into (by the id of the original
+	 * table modulo this count). Every shard needs its own Updates-Table and class. Only Updates-Tables with a single
+	 * {@link IdFor} can be sharded and all Updates-Tables of an entity have to use the same count
+	 */
+	int shardCount() default 1;
+
+	/**
+	 * @return the shard this Updates-Table is responsible for (0 &lt;= shard &lt; shardCount)
+	 */
+	int shard() default 0;
+
 }
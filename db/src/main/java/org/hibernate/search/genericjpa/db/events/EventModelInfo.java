@@ -25,9 +25,16 @@ public class EventModelInfo {
 	private final Function<Object, Integer> eventTypeAccessor;
 	private final String eventTypeColumn;
 	private final List<IdInfo> idInfos;
+	private final int shardCount;
+	private final int shard;
 
 	public EventModelInfo(Class<?> updateClass, String tableName, String originalTableName, Function<Object, Integer> eventTypeAccessor,
 			String eventTypeColumn, List<IdInfo> idInfos) {
+		this( updateClass, tableName, originalTableName, eventTypeAccessor, eventTypeColumn, idInfos, 1, 0 );
+	}
+
+	public EventModelInfo(Class<?> updateClass, String tableName, String originalTableName, Function<Object, Integer> eventTypeAccessor,
+			String eventTypeColumn, List<IdInfo> idInfos, int shardCount, int shard) {
 		super();
 		this.updateClass = updateClass;
 		this.tableName = tableName;
@@ -35,6 +42,8 @@ public class EventModelInfo {
 		this.eventTypeAccessor = eventTypeAccessor;
 		this.eventTypeColumn = eventTypeColumn;
 		this.idInfos = idInfos;
+		this.shardCount = shardCount;
+		this.shard = shard;
 	}
 
 	/**
@@ -79,6 +88,20 @@ public class EventModelInfo {
 		return eventTypeColumn;
 	}
 
+	/**
+	 * @return the number of shards the updates of the original table are split into
+	 */
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	/**
+	 * @return the shard this Updates-Table is responsible for
+	 */
+	public int getShard() {
+		return shard;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see java.lang.Object#toString()
@@ -86,7 +109,8 @@ public class EventModelInfo {
 	@Override
 	public String toString() {
 		return "EventModelInfo [updateClass=" + updateClass + ", tableName=" + tableName + ", originalTableName=" + originalTableName + ", eventTypeAccessor="
-				+ eventTypeAccessor + ", eventTypeColumn=" + eventTypeColumn + ", idInfos=" + idInfos + "]";
+				+ eventTypeAccessor + ", eventTypeColumn=" + eventTypeColumn + ", idInfos=" + idInfos + ", shardCount=" + shardCount + ", shard=" + shard
+				+ "]";
 	}
 
 	public static class IdInfo {
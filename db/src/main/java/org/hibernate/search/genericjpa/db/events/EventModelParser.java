@@ -122,7 +122,18 @@ public class EventModelParser {
 					throw new RuntimeException( e );
 				}
 			};
-			ret.add( new EventModelInfo( clazz, updates.tableName(), updates.originalTableName(), eventTypeAccessor, eventTypeColumn, idInfos ) );
+			if ( updates.shardCount() < 1 ) {
+				throw new IllegalArgumentException( "shardCount has to be at least 1. Class: " + clazz );
+			}
+			if ( updates.shard() < 0 || updates.shard() >= updates.shardCount() ) {
+				throw new IllegalArgumentException( "shard has to be between 0 (inclusive) and shardCount (exclusive). Class: " + clazz );
+			}
+			if ( updates.shardCount() > 1 && idInfos.size() > 1 ) {
+				// the shard is chosen by the id of one entity, the updates of the others would be spread over all shards
+				throw new IllegalArgumentException( "only Updates-Tables with a single @IdFor can be sharded. Class: " + clazz );
+			}
+			ret.add( new EventModelInfo( clazz, updates.tableName(), updates.originalTableName(), eventTypeAccessor, eventTypeColumn, idInfos, updates
+					.shardCount(), updates.shard() ) );
 
 		}
 		return ret;
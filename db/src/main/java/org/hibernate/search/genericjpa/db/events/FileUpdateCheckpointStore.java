@@ -0,0 +1,127 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link UpdateCheckpointStore} that keeps an append-only journal in a file (ideally next to the index). Every call to
+ * {@link #add(String, Collection)} appends one line and forces it to disk. {@link #clear(String)} rewrites the file
+ * atomically without the entries of the given key.
+ *
+ * @author Martin Braun
+ */
+public class FileUpdateCheckpointStore implements UpdateCheckpointStore {
+
+	private final File file;
+	private final Map<String, Set<Long>> checkpoints = new HashMap<>();
+
+	public FileUpdateCheckpointStore(File file) {
+		this.file = file;
+		if ( file.exists() ) {
+			try (BufferedReader reader = Files.newBufferedReader( file.toPath(), StandardCharsets.UTF_8 )) {
+				String line;
+				while ( ( line = reader.readLine() ) != null ) {
+					int idx = line.lastIndexOf( ' ' );
+					if ( idx <= 0 ) {
+						// incomplete line from a crash while writing
+						continue;
+					}
+					Set<Long> ids = this.checkpoints.computeIfAbsent( line.substring( 0, idx ), (key) -> new HashSet<>() );
+					for ( String id : line.substring( idx + 1 ).split( "," ) ) {
+						try {
+							ids.add( Long.valueOf( id ) );
+						}
+						catch (NumberFormatException e) {
+							// incomplete line from a crash while writing
+						}
+					}
+				}
+			}
+			catch (IOException e) {
+				throw new RuntimeException( "couldn't read the checkpoint file " + file, e );
+			}
+		}
+	}
+
+	@Override
+	public synchronized Set<Long> load(String key) {
+		return new HashSet<>( this.checkpoints.getOrDefault( key, new HashSet<>() ) );
+	}
+
+	@Override
+	public synchronized void add(String key, Collection<Long> ids) {
+		if ( ids.size() == 0 ) {
+			return;
+		}
+		StringBuilder line = new StringBuilder().append( key ).append( ' ' );
+		int added = 0;
+		for ( Long id : ids ) {
+			if ( added++ > 0 ) {
+				line.append( ',' );
+			}
+			line.append( id );
+		}
+		line.append( '\n' );
+		try (FileChannel channel = FileChannel.open( this.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND )) {
+			ByteBuffer buffer = ByteBuffer.wrap( line.toString().getBytes( StandardCharsets.UTF_8 ) );
+			while ( buffer.hasRemaining() ) {
+				channel.write( buffer );
+			}
+			channel.force( true );
+		}
+		catch (IOException e) {
+			throw new RuntimeException( "couldn't write to the checkpoint file " + this.file, e );
+		}
+		this.checkpoints.computeIfAbsent( key, (k) -> new HashSet<>() ).addAll( ids );
+	}
+
+	@Override
+	public synchronized void clear(String key) {
+		if ( this.checkpoints.remove( key ) == null ) {
+			return;
+		}
+		File tmp = new File( this.file.getPath() + ".tmp" );
+		try {
+			try (Writer writer = Files.newBufferedWriter( tmp.toPath(), StandardCharsets.UTF_8 )) {
+				for ( Map.Entry<String, Set<Long>> entry : this.checkpoints.entrySet() ) {
+					if ( entry.getValue().size() == 0 ) {
+						continue;
+					}
+					writer.append( entry.getKey() ).append( ' ' );
+					int added = 0;
+					for ( Long id : entry.getValue() ) {
+						if ( added++ > 0 ) {
+							writer.append( ',' );
+						}
+						writer.append( String.valueOf( id ) );
+					}
+					writer.append( '\n' );
+				}
+			}
+			Files.move( tmp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+		}
+		catch (IOException e) {
+			throw new RuntimeException( "couldn't rewrite the checkpoint file " + this.file, e );
+		}
+	}
+
+}
@@ -19,6 +19,7 @@ import org.hibernate.search.bridge.StringBridge;
 import org.hibernate.search.engine.ProjectionConstants;
 import org.hibernate.search.engine.integration.impl.ExtendedSearchIntegrator;
 import org.hibernate.search.engine.metadata.impl.DocumentFieldMetadata;
+import org.hibernate.search.genericjpa.db.events.stat.UpdateStatisticsListener;
 import org.hibernate.search.query.engine.spi.EntityInfo;
 import org.hibernate.search.query.engine.spi.HSQuery;
 import org.hibernate.search.standalone.entity.ReusableEntityProvider;
@@ -48,6 +49,8 @@ public class IndexUpdater implements UpdateConsumer {
 	private final Map<Class<?>, List<Class<?>>> containedInIndexOf;
 	private final ReusableEntityProvider entityProvider;
 	private IndexWrapper indexWrapper;
+	private UpdateStatisticsListener statisticsListener = new UpdateStatisticsListener() {
+	};
 
 	public IndexUpdater(Map<Class<?>, RehashedTypeMetadata> metadataPerForIndexRoot, Map<Class<?>, List<Class<?>>> containedInIndexOf,
 			ReusableEntityProvider entityProvider, IndexWrapper indexWrapper) {
@@ -63,6 +66,13 @@ public class IndexUpdater implements UpdateConsumer {
 		this.indexWrapper = new DefaultIndexWrapper( searchIntegrator );
 	}
 
+	/**
+	 * sets the listener that is notified about entity load latencies and the work passed to the index
+	 */
+	public void setStatisticsListener(UpdateStatisticsListener statisticsListener) {
+		this.statisticsListener = statisticsListener;
+	}
+
 	@Override
 	public void updateEvent(List<UpdateInfo> updateInfos) {
 		this.entityProvider.open();
@@ -76,21 +86,24 @@ public class IndexUpdater implements UpdateConsumer {
 					Object id = updateInfo.getId();
 					switch ( eventType ) {
 						case EventType.INSERT: {
-							Object obj = this.entityProvider.get( entityClass, id );
+							Object obj = this.load( entityClass, id );
 							if ( obj != null ) {
 								this.indexWrapper.index( obj, tx );
+								this.statisticsListener.workPerformed( entityClass, eventType );
 							}
 							break;
 						}
 						case EventType.UPDATE: {
-							Object obj = this.entityProvider.get( entityClass, id );
+							Object obj = this.load( entityClass, id );
 							if ( obj != null ) {
 								this.indexWrapper.update( obj, tx );
+								this.statisticsListener.workPerformed( entityClass, eventType );
 							}
 							break;
 						}
 						case EventType.DELETE: {
 							this.indexWrapper.delete( entityClass, inIndexOf, id, tx );
+							this.statisticsListener.workPerformed( entityClass, eventType );
 							break;
 						}
 						default: {
@@ -114,6 +127,13 @@ public class IndexUpdater implements UpdateConsumer {
 		}
 	}
 
+	private Object load(Class<?> entityClass, Object id) {
+		long start = System.nanoTime();
+		Object obj = this.entityProvider.get( entityClass, id );
+		this.statisticsListener.entityLoaded( entityClass, System.nanoTime() - start );
+		return obj;
+	}
+
 	public interface IndexWrapper {
 
 		void delete(Class<?> entityClass, List<Class<?>> inIndexOf, Object id, Transaction tx);
@@ -6,6 +6,9 @@
  */
 package org.hibernate.search.genericjpa.db.events;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.hibernate.search.genericjpa.db.events.EventModelInfo.IdInfo;
 
 /**
@@ -13,7 +16,11 @@ import org.hibernate.search.genericjpa.db.events.EventModelInfo.IdInfo;
  * <br>
  * In order to provide uniqueness between the Update tables it uses a procedure that generates unique ids. This
  * procedure does this with auxilliary table that only has a autoincrement id. A row is inserted everytime a unique id
- * is needed and that id is retrieved via MySQLs last_insert_id() and then returned
+ * is needed and that id is retrieved via MySQLs last_insert_id() and then returned <br>
+ * <br>
+ * Sharded Updates-Tables (see {@link org.hibernate.search.genericjpa.annotations.Updates#shardCount()}) get one
+ * trigger per shard that only writes the rows whose (numeric) first id column modulo the shard count matches. This
+ * needs multiple triggers for the same event on one table and therefore MySQL 5.7.2 or later
  *
  * @author Martin Braun
  */
@@ -21,6 +28,7 @@ public class MySQLTriggerSQLStringSource implements TriggerSQLStringSource {
 
 	public static final String DEFAULT_UNIQUE_ID_TABLE_NAME = "`_____unique____id____hsearch`";
 	public static final String DEFAULT_UNIQUE_ID_PROCEDURE_NAME = "get_unique_id_hsearch";
+	public static final String DEFAULT_TRIGGER_CHECKSUM_TABLE_NAME = "`_____trigger____checksum____hsearch`";
 
 	private static final String CREATE_TRIGGER_ORIGINAL_TABLE_SQL_FORMAT = "" + "CREATE TRIGGER %s AFTER %s ON %s                 \n"
 			+ "FOR EACH ROW                                                                                                       \n"
@@ -29,6 +37,15 @@ public class MySQLTriggerSQLStringSource implements TriggerSQLStringSource {
 			+ "    INSERT INTO %s(id, %s, %s)                                                                                     \n"
 			+ "		VALUES(@unique_id, %s, %s);                                                                                   \n"
 			+ "END;                                                                                                               \n";
+	private static final String CREATE_SHARDED_TRIGGER_ORIGINAL_TABLE_SQL_FORMAT = "" + "CREATE TRIGGER %s AFTER %s ON %s         \n"
+			+ "FOR EACH ROW                                                                                                       \n"
+			+ "BEGIN                                                                                                              \n"
+			+ "    IF MOD(%s, %d) = %d THEN                                                                                       \n"
+			+ "        CALL %s(@unique_id);                                                                                       \n"
+			+ "        INSERT INTO %s(id, %s, %s)                                                                                 \n"
+			+ "		    VALUES(@unique_id, %s, %s);                                                                               \n"
+			+ "    END IF;                                                                                                        \n"
+			+ "END;                                                                                                               \n";
 	private static final String CREATE_TRIGGER_CLEANUP_SQL_FORMAT = "" + "CREATE TRIGGER %s AFTER DELETE ON %s                    \n"
 			+ "FOR EACH ROW                                                                                                       \n"
 			+ "BEGIN                                                                                                              \n"
@@ -38,6 +55,7 @@ public class MySQLTriggerSQLStringSource implements TriggerSQLStringSource {
 
 	private final String uniqueIdTableName;
 	private final String uniqueIdProcedureName;
+	private final String triggerChecksumTableName;
 
 	// we don't support dropping the unique_id_table_name
 	// because otherwise we would lose information about the last used
@@ -47,14 +65,20 @@ public class MySQLTriggerSQLStringSource implements TriggerSQLStringSource {
 	private String dropUniqueIdTable;
 	private String dropUniqueIdProcedure;
 	private String createUniqueIdProcedure;
+	private String createTriggerChecksumTable;
 
 	public MySQLTriggerSQLStringSource() {
 		this( DEFAULT_UNIQUE_ID_TABLE_NAME, DEFAULT_UNIQUE_ID_PROCEDURE_NAME );
 	}
 
 	public MySQLTriggerSQLStringSource(String uniqueIdTableName, String uniqueIdProcedureName) {
+		this( uniqueIdTableName, uniqueIdProcedureName, DEFAULT_TRIGGER_CHECKSUM_TABLE_NAME );
+	}
+
+	public MySQLTriggerSQLStringSource(String uniqueIdTableName, String uniqueIdProcedureName, String triggerChecksumTableName) {
 		this.uniqueIdTableName = uniqueIdTableName;
 		this.uniqueIdProcedureName = uniqueIdProcedureName;
+		this.triggerChecksumTableName = triggerChecksumTableName;
 		this.init();
 	}
 
@@ -73,6 +97,11 @@ public class MySQLTriggerSQLStringSource implements TriggerSQLStringSource {
 				+ "	SET ret = last_insert_id();                                                                                    \n"
 				+ "END;                                                                                                            \n",
 				this.uniqueIdProcedureName, this.uniqueIdTableName );
+		this.createTriggerChecksumTable = String.format( "CREATE TABLE IF NOT EXISTS %s (                                          \n"
+				+ "updates_table VARCHAR(255) NOT NULL,                                                                            \n"
+				+ "checksum VARCHAR(64) NOT NULL,                                                                                  \n"
+				+ " PRIMARY KEY (updates_table)                                                                                    \n"
+				+ ");                                                                                                              \n", this.triggerChecksumTableName );
 		this.createTriggerCleanUpSQLFormat = CREATE_TRIGGER_CLEANUP_SQL_FORMAT.replaceAll( "#UNIQUE_ID_TABLE_NAME#", this.uniqueIdTableName );
 	}
 
@@ -81,10 +110,35 @@ public class MySQLTriggerSQLStringSource implements TriggerSQLStringSource {
 		return new String[] { this.createUniqueIdTable, this.dropUniqueIdProcedure, this.createUniqueIdProcedure };
 	}
 
+	@Override
+	public String[] getTriggerChecksumTableSetupCode() {
+		return new String[] { this.createTriggerChecksumTable };
+	}
+
+	@Override
+	public String getTriggerChecksumTableName() {
+		return this.triggerChecksumTableName;
+	}
+
+	@Override
+	public String[] getTriggerNames(EventModelInfo eventModelInfo) {
+		List<String> ret = new ArrayList<>();
+		ret.add( this.getCleanUpTriggerName( eventModelInfo.getTableName() ) );
+		for ( int eventType : EventType.values() ) {
+			ret.add( this.getTriggerName( eventModelInfo, eventType ) );
+		}
+		return ret.toArray( new String[ret.size()] );
+	}
+
+	@Override
+	public String getExistingTriggersQuery() {
+		return "SELECT TRIGGER_NAME FROM information_schema.TRIGGERS WHERE TRIGGER_SCHEMA = DATABASE()";
+	}
+
 	@Override
 	public String[] getTriggerCreationCode(EventModelInfo eventModelInfo, int eventType) {
 		String originalTableName = eventModelInfo.getOriginalTableName();
-		String triggerName = this.getTriggerName( eventModelInfo.getOriginalTableName(), eventType );
+		String triggerName = this.getTriggerName( eventModelInfo, eventType );
 		String tableName = eventModelInfo.getTableName();
 		String eventTypeColumn = eventModelInfo.getEventTypeColumn();
 		StringBuilder valuesFromOriginal = new StringBuilder();
@@ -111,19 +165,41 @@ public class MySQLTriggerSQLStringSource implements TriggerSQLStringSource {
 			throw new IllegalArgumentException( "eventModelInfo didn't contain any idInfos" );
 		}
 		String eventTypeValue = String.valueOf( eventType );
-		String createTriggerOriginalTableSQL = new StringBuilder().append(
-				String.format( CREATE_TRIGGER_ORIGINAL_TABLE_SQL_FORMAT, triggerName, EventType.toString( eventType ), originalTableName,
-						uniqueIdProcedureName, tableName, eventTypeColumn, idColumnNames.toString(), eventTypeValue, valuesFromOriginal.toString() ) )
-				.toString();
+		String createTriggerOriginalTableSQL;
+		if ( eventModelInfo.getShardCount() > 1 ) {
+			String shardColumn = ( eventType == EventType.DELETE ? "OLD." : "NEW." ) + eventModelInfo.getIdInfos().get( 0 ).getColumnsInOriginal()[0];
+			createTriggerOriginalTableSQL = String.format( CREATE_SHARDED_TRIGGER_ORIGINAL_TABLE_SQL_FORMAT, triggerName, EventType.toString( eventType ),
+					originalTableName, shardColumn, eventModelInfo.getShardCount(), eventModelInfo.getShard(), uniqueIdProcedureName, tableName,
+					eventTypeColumn, idColumnNames.toString(), eventTypeValue, valuesFromOriginal.toString() );
+		}
+		else {
+			createTriggerOriginalTableSQL = String.format( CREATE_TRIGGER_ORIGINAL_TABLE_SQL_FORMAT, triggerName, EventType.toString( eventType ),
+					originalTableName, uniqueIdProcedureName, tableName, eventTypeColumn, idColumnNames.toString(), eventTypeValue,
+					valuesFromOriginal.toString() );
+		}
 		return new String[] { createTriggerOriginalTableSQL };
 	}
 
 	@Override
 	public String[] getTriggerDropCode(EventModelInfo eventModelInfo, int eventType) {
-		String triggerName = this.getTriggerName( eventModelInfo.getOriginalTableName(), eventType );
+		String triggerName = this.getTriggerName( eventModelInfo, eventType );
+		if ( eventModelInfo.getShardCount() > 1 ) {
+			// also drop the trigger from before the table was sharded
+			String unshardedTriggerName = this.getTriggerName( eventModelInfo.getOriginalTableName(), eventType );
+			return new String[] { String.format( DROP_TRIGGER_SQL_FORMAT, unshardedTriggerName ).toUpperCase(),
+					String.format( DROP_TRIGGER_SQL_FORMAT, triggerName ).toUpperCase() };
+		}
 		return new String[] { String.format( DROP_TRIGGER_SQL_FORMAT, triggerName ).toUpperCase() };
 	}
 
+	private String getTriggerName(EventModelInfo eventModelInfo, int eventType) {
+		String triggerName = this.getTriggerName( eventModelInfo.getOriginalTableName(), eventType );
+		if ( eventModelInfo.getShardCount() > 1 ) {
+			triggerName = triggerName + "_" + eventModelInfo.getShard();
+		}
+		return triggerName;
+	}
+
 	private String getTriggerName(String originalTableName, int eventType) {
 		return new StringBuilder().append( originalTableName ).append( "_updates_hsearch_" ).append( EventType.toString( eventType ) ).toString();
 	}
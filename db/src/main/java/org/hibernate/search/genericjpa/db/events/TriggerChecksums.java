@@ -0,0 +1,67 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.hibernate.search.exception.AssertionFailure;
+
+/**
+ * Computes checksums over the SQL a {@link TriggerSQLStringSource} generates for a specific {@link EventModelInfo}.
+ * These are stored in the database so the triggers of an Updates-Table only have to be recreated if the code changed.
+ *
+ * @author Martin Braun
+ */
+public final class TriggerChecksums {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private TriggerChecksums() {
+		throw new AssertionFailure( "can't touch this!" );
+	}
+
+	/**
+	 * @return the SHA-256 checksum (hex) of all the specific setup, unsetup, trigger creation and trigger drop code for
+	 * the given EventModelInfo
+	 */
+	public static String compute(TriggerSQLStringSource triggerSource, EventModelInfo eventModelInfo) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance( "SHA-256" );
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new AssertionFailure( "SHA-256 has to be supported by every JVM", e );
+		}
+		update( digest, triggerSource.getSpecificUnSetupCode( eventModelInfo ) );
+		update( digest, triggerSource.getSpecificSetupCode( eventModelInfo ) );
+		for ( int eventType : EventType.values() ) {
+			update( digest, triggerSource.getTriggerDropCode( eventModelInfo, eventType ) );
+			update( digest, triggerSource.getTriggerCreationCode( eventModelInfo, eventType ) );
+		}
+		byte[] hash = digest.digest();
+		char[] ret = new char[hash.length * 2];
+		for ( int i = 0; i < hash.length; ++i ) {
+			ret[i * 2] = HEX[( hash[i] >> 4 ) & 0xF];
+			ret[i * 2 + 1] = HEX[hash[i] & 0xF];
+		}
+		return new String( ret );
+	}
+
+	private static void update(MessageDigest digest, String[] sqlStrings) {
+		if ( sqlStrings == null ) {
+			return;
+		}
+		for ( String sql : sqlStrings ) {
+			digest.update( sql.getBytes( StandardCharsets.UTF_8 ) );
+			// separator so that moving code between statements changes the checksum
+			digest.update( (byte) 0 );
+		}
+	}
+
+}
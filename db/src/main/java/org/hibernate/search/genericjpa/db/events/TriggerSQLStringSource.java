@@ -59,4 +59,39 @@ public interface TriggerSQLStringSource {
 	 */
 	String[] getTriggerDropCode(EventModelInfo eventModelInfo, int eventType);
 
+	/**
+	 * this creates the table that stores the checksums of the trigger code installed for every Updates-Table. it is
+	 * executed right after {@link #getSetupCode()}. Implementations that don't support checksums can leave this empty
+	 * (the triggers are then recreated on every startup)
+	 */
+	default String[] getTriggerChecksumTableSetupCode() {
+		return new String[0];
+	}
+
+	/**
+	 * @return the name of the table created by {@link #getTriggerChecksumTableSetupCode()} or null if checksums are not
+	 * supported. The table has to have the columns <code>updates_table</code> and <code>checksum</code> (both
+	 * strings, <code>updates_table</code> being the primary key)
+	 */
+	default String getTriggerChecksumTableName() {
+		return null;
+	}
+
+	/**
+	 * @return the names of all triggers created for the given EventModelInfo. Together with
+	 * {@link #getExistingTriggersQuery()} this is used to check whether the triggers of an Updates-Table with an
+	 * unchanged checksum still exist. If this is empty, the triggers are always recreated
+	 */
+	default String[] getTriggerNames(EventModelInfo eventModelInfo) {
+		return new String[0];
+	}
+
+	/**
+	 * @return a query that returns the names of all triggers currently existing in the database (one per row, first
+	 * column) or null if this is not supported
+	 */
+	default String getExistingTriggersQuery() {
+		return null;
+	}
+
 }
@@ -0,0 +1,152 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.hibernate.search.exception.AssertionFailure;
+import org.jboss.logging.Logger;
+
+/**
+ * sets up the triggers for a list of EventModelInfos. All the DDL of one Updates-Table is sent to the database in a
+ * single batch and committed once. If the {@link TriggerSQLStringSource} supports trigger checksums, Updates-Tables
+ * whose trigger code didn't change since the last setup are skipped, but only if all of their triggers still exist
+ * (dropping a table drops its triggers as well, e.g. when the schema is regenerated on startup)
+ *
+ * @author Martin Braun
+ */
+public final class TriggerSetup {
+
+	private static final Logger LOGGER = Logger.getLogger( TriggerSetup.class );
+
+	private TriggerSetup() {
+		throw new AssertionFailure( "can't touch this!" );
+	}
+
+	/**
+	 * the connection has to be in manual commit mode. Every Updates-Table is committed on its own
+	 */
+	public static void setup(Connection connection, TriggerSQLStringSource triggerSource, List<EventModelInfo> eventModelInfos) throws SQLException {
+		String checksumTableName = triggerSource.getTriggerChecksumTableName();
+		try (Statement statement = connection.createStatement()) {
+			List<String> setupCode = new ArrayList<>();
+			setupCode.addAll( Arrays.asList( triggerSource.getSetupCode() ) );
+			setupCode.addAll( Arrays.asList( triggerSource.getTriggerChecksumTableSetupCode() ) );
+			executeBatch( connection, statement, setupCode );
+			connection.commit();
+
+			Map<String, String> checksums = checksumTableName != null ? readChecksums( connection, checksumTableName ) : Collections.emptyMap();
+			Set<String> existingTriggers = checksumTableName != null ? readExistingTriggers( connection, triggerSource ) : Collections.emptySet();
+			for ( EventModelInfo info : eventModelInfos ) {
+				String checksum = null;
+				if ( checksumTableName != null ) {
+					checksum = TriggerChecksums.compute( triggerSource, info );
+					if ( checksum.equals( checksums.get( info.getTableName() ) ) ) {
+						if ( triggersExist( triggerSource, info, existingTriggers ) ) {
+							LOGGER.info( "triggers for " + info.getTableName() + " are up to date, skipping" );
+							continue;
+						}
+						LOGGER.info( "triggers for " + info.getTableName() + " are missing (was the table recreated?), recreating them" );
+					}
+				}
+				List<String> code = new ArrayList<>();
+				code.addAll( Arrays.asList( triggerSource.getSpecificUnSetupCode( info ) ) );
+				code.addAll( Arrays.asList( triggerSource.getSpecificSetupCode( info ) ) );
+				for ( int eventType : EventType.values() ) {
+					code.addAll( Arrays.asList( triggerSource.getTriggerDropCode( info, eventType ) ) );
+				}
+				for ( int eventType : EventType.values() ) {
+					code.addAll( Arrays.asList( triggerSource.getTriggerCreationCode( info, eventType ) ) );
+				}
+				executeBatch( connection, statement, code );
+				if ( checksumTableName != null ) {
+					storeChecksum( connection, checksumTableName, info.getTableName(), checksum );
+				}
+				connection.commit();
+			}
+		}
+	}
+
+	private static boolean triggersExist(TriggerSQLStringSource triggerSource, EventModelInfo info, Set<String> existingTriggers) {
+		String[] triggerNames = triggerSource.getTriggerNames( info );
+		if ( triggerNames.length == 0 ) {
+			// we can't check this, better be safe
+			return false;
+		}
+		for ( String triggerName : triggerNames ) {
+			if ( !existingTriggers.contains( normalize( triggerName ) ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Set<String> readExistingTriggers(Connection connection, TriggerSQLStringSource triggerSource) throws SQLException {
+		Set<String> ret = new HashSet<>();
+		String query = triggerSource.getExistingTriggersQuery();
+		if ( query == null ) {
+			return ret;
+		}
+		try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery( query )) {
+			while ( resultSet.next() ) {
+				ret.add( normalize( resultSet.getString( 1 ) ) );
+			}
+		}
+		return ret;
+	}
+
+	private static String normalize(String triggerName) {
+		return triggerName.replace( "`", "" ).replace( "\"", "" ).toUpperCase();
+	}
+
+	private static void executeBatch(Connection connection, Statement statement, List<String> sqlStrings) throws SQLException {
+		if ( sqlStrings.size() == 0 ) {
+			return;
+		}
+		for ( String sql : sqlStrings ) {
+			LOGGER.info( sql );
+			statement.addBatch( connection.nativeSQL( sql ) );
+		}
+		statement.executeBatch();
+		statement.clearBatch();
+	}
+
+	private static Map<String, String> readChecksums(Connection connection, String checksumTableName) throws SQLException {
+		Map<String, String> ret = new HashMap<>();
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery( "SELECT updates_table, checksum FROM " + checksumTableName )) {
+			while ( resultSet.next() ) {
+				ret.put( resultSet.getString( 1 ), resultSet.getString( 2 ) );
+			}
+		}
+		return ret;
+	}
+
+	private static void storeChecksum(Connection connection, String checksumTableName, String updatesTableName, String checksum) throws SQLException {
+		try (PreparedStatement delete = connection.prepareStatement( "DELETE FROM " + checksumTableName + " WHERE updates_table = ?" )) {
+			delete.setString( 1, updatesTableName );
+			delete.executeUpdate();
+		}
+		try (PreparedStatement insert = connection.prepareStatement( "INSERT INTO " + checksumTableName + " (updates_table, checksum) VALUES (?, ?)" )) {
+			insert.setString( 1, updatesTableName );
+			insert.setString( 2, checksum );
+			insert.executeUpdate();
+		}
+	}
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * durable storage for the checkpoint of an {@link UpdateSource}: the ids of the update entries (per Updates-Table)
+ * that have already been applied to the index but whose removal from the database might not have been committed yet.
+ * After a crash these entries can be pruned without being applied to the index a second time. This only deduplicates
+ * replays, the consumption stays at-least-once (a crash between changing the index and storing the ids still replays
+ * the entries). <br>
+ * <br>
+ * {@link #add(String, Collection)} has to be durable once it returns.
+ *
+ * @author Martin Braun
+ */
+public interface UpdateCheckpointStore {
+
+	/**
+	 * @param key the Updates-Table
+	 *
+	 * @return the ids of all update entries that were applied to the index but not pruned yet
+	 */
+	Set<Long> load(String key);
+
+	/**
+	 * marks the given update entries as applied to the index
+	 *
+	 * @param key the Updates-Table
+	 */
+	void add(String key, Collection<Long> ids);
+
+	/**
+	 * called after all update entries returned by {@link #load(String)} have been removed from the database
+	 *
+	 * @param key the Updates-Table
+	 */
+	void clear(String key);
+
+}
@@ -14,7 +14,8 @@ import java.util.List;
 public interface UpdateConsumer {
 
 	/**
-	 * called everytime an update is found in the database
+	 * called everytime an update is found in the database. The UpdateSources never call one consumer concurrently, so
+	 * implementations don't have to be thread-safe (but they can be called from different threads over time)
 	 *
 	 * @param updateInfo a list of objects describing the several updates in the order they occured in the database
 	 */
@@ -8,6 +8,8 @@ package org.hibernate.search.genericjpa.db.events;
 
 import java.util.List;
 
+import org.hibernate.search.genericjpa.db.events.stat.UpdateStatisticsListener;
+
 /**
  * Source for updates on entities. This does no hierarchy checks, it just delivers information about which entry in
  * which table has changed
@@ -22,4 +24,12 @@ public interface UpdateSource {
 
 	void stop();
 
+	/**
+	 * sets the listener that is notified about polled events, batch durations and the backlog. UpdateSources that
+	 * don't collect statistics ignore this
+	 */
+	default void setStatisticsListener(UpdateStatisticsListener statisticsListener) {
+
+	}
+
 }
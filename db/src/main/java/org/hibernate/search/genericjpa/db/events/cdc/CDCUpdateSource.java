@@ -0,0 +1,198 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events.cdc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.search.genericjpa.db.events.EventModelInfo;
+import org.hibernate.search.genericjpa.db.events.EventModelInfo.IdInfo;
+import org.hibernate.search.genericjpa.db.events.UpdateConsumer;
+import org.hibernate.search.genericjpa.db.events.UpdateConsumer.UpdateInfo;
+import org.hibernate.search.genericjpa.db.events.UpdateSource;
+import org.jboss.logging.Logger;
+
+/**
+ * a {@link UpdateSource} that reads row changes from a change-data-capture feed (see {@link RowChangeEventReader})
+ * instead of polling Updates-Tables filled by triggers. This keeps the index updating entirely off the write path of
+ * the application. <br>
+ * <br>
+ * The {@link EventModelInfo}s are only used for their mapping information: the table of an event is matched
+ * (case-insensitive, quotes are ignored) against {@link EventModelInfo#getOriginalTableName()} and the id is taken from
+ * the {@link IdInfo#getColumnsInOriginal()} columns. If an IdInfo has more than one column, an Object[] with the values
+ * in the order of the columns is passed to its {@link org.hibernate.search.genericjpa.db.id.ToOriginalIdBridge}. Of
+ * sharded Updates-Tables only shard 0 is used, as all shards describe the same original table. No triggers or
+ * Updates-Tables have to be created for this.
+ *
+ * @author Martin Braun
+ */
+public class CDCUpdateSource implements UpdateSource {
+
+	private static final Logger LOGGER = Logger.getLogger( CDCUpdateSource.class );
+
+	private final Map<String, List<EventModelInfo>> tableToEventModelInfos;
+	private final RowChangeEventReader reader;
+	private final long timeOut;
+	private final TimeUnit timeUnit;
+	private final int batchSizeForUpdates;
+
+	private List<UpdateConsumer> updateConsumers;
+	private final ScheduledExecutorService exec;
+	private boolean createdOwnExecutorService = false;
+
+	/**
+	 * updates that were read from the reader but could not be handled by the consumers yet. these are retried before
+	 * anything new is read
+	 */
+	private final List<UpdateInfo> pending = new ArrayList<>();
+
+	public CDCUpdateSource(List<EventModelInfo> eventModelInfos, RowChangeEventReader reader, long timeOut, TimeUnit timeUnit, int batchSizeForUpdates) {
+		this( eventModelInfos, reader, timeOut, timeUnit, batchSizeForUpdates, Executors.newScheduledThreadPool( 1 ) );
+		this.createdOwnExecutorService = true;
+	}
+
+	public CDCUpdateSource(List<EventModelInfo> eventModelInfos, RowChangeEventReader reader, long timeOut, TimeUnit timeUnit, int batchSizeForUpdates,
+			ScheduledExecutorService exec) {
+		if ( reader == null ) {
+			throw new IllegalArgumentException( "the RowChangeEventReader may not be null!" );
+		}
+		if ( timeOut <= 0 ) {
+			throw new IllegalArgumentException( "timeout must be greater than 0" );
+		}
+		if ( batchSizeForUpdates <= 0 ) {
+			throw new IllegalArgumentException( "batchSize must be greater than 0" );
+		}
+		if ( exec == null ) {
+			throw new IllegalArgumentException( "the ScheduledExecutorService may not be null!" );
+		}
+		this.reader = reader;
+		this.timeOut = timeOut;
+		this.timeUnit = timeUnit;
+		this.batchSizeForUpdates = batchSizeForUpdates;
+		this.exec = exec;
+		this.tableToEventModelInfos = new HashMap<>();
+		for ( EventModelInfo info : eventModelInfos ) {
+			if ( info.getShard() != 0 ) {
+				// all shards of an original table map the same ids, one of them is enough
+				continue;
+			}
+			this.tableToEventModelInfos.computeIfAbsent( normalize( info.getOriginalTableName() ), (key) -> new ArrayList<>() ).add( info );
+		}
+	}
+
+	@Override
+	public void setUpdateConsumers(List<UpdateConsumer> updateConsumers) {
+		this.updateConsumers = updateConsumers;
+	}
+
+	@Override
+	public void start() {
+		if ( this.updateConsumers == null ) {
+			throw new IllegalStateException( "updateConsumers was null!" );
+		}
+		this.exec.scheduleWithFixedDelay( () -> {
+			try {
+				this.poll();
+			}
+			catch (Exception e) {
+				LOGGER.error( "Error occured during Update processing!", e );
+			}
+		}, 0, this.timeOut, this.timeUnit );
+	}
+
+	private void poll() throws IOException {
+		if ( this.pending.size() > 0 ) {
+			this.consume();
+		}
+		List<RowChangeEvent> events;
+		do {
+			events = this.reader.poll( this.batchSizeForUpdates );
+			for ( RowChangeEvent event : events ) {
+				this.toUpdateInfos( event, this.pending );
+			}
+			this.consume();
+		}
+		while ( events.size() >= this.batchSizeForUpdates );
+	}
+
+	private void consume() throws IOException {
+		if ( this.pending.size() > 0 ) {
+			for ( UpdateConsumer consumer : this.updateConsumers ) {
+				consumer.updateEvent( this.pending );
+			}
+			this.pending.clear();
+		}
+		this.reader.acknowledge();
+	}
+
+	/**
+	 * converts a single RowChangeEvent into the UpdateInfos for all entity types that are mapped to the changed table
+	 */
+	public void toUpdateInfos(RowChangeEvent event, List<UpdateInfo> updateInfos) {
+		List<EventModelInfo> infos = this.tableToEventModelInfos.get( normalize( event.getTable() ) );
+		if ( infos == null ) {
+			// not relevant to the index
+			return;
+		}
+		Map<String, Object> columns = normalize( event.getColumns() );
+		for ( EventModelInfo info : infos ) {
+			for ( IdInfo idInfo : info.getIdInfos() ) {
+				String[] columnsInOriginal = idInfo.getColumnsInOriginal();
+				Object[] values = new Object[columnsInOriginal.length];
+				boolean complete = true;
+				for ( int i = 0; i < columnsInOriginal.length; ++i ) {
+					values[i] = columns.get( normalize( columnsInOriginal[i] ) );
+					if ( values[i] == null ) {
+						complete = false;
+						break;
+					}
+				}
+				if ( !complete ) {
+					LOGGER.warn( "event " + event + " did not contain all the id columns " + Arrays.toString( columnsInOriginal ) + " of "
+							+ idInfo.getEntityClass() + ", skipping" );
+					continue;
+				}
+				Object id = idInfo.getToOriginalBridge().toOriginal( values.length == 1 ? values[0] : values );
+				updateInfos.add( new UpdateInfo( idInfo.getEntityClass(), id, event.getEventType() ) );
+			}
+		}
+	}
+
+	private static Map<String, Object> normalize(Map<String, Object> columns) {
+		Map<String, Object> ret = new HashMap<>( columns.size() );
+		for ( Map.Entry<String, Object> entry : columns.entrySet() ) {
+			ret.put( normalize( entry.getKey() ), entry.getValue() );
+		}
+		return ret;
+	}
+
+	private static String normalize(String name) {
+		return name.replace( "`", "" ).replace( "\"", "" ).toLowerCase( Locale.ROOT );
+	}
+
+	@Override
+	public void stop() {
+		if ( this.createdOwnExecutorService && this.exec != null ) {
+			this.exec.shutdown();
+		}
+		try {
+			this.reader.close();
+		}
+		catch (IOException e) {
+			LOGGER.warn( "could not close the RowChangeEventReader", e );
+		}
+	}
+
+}
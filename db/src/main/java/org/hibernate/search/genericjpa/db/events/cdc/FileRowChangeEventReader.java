@@ -0,0 +1,131 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events.cdc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.search.genericjpa.db.events.EventType;
+
+/**
+ * {@link RowChangeEventReader} that replays (and tails) a simple text file. This is mainly meant as a stand-in for a
+ * real change-data-capture client in tests or to replay exported change logs. <br>
+ * <br>
+ * Every line contains one event:
+ *
+ * <pre>
+ * INSERT Place_Sorcerer id:int=1 sorc_id:int=2
+ * DELETE Place id:long=3
+ * UPDATE Sorcerer name=Saruman id:int=4
+ * </pre>
+ *
+ * The supported types are <code>int</code>, <code>long</code> and <code>string</code> (the default if no type is
+ * given). Empty lines and lines starting with <code>#</code> are ignored. Lines are only read once they are terminated
+ * by a line break, so the file can be appended to while it is being read.
+ *
+ * @author Martin Braun
+ */
+public class FileRowChangeEventReader implements RowChangeEventReader {
+
+	private final RandomAccessFile file;
+	private long position = 0;
+
+	public FileRowChangeEventReader(File file) throws IOException {
+		this.file = new RandomAccessFile( file, "r" );
+	}
+
+	@Override
+	public List<RowChangeEvent> poll(int maxEvents) throws IOException {
+		List<RowChangeEvent> ret = new ArrayList<>();
+		this.file.seek( this.position );
+		String line;
+		while ( ret.size() < maxEvents && ( line = this.file.readLine() ) != null ) {
+			long pointer = this.file.getFilePointer();
+			if ( !this.endsWithLineBreak( pointer ) ) {
+				// incomplete line, we will read it again once it is finished
+				break;
+			}
+			this.position = pointer;
+			line = line.trim();
+			if ( line.isEmpty() || line.startsWith( "#" ) ) {
+				continue;
+			}
+			ret.add( parse( line ) );
+		}
+		return ret;
+	}
+
+	private boolean endsWithLineBreak(long pointer) throws IOException {
+		if ( pointer == 0 ) {
+			return false;
+		}
+		this.file.seek( pointer - 1 );
+		int last = this.file.read();
+		return last == '\n' || last == '\r';
+	}
+
+	static RowChangeEvent parse(String line) {
+		String[] parts = line.split( "\\s+" );
+		if ( parts.length < 2 ) {
+			throw new IllegalArgumentException( "expected at least eventType and table in line: " + line );
+		}
+		int eventType;
+		switch ( parts[0].toUpperCase() ) {
+			case "INSERT":
+				eventType = EventType.INSERT;
+				break;
+			case "UPDATE":
+				eventType = EventType.UPDATE;
+				break;
+			case "DELETE":
+				eventType = EventType.DELETE;
+				break;
+			default:
+				throw new IllegalArgumentException( "unknown eventType " + parts[0] + " in line: " + line );
+		}
+		Map<String, Object> columns = new HashMap<>();
+		for ( int i = 2; i < parts.length; ++i ) {
+			int eqIdx = parts[i].indexOf( '=' );
+			if ( eqIdx <= 0 ) {
+				throw new IllegalArgumentException( "expected column[:type]=value but found " + parts[i] + " in line: " + line );
+			}
+			String column = parts[i].substring( 0, eqIdx );
+			String value = parts[i].substring( eqIdx + 1 );
+			String type = "string";
+			int colonIdx = column.indexOf( ':' );
+			if ( colonIdx > 0 ) {
+				type = column.substring( colonIdx + 1 );
+				column = column.substring( 0, colonIdx );
+			}
+			switch ( type ) {
+				case "int":
+					columns.put( column, Integer.valueOf( value ) );
+					break;
+				case "long":
+					columns.put( column, Long.valueOf( value ) );
+					break;
+				case "string":
+					columns.put( column, value );
+					break;
+				default:
+					throw new IllegalArgumentException( "unknown type " + type + " in line: " + line );
+			}
+		}
+		return new RowChangeEvent( parts[1], eventType, columns );
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.file.close();
+	}
+
+}
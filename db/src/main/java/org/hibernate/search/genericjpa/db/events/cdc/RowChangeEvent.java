@@ -0,0 +1,73 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events.cdc;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.hibernate.search.genericjpa.db.events.EventType;
+
+/**
+ * a single row change as it is read from a change-data-capture feed (MySQL binlog, Postgres logical decoding, ...).
+ * <br>
+ * <br>
+ * For {@link EventType#INSERT} and {@link EventType#UPDATE} the columns contain the row after the change, for
+ * {@link EventType#DELETE} they contain the row before it was deleted. Only the id columns (the
+ * <code>columnsInOriginal</code> of the {@link org.hibernate.search.genericjpa.annotations.IdFor} annotations) are
+ * needed.
+ *
+ * @author Martin Braun
+ */
+public final class RowChangeEvent {
+
+	private final String table;
+	private final int eventType;
+	private final Map<String, Object> columns;
+
+	public RowChangeEvent(String table, int eventType, Map<String, Object> columns) {
+		if ( table == null ) {
+			throw new IllegalArgumentException( "table may not be null" );
+		}
+		if ( columns == null ) {
+			throw new IllegalArgumentException( "columns may not be null" );
+		}
+		this.table = table;
+		this.eventType = eventType;
+		this.columns = Collections.unmodifiableMap( columns );
+	}
+
+	/**
+	 * @return the name of the table the change happened in
+	 */
+	public String getTable() {
+		return table;
+	}
+
+	/**
+	 * @return the eventType, see {@link EventType}
+	 */
+	public int getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * @return the column values of the changed row
+	 */
+	public Map<String, Object> getColumns() {
+		return columns;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "RowChangeEvent [table=" + table + ", eventType=" + EventType.toString( eventType ) + ", columns=" + columns + "]";
+	}
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events.cdc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * reads {@link RowChangeEvent}s from a change-data-capture feed. Implementations wrap the client of the specific
+ * database log (MySQL binlog, Postgres logical decoding, ...) and are only ever used from one thread at a time.
+ *
+ * @author Martin Braun
+ */
+public interface RowChangeEventReader extends Closeable {
+
+	/**
+	 * returns the next events in the order they happened in the database. This must not block for long, an empty list
+	 * is to be returned if there are currently no new events.
+	 *
+	 * @param maxEvents the maximum number of events to return
+	 */
+	List<RowChangeEvent> poll(int maxEvents) throws IOException;
+
+	/**
+	 * called after all events returned by {@link #poll(int)} so far have been handled successfully. Implementations can
+	 * use this to persist their position in the log so that no events are lost on restart
+	 */
+	default void acknowledge() throws IOException {
+		// no-op by default
+	}
+
+}
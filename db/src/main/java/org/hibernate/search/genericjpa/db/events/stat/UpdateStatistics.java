@@ -0,0 +1,225 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events.stat;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.hibernate.search.genericjpa.db.events.EventType;
+
+/**
+ * {@link UpdateStatisticsListener} that aggregates everything in counters. It can be registered with the platform
+ * MBeanServer via {@link #register(String)}
+ *
+ * @author Martin Braun
+ */
+public class UpdateStatistics implements UpdateStatisticsListener, UpdateStatisticsMBean {
+
+	private final Map<Class<?>, LongAdder> eventsPolled = new ConcurrentHashMap<>();
+	private final LongAdder batchCount = new LongAdder();
+	private final LongAdder fetchNanos = new LongAdder();
+	private final LongAdder consumeNanos = new LongAdder();
+	private final LongAdder removeNanos = new LongAdder();
+	private final LongAdder entitiesLoaded = new LongAdder();
+	private final LongAdder entityLoadNanos = new LongAdder();
+	private final LongAdder inserts = new LongAdder();
+	private final LongAdder updates = new LongAdder();
+	private final LongAdder deletes = new LongAdder();
+	private volatile long backlog;
+	private volatile long oldestPendingEventAgeMillis;
+
+	private ObjectName objectName;
+
+	@Override
+	public void eventsPolled(Class<?> updateClass, int count) {
+		this.eventsPolled.computeIfAbsent( updateClass, (key) -> new LongAdder() ).add( count );
+	}
+
+	@Override
+	public void batchFetched(int size, long nanos) {
+		this.batchCount.increment();
+		this.fetchNanos.add( nanos );
+	}
+
+	@Override
+	public void batchConsumed(int size, long nanos) {
+		this.consumeNanos.add( nanos );
+	}
+
+	@Override
+	public void batchRemoved(int size, long nanos) {
+		this.removeNanos.add( nanos );
+	}
+
+	@Override
+	public void backlog(long backlog, long oldestEventAgeMillis) {
+		this.backlog = backlog;
+		this.oldestPendingEventAgeMillis = oldestEventAgeMillis;
+	}
+
+	@Override
+	public void entityLoaded(Class<?> entityClass, long nanos) {
+		this.entitiesLoaded.increment();
+		this.entityLoadNanos.add( nanos );
+	}
+
+	@Override
+	public void workPerformed(Class<?> entityClass, int eventType) {
+		switch ( eventType ) {
+			case EventType.INSERT:
+				this.inserts.increment();
+				break;
+			case EventType.UPDATE:
+				this.updates.increment();
+				break;
+			case EventType.DELETE:
+				this.deletes.increment();
+				break;
+			default:
+				break;
+		}
+	}
+
+	@Override
+	public long getEventsPolled() {
+		long sum = 0;
+		for ( LongAdder adder : this.eventsPolled.values() ) {
+			sum += adder.sum();
+		}
+		return sum;
+	}
+
+	@Override
+	public Map<String, Long> getEventsPolledPerClass() {
+		Map<String, Long> ret = new TreeMap<>();
+		for ( Map.Entry<Class<?>, LongAdder> entry : this.eventsPolled.entrySet() ) {
+			ret.put( entry.getKey().getName(), entry.getValue().sum() );
+		}
+		return ret;
+	}
+
+	@Override
+	public long getBatchCount() {
+		return this.batchCount.sum();
+	}
+
+	@Override
+	public double getAverageFetchMillis() {
+		return average( this.fetchNanos, this.batchCount );
+	}
+
+	@Override
+	public double getAverageConsumeMillis() {
+		return average( this.consumeNanos, this.batchCount );
+	}
+
+	@Override
+	public double getAverageRemoveMillis() {
+		return average( this.removeNanos, this.batchCount );
+	}
+
+	@Override
+	public long getBacklog() {
+		return this.backlog;
+	}
+
+	@Override
+	public long getOldestPendingEventAgeMillis() {
+		return this.oldestPendingEventAgeMillis;
+	}
+
+	@Override
+	public long getEntitiesLoaded() {
+		return this.entitiesLoaded.sum();
+	}
+
+	@Override
+	public double getAverageEntityLoadMillis() {
+		return average( this.entityLoadNanos, this.entitiesLoaded );
+	}
+
+	@Override
+	public long getIndexWorkCount() {
+		return this.inserts.sum() + this.updates.sum() + this.deletes.sum();
+	}
+
+	@Override
+	public long getIndexInsertCount() {
+		return this.inserts.sum();
+	}
+
+	@Override
+	public long getIndexUpdateCount() {
+		return this.updates.sum();
+	}
+
+	@Override
+	public long getIndexDeleteCount() {
+		return this.deletes.sum();
+	}
+
+	@Override
+	public void reset() {
+		this.eventsPolled.clear();
+		this.batchCount.reset();
+		this.fetchNanos.reset();
+		this.consumeNanos.reset();
+		this.removeNanos.reset();
+		this.entitiesLoaded.reset();
+		this.entityLoadNanos.reset();
+		this.inserts.reset();
+		this.updates.reset();
+		this.deletes.reset();
+	}
+
+	/**
+	 * registers this with the platform MBeanServer
+	 *
+	 * @param objectName the JMX ObjectName, e.g. "org.hibernate.search.genericjpa:type=UpdateStatistics"
+	 */
+	public synchronized void register(String objectName) {
+		try {
+			ObjectName name = new ObjectName( objectName );
+			ManagementFactory.getPlatformMBeanServer().registerMBean( this, name );
+			this.objectName = name;
+		}
+		catch (JMException e) {
+			throw new RuntimeException( "couldn't register the UpdateStatistics MBean as " + objectName, e );
+		}
+	}
+
+	public synchronized void unregister() {
+		if ( this.objectName == null ) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if ( server.isRegistered( this.objectName ) ) {
+				server.unregisterMBean( this.objectName );
+			}
+		}
+		catch (JMException e) {
+			throw new RuntimeException( "couldn't unregister the UpdateStatistics MBean " + this.objectName, e );
+		}
+		finally {
+			this.objectName = null;
+		}
+	}
+
+	private static double average(LongAdder nanos, LongAdder count) {
+		long c = count.sum();
+		return c == 0 ? 0 : nanos.sum() / (double) c / 1_000_000D;
+	}
+
+}
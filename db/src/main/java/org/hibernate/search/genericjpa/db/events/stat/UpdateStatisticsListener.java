@@ -0,0 +1,118 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events.stat;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * gets notified about what happens while the index is kept up to date. All methods may be called from several threads
+ * at once and should return quickly. All durations are in nanoseconds.
+ *
+ * @author Martin Braun
+ */
+public interface UpdateStatisticsListener {
+
+	/**
+	 * @param updateClass the class of the Updates-Table the events were read from
+	 * @param count the number of events
+	 */
+	default void eventsPolled(Class<?> updateClass, int count) {
+
+	}
+
+	/**
+	 * time it took to read a batch of events from the database
+	 */
+	default void batchFetched(int size, long nanos) {
+
+	}
+
+	/**
+	 * time the UpdateConsumers needed for a batch of events
+	 */
+	default void batchConsumed(int size, long nanos) {
+
+	}
+
+	/**
+	 * time it took to remove a batch of events from the database
+	 */
+	default void batchRemoved(int size, long nanos) {
+
+	}
+
+	/**
+	 * @param backlog the number of events that were pending at the beginning of the last poll
+	 * @param oldestEventAgeMillis upper bound for the age of the oldest pending event (0 if there is none)
+	 */
+	default void backlog(long backlog, long oldestEventAgeMillis) {
+
+	}
+
+	/**
+	 * time it took to load an entity from the database before indexing it
+	 */
+	default void entityLoaded(Class<?> entityClass, long nanos) {
+
+	}
+
+	/**
+	 * a unit of work was passed to the index
+	 *
+	 * @param eventType see {@link org.hibernate.search.genericjpa.db.events.EventType}
+	 */
+	default void workPerformed(Class<?> entityClass, int eventType) {
+
+	}
+
+	/**
+	 * @return a listener that notifies all the given listeners
+	 */
+	static UpdateStatisticsListener of(UpdateStatisticsListener... listeners) {
+		List<UpdateStatisticsListener> list = Arrays.asList( listeners );
+		return new UpdateStatisticsListener() {
+
+			@Override
+			public void eventsPolled(Class<?> updateClass, int count) {
+				list.forEach( (listener) -> listener.eventsPolled( updateClass, count ) );
+			}
+
+			@Override
+			public void batchFetched(int size, long nanos) {
+				list.forEach( (listener) -> listener.batchFetched( size, nanos ) );
+			}
+
+			@Override
+			public void batchConsumed(int size, long nanos) {
+				list.forEach( (listener) -> listener.batchConsumed( size, nanos ) );
+			}
+
+			@Override
+			public void batchRemoved(int size, long nanos) {
+				list.forEach( (listener) -> listener.batchRemoved( size, nanos ) );
+			}
+
+			@Override
+			public void backlog(long backlog, long oldestEventAgeMillis) {
+				list.forEach( (listener) -> listener.backlog( backlog, oldestEventAgeMillis ) );
+			}
+
+			@Override
+			public void entityLoaded(Class<?> entityClass, long nanos) {
+				list.forEach( (listener) -> listener.entityLoaded( entityClass, nanos ) );
+			}
+
+			@Override
+			public void workPerformed(Class<?> entityClass, int eventType) {
+				list.forEach( (listener) -> listener.workPerformed( entityClass, eventType ) );
+			}
+
+		};
+	}
+
+}
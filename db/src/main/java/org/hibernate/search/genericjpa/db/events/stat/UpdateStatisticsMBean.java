@@ -0,0 +1,51 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events.stat;
+
+import java.util.Map;
+
+/**
+ * JMX view of the {@link UpdateStatistics}
+ *
+ * @author Martin Braun
+ */
+public interface UpdateStatisticsMBean {
+
+	long getEventsPolled();
+
+	/**
+	 * @return the events polled per Updates-Table class
+	 */
+	Map<String, Long> getEventsPolledPerClass();
+
+	long getBatchCount();
+
+	double getAverageFetchMillis();
+
+	double getAverageConsumeMillis();
+
+	double getAverageRemoveMillis();
+
+	long getBacklog();
+
+	long getOldestPendingEventAgeMillis();
+
+	long getEntitiesLoaded();
+
+	double getAverageEntityLoadMillis();
+
+	long getIndexWorkCount();
+
+	long getIndexInsertCount();
+
+	long getIndexUpdateCount();
+
+	long getIndexDeleteCount();
+
+	void reset();
+
+}
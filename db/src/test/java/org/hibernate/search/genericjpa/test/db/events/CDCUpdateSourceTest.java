@@ -0,0 +1,118 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.test.db.events;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.search.genericjpa.annotations.Event;
+import org.hibernate.search.genericjpa.annotations.IdFor;
+import org.hibernate.search.genericjpa.annotations.Updates;
+import org.hibernate.search.genericjpa.db.events.EventModelInfo;
+import org.hibernate.search.genericjpa.db.events.EventModelParser;
+import org.hibernate.search.genericjpa.db.events.EventType;
+import org.hibernate.search.genericjpa.db.events.UpdateConsumer.UpdateInfo;
+import org.hibernate.search.genericjpa.db.events.cdc.CDCUpdateSource;
+import org.hibernate.search.genericjpa.db.events.cdc.FileRowChangeEventReader;
+import org.hibernate.search.genericjpa.db.events.cdc.RowChangeEvent;
+import org.hibernate.search.genericjpa.test.db.entities.Place;
+import org.hibernate.search.genericjpa.test.db.entities.PlaceSorcererUpdates;
+import org.hibernate.search.genericjpa.test.db.entities.Sorcerer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class CDCUpdateSourceTest {
+
+	@Test
+	public void test() throws IOException, InterruptedException {
+		EventModelParser parser = new EventModelParser();
+		List<EventModelInfo> infos = parser.parse( new HashSet<>( Arrays.asList( PlaceSorcererUpdates.class ) ) );
+
+		File file = File.createTempFile( "cdc", ".log" );
+		file.deleteOnExit();
+		try (Writer writer = new FileWriter( file )) {
+			writer.write( "# some comment\n" );
+			writer.write( "INSERT Place_Sorcerer id:int=1 sorc_id:int=2\n" );
+			writer.write( "UPDATE SomeOtherTable id:int=5\n" );
+			writer.write( "DELETE `place_sorcerer` id:int=3 sorc_id:int=4\n" );
+		}
+
+		List<UpdateInfo> received = Collections.synchronizedList( new ArrayList<>() );
+		CountDownLatch latch = new CountDownLatch( 4 );
+		CDCUpdateSource updateSource = new CDCUpdateSource( infos, new FileRowChangeEventReader( file ), 10, TimeUnit.MILLISECONDS, 2 );
+		updateSource.setUpdateConsumers( Arrays.asList( (updateInfos) -> {
+			for ( UpdateInfo updateInfo : updateInfos ) {
+				received.add( updateInfo );
+				latch.countDown();
+			}
+		} ) );
+		updateSource.start();
+		try {
+			assertTrue( "didn't receive all updates in time", latch.await( 10, TimeUnit.SECONDS ) );
+		}
+		finally {
+			updateSource.stop();
+		}
+
+		assertEquals( 4, received.size() );
+		assertTrue( received.contains( new UpdateInfo( Place.class, 1, EventType.INSERT ) ) );
+		assertTrue( received.contains( new UpdateInfo( Sorcerer.class, 2, EventType.INSERT ) ) );
+		assertTrue( received.contains( new UpdateInfo( Place.class, 3, EventType.DELETE ) ) );
+		assertTrue( received.contains( new UpdateInfo( Sorcerer.class, 4, EventType.DELETE ) ) );
+	}
+
+	@Test
+	public void testSharded() throws IOException, InterruptedException {
+		EventModelParser parser = new EventModelParser();
+		List<EventModelInfo> infos = parser.parse( new HashSet<>( Arrays.asList( PlaceUpdatesShard0.class, PlaceUpdatesShard1.class ) ) );
+		assertEquals( 2, infos.size() );
+
+		File file = File.createTempFile( "cdc", ".log" );
+		file.deleteOnExit();
+		CDCUpdateSource updateSource = new CDCUpdateSource( infos, new FileRowChangeEventReader( file ), 10, TimeUnit.MILLISECONDS, 2 );
+		List<UpdateInfo> updateInfos = new ArrayList<>();
+		updateSource.toUpdateInfos( new RowChangeEvent( "Place", EventType.UPDATE, Collections.singletonMap( "id", 1 ) ), updateInfos );
+		assertEquals( Arrays.asList( new UpdateInfo( Place.class, 1, EventType.UPDATE ) ), updateInfos );
+	}
+
+	@Updates(originalTableName = "Place", tableName = "PlaceUpdates0", shardCount = 2, shard = 0)
+	private static class PlaceUpdatesShard0 {
+
+		@Event(column = "eventType")
+		private Integer eventType;
+
+		@IdFor(entityClass = Place.class, columns = "placeId", columnsInOriginal = "id")
+		private Integer placeId;
+
+	}
+
+	@Updates(originalTableName = "Place", tableName = "PlaceUpdates1", shardCount = 2, shard = 1)
+	private static class PlaceUpdatesShard1 {
+
+		@Event(column = "eventType")
+		private Integer eventType;
+
+		@IdFor(entityClass = Place.class, columns = "placeId", columnsInOriginal = "id")
+		private Integer placeId;
+
+	}
+
+}
@@ -165,6 +165,17 @@ public class EventModelParserTest {
 
 			}
 		}
+
+		{
+			EventModelParser parser = new EventModelParser();
+			try {
+				parser.parse( new HashSet<>( Arrays.asList( ShardedMultipleIds.class ) ) );
+				fail( "Exception expected" );
+			}
+			catch (IllegalArgumentException e) {
+
+			}
+		}
 	}
 
 	@Updates(originalTableName = "orig", tableName = "tbl")
@@ -230,6 +241,20 @@ public class EventModelParserTest {
 
 	}
 
+	@Updates(originalTableName = "orig", tableName = "tbl", shardCount = 2, shard = 0)
+	private static class ShardedMultipleIds {
+
+		@Event(column = "eventType")
+		private Integer eventType;
+
+		@IdFor(entityClass = Place.class, columns = "tblId1", columnsInOriginal = "origId1")
+		private Integer id1;
+
+		@IdFor(entityClass = Sorcerer.class, columns = "tblId2", columnsInOriginal = "origId2")
+		private Integer id2;
+
+	}
+
 	@Updates(originalTableName = "orig", tableName = "tbl")
 	private static class ForgotIds {
 
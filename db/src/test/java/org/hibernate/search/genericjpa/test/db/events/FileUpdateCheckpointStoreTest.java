@@ -0,0 +1,48 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.test.db.events;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.hibernate.search.genericjpa.db.events.FileUpdateCheckpointStore;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class FileUpdateCheckpointStoreTest {
+
+	@Test
+	public void test() throws IOException {
+		File file = File.createTempFile( "checkpoint", ".journal" );
+		file.deleteOnExit();
+		assertTrue( file.delete() );
+
+		FileUpdateCheckpointStore store = new FileUpdateCheckpointStore( file );
+		assertEquals( 0, store.load( "PlaceUpdates" ).size() );
+		store.add( "PlaceUpdates", Arrays.asList( 1L, 2L ) );
+		store.add( "PlaceUpdates", Arrays.asList( 3L ) );
+		store.add( "SorcererUpdates", Arrays.asList( 4L ) );
+
+		// simulate a restart
+		store = new FileUpdateCheckpointStore( file );
+		assertEquals( new HashSet<>( Arrays.asList( 1L, 2L, 3L ) ), store.load( "PlaceUpdates" ) );
+		assertEquals( new HashSet<>( Arrays.asList( 4L ) ), store.load( "SorcererUpdates" ) );
+
+		store.clear( "PlaceUpdates" );
+		store = new FileUpdateCheckpointStore( file );
+		assertEquals( 0, store.load( "PlaceUpdates" ).size() );
+		assertEquals( new HashSet<>( Arrays.asList( 4L ) ), store.load( "SorcererUpdates" ) );
+	}
+
+}
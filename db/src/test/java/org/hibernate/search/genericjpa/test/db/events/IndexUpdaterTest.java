@@ -74,6 +74,11 @@ public class IndexUpdaterTest {
 				throw new AssertionFailure( "not to be used in this test!" );
 			}
 
+			@Override
+			public Map<Object, Object[]> getBatchProperties(Class<?> entityClass, List<Object> ids, List<String> properties) {
+				throw new AssertionFailure( "not to be used in this test!" );
+			}
+
 			@Override
 			public Object get(Class<?> entityClass, Object id) {
 				return IndexUpdaterTest.this.obj( entityClass, false );
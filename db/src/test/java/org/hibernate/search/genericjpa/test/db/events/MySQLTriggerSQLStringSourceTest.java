@@ -6,6 +6,9 @@
  */
 package org.hibernate.search.genericjpa.test.db.events;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.util.Arrays;
 import java.util.HashSet;
 
@@ -35,4 +38,17 @@ public class MySQLTriggerSQLStringSourceTest {
 		}
 	}
 
+	@Test
+	public void testSharded() {
+		EventModelParser parser = new EventModelParser();
+		EventModelInfo info = parser.parse( new HashSet<>( Arrays.asList( PlaceSorcererUpdates.class ) ) ).get( 0 );
+		EventModelInfo sharded = new EventModelInfo( info.getUpdateClass(), info.getTableName(), info.getOriginalTableName(), info.getEventTypeAccessor(),
+				info.getEventTypeColumn(), info.getIdInfos(), 4, 3 );
+		MySQLTriggerSQLStringSource triggerSource = new MySQLTriggerSQLStringSource();
+		String creation = triggerSource.getTriggerCreationCode( sharded, EventType.DELETE )[0];
+		assertTrue( creation, creation.contains( "Place_Sorcerer_updates_hsearch_DELETE_3" ) );
+		assertTrue( creation, creation.contains( "IF MOD(OLD.id, 4) = 3 THEN" ) );
+		assertEquals( 2, triggerSource.getTriggerDropCode( sharded, EventType.DELETE ).length );
+	}
+
 }
@@ -0,0 +1,41 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.test.db.events;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.hibernate.search.genericjpa.db.events.EventModelInfo;
+import org.hibernate.search.genericjpa.db.events.EventModelParser;
+import org.hibernate.search.genericjpa.db.events.MySQLTriggerSQLStringSource;
+import org.hibernate.search.genericjpa.db.events.TriggerChecksums;
+import org.hibernate.search.genericjpa.test.db.entities.PlaceSorcererUpdates;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * @author Martin Braun
+ */
+public class TriggerChecksumsTest {
+
+	@Test
+	public void test() {
+		EventModelParser parser = new EventModelParser();
+		EventModelInfo info = parser.parse( new HashSet<>( Arrays.asList( PlaceSorcererUpdates.class ) ) ).get( 0 );
+
+		String checksum = TriggerChecksums.compute( new MySQLTriggerSQLStringSource(), info );
+		assertEquals( 64, checksum.length() );
+		assertEquals( "the checksum has to be stable", checksum, TriggerChecksums.compute( new MySQLTriggerSQLStringSource(), info ) );
+
+		MySQLTriggerSQLStringSource otherSource = new MySQLTriggerSQLStringSource( MySQLTriggerSQLStringSource.DEFAULT_UNIQUE_ID_TABLE_NAME,
+				"other_unique_id_procedure" );
+		assertNotEquals( "changed trigger code has to change the checksum", checksum, TriggerChecksums.compute( otherSource, info ) );
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.test.db.events.stat;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.hibernate.search.genericjpa.db.events.EventType;
+import org.hibernate.search.genericjpa.db.events.stat.UpdateStatistics;
+import org.hibernate.search.genericjpa.test.db.entities.Place;
+import org.hibernate.search.genericjpa.test.db.entities.PlaceSorcererUpdates;
+import org.junit.Test;
+
+/**
+ * @author Martin Braun
+ */
+public class UpdateStatisticsTest {
+
+	@Test
+	public void test() throws Exception {
+		UpdateStatistics statistics = new UpdateStatistics();
+		statistics.eventsPolled( PlaceSorcererUpdates.class, 3 );
+		statistics.eventsPolled( PlaceSorcererUpdates.class, 2 );
+		statistics.batchFetched( 5, 2_000_000 );
+		statistics.batchConsumed( 5, 4_000_000 );
+		statistics.batchRemoved( 5, 6_000_000 );
+		statistics.backlog( 10, 1000 );
+		statistics.entityLoaded( Place.class, 1_000_000 );
+		statistics.workPerformed( Place.class, EventType.INSERT );
+		statistics.workPerformed( Place.class, EventType.DELETE );
+
+		assertEquals( 5, statistics.getEventsPolled() );
+		assertEquals( Long.valueOf( 5 ), statistics.getEventsPolledPerClass().get( PlaceSorcererUpdates.class.getName() ) );
+		assertEquals( 1, statistics.getBatchCount() );
+		assertEquals( 2D, statistics.getAverageFetchMillis(), 0.0001D );
+		assertEquals( 4D, statistics.getAverageConsumeMillis(), 0.0001D );
+		assertEquals( 6D, statistics.getAverageRemoveMillis(), 0.0001D );
+		assertEquals( 10, statistics.getBacklog() );
+		assertEquals( 1000, statistics.getOldestPendingEventAgeMillis() );
+		assertEquals( 1D, statistics.getAverageEntityLoadMillis(), 0.0001D );
+		assertEquals( 2, statistics.getIndexWorkCount() );
+		assertEquals( 1, statistics.getIndexDeleteCount() );
+
+		String name = "org.hibernate.search.genericjpa:type=UpdateStatistics,name=test";
+		statistics.register( name );
+		try {
+			assertEquals( 5L, ManagementFactory.getPlatformMBeanServer().getAttribute( new ObjectName( name ), "EventsPolled" ) );
+		}
+		finally {
+			statistics.unregister();
+		}
+
+		statistics.reset();
+		assertEquals( 0, statistics.getEventsPolled() );
+		assertEquals( 0, statistics.getIndexWorkCount() );
+	}
+
+}
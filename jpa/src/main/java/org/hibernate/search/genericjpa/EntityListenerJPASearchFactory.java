@@ -0,0 +1,55 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.search.genericjpa.db.events.UpdateSource;
+import org.hibernate.search.genericjpa.db.events.jpa.EntityListenerUpdateSource;
+
+/**
+ * Base class for SearchFactories that keep the index up to date with the help of JPA entity listeners (see
+ * {@link EntityListenerUpdateSource}) instead of database triggers. Use this only if all writes to the database go
+ * through this application. No Updates-Tables are needed, so {@link #getUpdateClasses()} and
+ * {@link #getConnectionForSetup(EntityManager)} are not used.
+ *
+ * @author Martin Braun
+ */
+public abstract class EntityListenerJPASearchFactory extends JPASearchFactory {
+
+	private EntityListenerUpdateSource entityListenerUpdateSource;
+
+	@Override
+	protected UpdateSource getUpdateSource() {
+		this.entityListenerUpdateSource = new EntityListenerUpdateSource( this.getEmf(), this.getIndexRelevantEntities(), this.isUseJTATransaction(),
+				this.getExecutorServiceForUpdater() );
+		return this.entityListenerUpdateSource;
+	}
+
+	/**
+	 * @return the source the RESOURCE_LOCAL transactions of the FullTextEntityManagers of this factory have to be
+	 * reported to (null before the factory was initialized)
+	 */
+	public EntityListenerUpdateSource getEntityListenerUpdateSource() {
+		return this.entityListenerUpdateSource;
+	}
+
+	@Override
+	protected List<Class<?>> getUpdateClasses() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	protected Connection getConnectionForSetup(EntityManager em) {
+		return null;
+	}
+
+}
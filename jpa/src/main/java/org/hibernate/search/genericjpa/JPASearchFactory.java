@@ -8,30 +8,56 @@ package org.hibernate.search.genericjpa;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.search.Query;
 import org.hibernate.search.engine.integration.impl.ExtendedSearchIntegrator;
 import org.hibernate.search.engine.metadata.impl.MetadataProvider;
+import org.hibernate.search.genericjpa.batchindexing.IncrementalReindexer;
+import org.hibernate.search.genericjpa.batchindexing.MassIndexer;
+import org.hibernate.search.genericjpa.batchindexing.MassIndexerImpl;
+import org.hibernate.search.genericjpa.batchindexing.ReindexCheckpointStore;
 import org.hibernate.search.genericjpa.db.events.IndexUpdater;
 import org.hibernate.search.genericjpa.db.events.UpdateConsumer;
+import org.hibernate.search.genericjpa.db.events.UpdateConsumer.UpdateInfo;
 import org.hibernate.search.genericjpa.db.events.UpdateSource;
+import org.hibernate.search.genericjpa.db.events.stat.UpdateStatistics;
+import org.hibernate.search.genericjpa.db.events.stat.UpdateStatisticsListener;
 import org.hibernate.search.genericjpa.entity.EntityManagerCloseable;
 import org.hibernate.search.genericjpa.entity.EntityManagerEntityProvider;
 import org.hibernate.search.genericjpa.entity.JPAReusableEntityProvider;
@@ -44,10 +70,15 @@ import org.hibernate.search.standalone.entity.EntityProvider;
 import org.hibernate.search.standalone.factory.SearchConfigurationImpl;
 import org.hibernate.search.standalone.factory.StandaloneSearchFactory;
 import org.hibernate.search.standalone.factory.StandaloneSearchFactoryImpl;
+import org.hibernate.search.standalone.factory.Transaction;
 import org.hibernate.search.standalone.metadata.MetadataRehasher;
 import org.hibernate.search.standalone.metadata.MetadataUtil;
 import org.hibernate.search.standalone.metadata.RehashedTypeMetadata;
+import org.hibernate.search.standalone.query.ExecutionTracker;
 import org.hibernate.search.standalone.query.HSearchQuery;
+import org.hibernate.search.standalone.query.QueryListener;
+import org.hibernate.search.standalone.query.QueryResultCache;
+import org.hibernate.search.standalone.query.QueryStatistics;
 import org.hibernate.search.standalone.transaction.TransactionContext;
 import org.hibernate.search.stat.Statistics;
 
@@ -58,9 +89,28 @@ import org.hibernate.search.stat.Statistics;
  */
 public abstract class JPASearchFactory implements StandaloneSearchFactory, UpdateConsumer {
 
+	private static final String INDEX_BASE = "hibernate.search.default.indexBase";
+
 	private final Logger LOGGER = Logger.getLogger( JPASearchFactory.class.getName() );
-	StandaloneSearchFactory searchFactory;
+	// replaced by reindexOnline
+	volatile StandaloneSearchFactoryImpl searchFactory;
 	private UpdateSource updateSource;
+	private SearchConfigurationImpl config;
+	private Map<Class<?>, RehashedTypeMetadata> rehashedTypeMetadataPerIndexRoot;
+	private Map<Class<?>, List<Class<?>>> containedInIndexOf;
+	private JPAReusableEntityProvider updaterEntityProvider;
+	private UpdateStatisticsListener statisticsListener;
+	private volatile IndexUpdater indexUpdater;
+	// the updates are applied with the read lock (the update source might do that from several threads), swapping the
+	// index needs the write lock
+	private final ReadWriteLock indexSwapLock = new ReentrantReadWriteLock();
+	// not null while reindexOnline is running, contains UpdateInfos and RecordedWrites in the order they were applied
+	private volatile Queue<Object> reindexBuffer;
+	// the properties before the index pointer was applied
+	private Properties configuredProperties;
+	private final UpdateStatistics updateStatistics = new UpdateStatistics();
+	private volatile Executor asyncSearchExecutor;
+	private volatile Executor asyncFetchExecutor;
 	Set<Class<?>> indexRelevantEntities;
 	Map<Class<?>, String> idProperties;
 
@@ -96,6 +146,29 @@ public abstract class JPASearchFactory implements StandaloneSearchFactory, Updat
 
 	protected abstract UpdateSource getUpdateSource();
 
+	/**
+	 * override this to get notified about the work of the updater (e.g. to alert on indexing lag). The statistics are
+	 * always available via {@link #getUpdateStatistics()} as well. Defaults to null
+	 */
+	protected UpdateStatisticsListener getUpdateStatisticsListener() {
+		return null;
+	}
+
+	/**
+	 * override this to expose the {@link UpdateStatistics} via JMX under the given ObjectName, e.g.
+	 * "org.hibernate.search.genericjpa:type=UpdateStatistics,name=myApp". Defaults to null (no JMX)
+	 */
+	protected String getUpdateStatisticsMBeanName() {
+		return null;
+	}
+
+	/**
+	 * override this to parse Dto-Classes at startup instead of at their first query. Defaults to an empty list
+	 */
+	protected List<Class<?>> getDtoClasses() {
+		return Collections.emptyList();
+	}
+
 	public final void init() {
 		if ( this.isUseJTATransaction() ) {
 			ScheduledExecutorService exec = this.getExecutorServiceForUpdater();
@@ -111,21 +184,20 @@ public abstract class JPASearchFactory implements StandaloneSearchFactory, Updat
 						+ "even though JTA transaction is to be used!" );
 			}
 		}
-		SearchConfigurationImpl config;
+		Properties props = new Properties();
 		if ( this.getConfigFile() != null && !this.getConfigFile().equals( "" ) ) {
 			LOGGER.info( "using config @" + this.getConfigFile() );
 			try (InputStream is = this.getClass().getResourceAsStream( this.getConfigFile() )) {
-				Properties props = new Properties();
 				props.load( is );
-				config = new SearchConfigurationImpl( props );
 			}
 			catch (IOException e) {
 				throw new RuntimeException( "IOException while loading property file.", e );
 			}
 		}
-		else {
-			config = new SearchConfigurationImpl();
-		}
+		this.configuredProperties = new Properties();
+		this.configuredProperties.putAll( props );
+		this.applyIndexPointer( props );
+		SearchConfigurationImpl config = new SearchConfigurationImpl( props );
 
 		MetadataProvider metadataProvider = MetadataUtil.getMetadataProvider( config );
 		MetadataRehasher rehasher = new MetadataRehasher();
@@ -140,31 +212,278 @@ public abstract class JPASearchFactory implements StandaloneSearchFactory, Updat
 
 		this.indexRelevantEntities = Collections.unmodifiableSet( MetadataUtil.calculateIndexRelevantEntities( rehashedTypeMetadatas ) );
 		this.idProperties = MetadataUtil.calculateIdProperties( rehashedTypeMetadatas );
+		this.config = config;
+		this.rehashedTypeMetadataPerIndexRoot = rehashedTypeMetadataPerIndexRoot;
+		this.containedInIndexOf = MetadataUtil.calculateInIndexOf( rehashedTypeMetadatas );
+
+		SearchIntegrator impl = this.buildSearchIntegrator( config );
+		this.searchFactory = new StandaloneSearchFactoryImpl( impl.unwrap( ExtendedSearchIntegrator.class ) );
+		this.searchFactory.registerDtoClasses( this.getDtoClasses() );
+
+		this.updateSource = this.getUpdateSource();
+		if ( this.updateSource != null ) {
+			this.updaterEntityProvider = new JPAReusableEntityProvider( this.getEmf(), this.idProperties, this.isUseJTATransaction() );
+			IndexUpdater indexUpdater = new IndexUpdater( rehashedTypeMetadataPerIndexRoot, this.containedInIndexOf, this.updaterEntityProvider,
+					impl.unwrap( ExtendedSearchIntegrator.class ) );
+			UpdateStatisticsListener statisticsListener = this.getUpdateStatisticsListener();
+			if ( statisticsListener != null ) {
+				statisticsListener = UpdateStatisticsListener.of( this.updateStatistics, statisticsListener );
+			}
+			else {
+				statisticsListener = this.updateStatistics;
+			}
+			if ( this.getUpdateStatisticsMBeanName() != null ) {
+				this.updateStatistics.register( this.getUpdateStatisticsMBeanName() );
+			}
+			this.statisticsListener = statisticsListener;
+			indexUpdater.setStatisticsListener( statisticsListener );
+			this.indexUpdater = indexUpdater;
+			this.updateSource.setStatisticsListener( statisticsListener );
+			this.updateSource.setUpdateConsumers( Arrays.<UpdateConsumer> asList( this::applyUpdates, this ) );
+			this.updateSource.start();
+		}
+	}
 
+	private SearchIntegrator buildSearchIntegrator(SearchConfigurationImpl config) {
 		SearchIntegratorBuilder builder = new SearchIntegratorBuilder();
 		// we have to build an integrator here (but we don't need it afterwards)
 		builder.configuration( config ).buildSearchIntegrator();
 		this.indexRelevantEntities.forEach( (clazz) -> {
 			builder.addClass( clazz );
 		} );
-		SearchIntegrator impl = builder.buildSearchIntegrator();
-		this.searchFactory = new StandaloneSearchFactoryImpl( impl.unwrap( ExtendedSearchIntegrator.class ) );
+		return builder.buildSearchIntegrator();
+	}
 
-		this.updateSource = this.getUpdateSource();
-		if ( this.updateSource != null ) {
-			Map<Class<?>, List<Class<?>>> containedInIndexOf = MetadataUtil.calculateInIndexOf( rehashedTypeMetadatas );
+	private void applyUpdates(List<UpdateInfo> updateInfos) {
+		Lock lock = this.indexSwapLock.readLock();
+		lock.lock();
+		try {
+			this.indexUpdater.updateEvent( updateInfos );
+			Queue<Object> reindexBuffer = this.reindexBuffer;
+			if ( reindexBuffer != null ) {
+				reindexBuffer.addAll( updateInfos );
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
 
-			JPAReusableEntityProvider entityProvider = new JPAReusableEntityProvider( this.getEmf(), this.idProperties, this.isUseJTATransaction() );
-			IndexUpdater indexUpdater = new IndexUpdater( rehashedTypeMetadataPerIndexRoot, containedInIndexOf, entityProvider,
-					impl.unwrap( ExtendedSearchIntegrator.class ) );
-			this.updateSource.setUpdateConsumers( Arrays.asList( indexUpdater, this ) );
-			this.updateSource.start();
+	/**
+	 * the properties used for the index that {@link #reindexOnline(Consumer)} builds next to the live one. Defaults to
+	 * the current properties with "hibernate.search.default.indexBase" suffixed with "_reindexed_" and the current
+	 * time (the ram directory provider doesn't need a separate location). Override this to switch between two fixed
+	 * locations instead. The properties that differ from the configured ones are remembered in the file returned by
+	 * {@link #getIndexPointerFile(Properties)}, so the next start uses the new index as well
+	 */
+	protected Properties getReindexProperties(Properties properties) {
+		Properties ret = new Properties();
+		ret.putAll( properties );
+		String indexBase = properties.getProperty( INDEX_BASE );
+		if ( indexBase != null ) {
+			ret.setProperty( INDEX_BASE, indexBase.replaceFirst( "_reindexed_\\d+$", "" ) + "_reindexed_" + System.currentTimeMillis() );
+		}
+		return ret;
+	}
+
+	/**
+	 * the file in which {@link #reindexOnline(Consumer)} remembers the properties of the index it switched to. These
+	 * override the configured properties on every start until the file is deleted. Defaults to the configured
+	 * "hibernate.search.default.indexBase" suffixed with ".current", null (nothing is remembered) if there is none
+	 *
+	 * @param properties the configured properties
+	 */
+	protected Path getIndexPointerFile(Properties properties) {
+		String indexBase = properties.getProperty( INDEX_BASE );
+		return indexBase != null ? Paths.get( indexBase + ".current" ) : null;
+	}
+
+	private void applyIndexPointer(Properties properties) {
+		Path pointerFile = this.getIndexPointerFile( this.configuredProperties );
+		if ( pointerFile == null || !Files.exists( pointerFile ) ) {
+			return;
+		}
+		Properties pointer = new Properties();
+		try (InputStream is = Files.newInputStream( pointerFile )) {
+			pointer.load( is );
+		}
+		catch (IOException e) {
+			throw new RuntimeException( "couldn't read the index pointer " + pointerFile, e );
+		}
+		LOGGER.info( "using the index of the last online reindex from " + pointerFile + ": " + pointer );
+		properties.putAll( pointer );
+	}
+
+	private void writeIndexPointer(Properties indexProperties) throws IOException {
+		Path pointerFile = this.getIndexPointerFile( this.configuredProperties );
+		if ( pointerFile == null ) {
+			return;
+		}
+		Properties pointer = new Properties();
+		for ( String key : indexProperties.stringPropertyNames() ) {
+			String value = indexProperties.getProperty( key );
+			if ( !value.equals( this.configuredProperties.getProperty( key ) ) ) {
+				pointer.setProperty( key, value );
+			}
+		}
+		Path tmp = pointerFile.resolveSibling( pointerFile.getFileName() + ".tmp" );
+		try (FileChannel channel = FileChannel.open( tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING )) {
+			OutputStream os = Channels.newOutputStream( channel );
+			pointer.store( os, "the index reindexOnline switched to, delete this file to use the configured one again" );
+			os.flush();
+			channel.force( true );
+		}
+		Files.move( tmp, pointerFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+	}
+
+	/**
+	 * rebuilds the whole index without downtime: the entities are mass indexed into a new index (see
+	 * {@link #getReindexProperties(Properties)}) while searches keep using the live index. The updates that the
+	 * {@link UpdateSource} delivers and the manual writes (index, update, delete, purge) that happen in the meantime are
+	 * applied to the live index as usual and recorded. After the mass indexing, these are replayed on the new index
+	 * (manual writes once their transaction has committed), then the new index is remembered for the next start (see
+	 * {@link #getIndexPointerFile(Properties)}) and replaces the live one. Only the last part of the replay blocks the
+	 * updates and manual writes (but never the searches). <br>
+	 * <br>
+	 * The old index is closed as soon as the queries that run on it (including open streams, compiled queries and
+	 * asynchronous executions) and the transactions that wrote to it during the reindex have finished. This method
+	 * doesn't wait for that. Streams that are never closed keep the old index open. Queries created before the switch
+	 * but executed after the old index was closed fail.
+	 *
+	 * @param massIndexerConfiguration can be used to configure the threads and batch sizes of the MassIndexer
+	 */
+	public synchronized void reindexOnline(Consumer<MassIndexer> massIndexerConfiguration) throws InterruptedException {
+		LOGGER.info( "starting online reindex" );
+		Properties shadowProperties = this.getReindexProperties( this.config.getProperties() );
+		SearchConfigurationImpl shadowConfig = new SearchConfigurationImpl( shadowProperties );
+		ExtendedSearchIntegrator shadowIntegrator = this.buildSearchIntegrator( shadowConfig ).unwrap( ExtendedSearchIntegrator.class );
+		// queries, listeners and caches are shared with the live factory
+		StandaloneSearchFactoryImpl shadowFactory = new StandaloneSearchFactoryImpl( shadowIntegrator,
+				this.searchFactory.unwrap( StandaloneSearchFactoryImpl.class ) );
+		boolean swapped = false;
+		try {
+			// record the updates before any entity is loaded so that no change gets lost
+			this.reindexBuffer = new ConcurrentLinkedQueue<>();
+
+			MassIndexer massIndexer = new MassIndexerImpl( shadowFactory, this.getEmf(), this.idProperties, this.getIndexRootTypes() ).purgeAllOnStart(
+					true );
+			massIndexerConfiguration.accept( massIndexer );
+			massIndexer.startAndWait();
+
+			IndexUpdater shadowUpdater = null;
+			if ( this.updateSource != null ) {
+				shadowUpdater = new IndexUpdater( this.rehashedTypeMetadataPerIndexRoot, this.containedInIndexOf, this.updaterEntityProvider,
+						shadowIntegrator );
+				shadowUpdater.setStatisticsListener( this.statisticsListener );
+			}
+			// most of the recorded changes are replayed while the updates and writes keep going
+			this.replay( shadowUpdater, shadowFactory );
+
+			StandaloneSearchFactoryImpl old;
+			Lock lock = this.indexSwapLock.writeLock();
+			lock.lock();
+			try {
+				this.replay( shadowUpdater, shadowFactory );
+				// the new index is complete now, if we crash after this the next start uses it
+				this.writeIndexPointer( shadowProperties );
+				if ( shadowUpdater != null ) {
+					this.indexUpdater = shadowUpdater;
+				}
+				this.reindexBuffer = null;
+				old = this.searchFactory;
+				this.searchFactory = shadowFactory;
+				this.config = shadowConfig;
+				swapped = true;
+			}
+			catch (IOException e) {
+				throw new RuntimeException( "couldn't remember the new index, staying with the old one", e );
+			}
+			finally {
+				lock.unlock();
+			}
+			LOGGER.info( "online reindex finished, switched to the new index" );
+			// the queries and the transactions that wrote to the old index during the reindex are still running
+			LOGGER.info( "closing the old index once it isn't used anymore (" + old.getExecutionTracker().getRunning() + " executions running)" );
+			old.closeWhenIdle();
+		}
+		finally {
+			this.reindexBuffer = null;
+			if ( !swapped ) {
+				try {
+					shadowFactory.close();
+				}
+				catch (IOException e) {
+					LOGGER.log( Level.WARNING, "couldn't close the index of the failed reindex", e );
+				}
+			}
+		}
+	}
+
+	public void reindexOnline() throws InterruptedException {
+		this.reindexOnline( (massIndexer) -> {
+		} );
+	}
+
+	private void replay(IndexUpdater shadowUpdater, StandaloneSearchFactory shadowFactory) {
+		List<UpdateInfo> updateInfos = new ArrayList<>();
+		Object recorded;
+		while ( ( recorded = this.reindexBuffer.poll() ) != null ) {
+			if ( recorded instanceof UpdateInfo ) {
+				updateInfos.add( (UpdateInfo) recorded );
+			}
+			else {
+				// keep the order between the updates and the writes
+				if ( updateInfos.size() > 0 ) {
+					shadowUpdater.updateEvent( updateInfos );
+					updateInfos = new ArrayList<>();
+				}
+				( (RecordedWrite) recorded ).replayOn( shadowFactory );
+			}
+		}
+		if ( updateInfos.size() > 0 ) {
+			shadowUpdater.updateEvent( updateInfos );
+		}
+	}
+
+	/**
+	 * applies a manual write to the live index. During {@link #reindexOnline(Consumer)} the write is recorded as well
+	 * and keeps the live index open until its transaction has finished
+	 *
+	 * @param entities the entities to write, may be null
+	 */
+	private void write(Iterable<?> entities, IndexWrite write, TransactionContext tc) {
+		Lock lock = this.indexSwapLock.readLock();
+		lock.lock();
+		try {
+			Queue<Object> reindexBuffer = this.reindexBuffer;
+			if ( reindexBuffer == null ) {
+				write.apply( this.searchFactory, entities, tc );
+			}
+			else {
+				// the write is replayed later, so the entities are copied in case the Iterable changes or can only be
+				// iterated once
+				List<Object> copy = null;
+				if ( entities != null ) {
+					copy = new ArrayList<>();
+					for ( Object entity : entities ) {
+						copy.add( entity );
+					}
+				}
+				write.apply( this.searchFactory, copy, tc );
+				RecordedWrite recordedWrite = new RecordedWrite( write, copy, this.searchFactory.getExecutionTracker() );
+				tc.registerSynchronization( recordedWrite );
+				reindexBuffer.add( recordedWrite );
+			}
+		}
+		finally {
+			lock.unlock();
 		}
 	}
 
 	public void shutdown() {
 		try {
 			this.updateSource.stop();
+			this.updateStatistics.unregister();
 			this.close();
 		}
 		catch (IOException e) {
@@ -172,13 +491,77 @@ public abstract class JPASearchFactory implements StandaloneSearchFactory, Updat
 		}
 	}
 
+	/**
+	 * sets the executors used by {@link org.hibernate.search.jpa.FullTextQuery#getResultListAsync()}. The Lucene search
+	 * runs on the searchExecutor, the entities are loaded on the fetchExecutor with an EntityManager of their own (the
+	 * EntityManager of the query is not thread-safe). The threads of these need access to the database and for JTA a
+	 * transaction, so for JTA these have to be {@link javax.enterprise.concurrent.ManagedExecutorService}s. There are no
+	 * defaults
+	 */
+	public void setAsyncExecutors(Executor searchExecutor, Executor fetchExecutor) {
+		this.asyncSearchExecutor = searchExecutor;
+		this.asyncFetchExecutor = fetchExecutor;
+	}
+
+	/**
+	 * @return the executor set with {@link #setAsyncExecutors(Executor, Executor)} or null
+	 */
+	public Executor getAsyncSearchExecutor() {
+		return this.asyncSearchExecutor;
+	}
+
+	/**
+	 * @return the executor set with {@link #setAsyncExecutors(Executor, Executor)} or null
+	 */
+	public Executor getAsyncFetchExecutor() {
+		return this.asyncFetchExecutor;
+	}
+
+	/**
+	 * @return an EntityProvider with an EntityManager of its own, closing it closes the EntityManager
+	 */
+	public EntityProvider createEntityProvider() {
+		return new EntityManagerEntityProvider( this.getEmf().createEntityManager(), this.idProperties );
+	}
+
+	/**
+	 * creates a {@link MassIndexer} that rebuilds the index of the given types from the database
+	 *
+	 * @param rootTypes the index root types to rebuild, all of them if none are passed
+	 */
+	public MassIndexer createMassIndexer(Class<?>... rootTypes) {
+		List<Class<?>> types = rootTypes.length > 0 ? Arrays.asList( rootTypes ) : this.getIndexRootTypes();
+		return new MassIndexerImpl( this, this.getEmf(), this.idProperties, types );
+	}
+
+	/**
+	 * creates an {@link IncrementalReindexer} that reindexes the entities of the given index root type that were
+	 * modified since its last run
+	 *
+	 * @param timestampProperty a property that is set to the time of the last modification on every change
+	 */
+	public IncrementalReindexer createIncrementalReindexer(Class<?> entityClass, String timestampProperty, ReindexCheckpointStore checkpointStore) {
+		String idProperty = this.idProperties.get( entityClass );
+		if ( idProperty == null ) {
+			throw new IllegalArgumentException( entityClass + " is no index root type" );
+		}
+		return new IncrementalReindexer( this, this.getEmf(), entityClass, idProperty, timestampProperty, checkpointStore );
+	}
+
+	/**
+	 * @return the statistics of the updater (events polled, batch durations, backlog, entity loads, index work)
+	 */
+	public UpdateStatistics getUpdateStatistics() {
+		return this.updateStatistics;
+	}
+
 	public Set<Class<?>> getIndexRelevantEntities() {
 		return this.indexRelevantEntities;
 	}
 
 	@Override
 	public void index(Iterable<?> entities, TransactionContext tc) {
-		this.searchFactory.index( entities, tc );
+		this.write( entities, (searchFactory, toWrite, transaction) -> searchFactory.index( toWrite, transaction ), tc );
 	}
 
 	@Override
@@ -188,7 +571,7 @@ public abstract class JPASearchFactory implements StandaloneSearchFactory, Updat
 
 	@Override
 	public void update(Iterable<?> entities, TransactionContext tc) {
-		this.searchFactory.update( entities, tc );
+		this.write( entities, (searchFactory, toWrite, transaction) -> searchFactory.update( toWrite, transaction ), tc );
 	}
 
 	@Override
@@ -217,13 +600,38 @@ public abstract class JPASearchFactory implements StandaloneSearchFactory, Updat
 	}
 
 	@Override
-	public void delete(Iterable<?> entities, TransactionContext tc) {
-		this.searchFactory.delete( entities, tc );
+	public QueryStatistics getQueryStatistics() {
+		return this.searchFactory.getQueryStatistics();
+	}
+
+	@Override
+	public void registerDtoClasses(Collection<Class<?>> dtoClasses) {
+		this.searchFactory.registerDtoClasses( dtoClasses );
 	}
 
 	@Override
-	public void purgeAll(Class<?> entityClass) {
-		this.searchFactory.purgeAll( entityClass );
+	public void enableQueryResultCache(int maxEntries) {
+		this.searchFactory.enableQueryResultCache( maxEntries );
+	}
+
+	@Override
+	public QueryResultCache getQueryResultCache() {
+		return this.searchFactory.getQueryResultCache();
+	}
+
+	@Override
+	public void addQueryListener(QueryListener queryListener) {
+		this.searchFactory.addQueryListener( queryListener );
+	}
+
+	@Override
+	public void removeQueryListener(QueryListener queryListener) {
+		this.searchFactory.removeQueryListener( queryListener );
+	}
+
+	@Override
+	public void delete(Iterable<?> entities, TransactionContext tc) {
+		this.write( entities, (searchFactory, toWrite, transaction) -> searchFactory.delete( toWrite, transaction ), tc );
 	}
 
 	@Override
@@ -238,7 +646,7 @@ public abstract class JPASearchFactory implements StandaloneSearchFactory, Updat
 
 	@Override
 	public void purgeAll(Class<?> entityClass, TransactionContext tc) {
-		this.searchFactory.purgeAll( entityClass, tc );
+		this.write( null, (searchFactory, toWrite, transaction) -> searchFactory.purgeAll( entityClass, transaction ), tc );
 	}
 
 	@Override
@@ -248,21 +656,28 @@ public abstract class JPASearchFactory implements StandaloneSearchFactory, Updat
 
 	@Override
 	public void purge(Class<?> entityClass, Serializable id, TransactionContext tc) {
-		this.searchFactory.purge( entityClass, id, tc );
+		this.write( null, (searchFactory, toWrite, transaction) -> searchFactory.purge( entityClass, id, transaction ), tc );
 	}
 
 	@Override
 	public void purge(Iterable<?> entities, TransactionContext tc) {
-		this.searchFactory.purge( entities, tc );
+		this.write( entities, (searchFactory, toWrite, transaction) -> searchFactory.purge( toWrite, transaction ), tc );
 	}
 
 	@Override
 	public void purge(Class<?> entityClass, Query query, TransactionContext tc) {
-		this.searchFactory.purge( entityClass, query, tc );
+		this.write( null, (searchFactory, toWrite, transaction) -> searchFactory.purge( entityClass, query, transaction ), tc );
 	}
 
 	public void flushToIndexes(TransactionContext tc) {
-		searchFactory.flushToIndexes( tc );
+		Lock lock = this.indexSwapLock.readLock();
+		lock.lock();
+		try {
+			this.searchFactory.flushToIndexes( tc );
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	public IndexedTypeDescriptor getIndexedTypeDescriptor(Class<?> entityType) {
@@ -277,4 +692,72 @@ public abstract class JPASearchFactory implements StandaloneSearchFactory, Updat
 		return searchFactory.unwrap( cls );
 	}
 
+	@FunctionalInterface
+	private interface IndexWrite {
+
+		void apply(StandaloneSearchFactory searchFactory, Iterable<?> entities, TransactionContext tc);
+
+	}
+
+	/**
+	 * a manual write that was applied to the live index during {@link JPASearchFactory#reindexOnline(Consumer)}. It is
+	 * replayed on the new index once the transaction it belongs to has committed. Until then, the live index is kept
+	 * open
+	 */
+	private static final class RecordedWrite implements Synchronization {
+
+		private static final Logger LOGGER = Logger.getLogger( RecordedWrite.class.getName() );
+
+		private final IndexWrite write;
+		private final Iterable<?> entities;
+		private final ExecutionTracker executionTracker;
+		private int status = Status.STATUS_ACTIVE;
+		// set if the replay reached this before the transaction was finished
+		private StandaloneSearchFactory target;
+
+		RecordedWrite(IndexWrite write, Iterable<?> entities, ExecutionTracker executionTracker) {
+			this.write = write;
+			this.entities = entities;
+			this.executionTracker = executionTracker;
+			executionTracker.begin();
+		}
+
+		@Override
+		public void beforeCompletion() {
+
+		}
+
+		@Override
+		public synchronized void afterCompletion(int status) {
+			try {
+				if ( status == Status.STATUS_COMMITTED && this.target != null ) {
+					this.apply( this.target );
+				}
+			}
+			catch (RuntimeException e) {
+				LOGGER.log( Level.WARNING, "couldn't replay a write on the new index", e );
+			}
+			finally {
+				this.status = status;
+				this.executionTracker.end();
+			}
+		}
+
+		synchronized void replayOn(StandaloneSearchFactory target) {
+			if ( this.status == Status.STATUS_COMMITTED ) {
+				this.apply( target );
+			}
+			else if ( this.status == Status.STATUS_ACTIVE ) {
+				this.target = target;
+			}
+		}
+
+		private void apply(StandaloneSearchFactory target) {
+			Transaction tc = new Transaction();
+			this.write.apply( target, this.entities, tc );
+			tc.commit();
+		}
+
+	}
+
 }
@@ -8,90 +8,100 @@ package org.hibernate.search.genericjpa;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Logger;
 
 import javax.persistence.EntityManager;
 
 import org.hibernate.search.genericjpa.db.events.EventModelInfo;
 import org.hibernate.search.genericjpa.db.events.EventModelParser;
-import org.hibernate.search.genericjpa.db.events.EventType;
 import org.hibernate.search.genericjpa.db.events.TriggerSQLStringSource;
+import org.hibernate.search.genericjpa.db.events.TriggerSetup;
+import org.hibernate.search.genericjpa.db.events.UpdateCheckpointStore;
 import org.hibernate.search.genericjpa.db.events.UpdateSource;
 import org.hibernate.search.genericjpa.db.events.jpa.JPAUpdateSource;
+import org.hibernate.search.genericjpa.db.events.jpa.JPAUpdateSourceLease;
 
 /**
  * @author Martin Braun
  */
 public abstract class SQLJPASearchFactory extends JPASearchFactory {
 
-	private final Logger LOGGER = Logger.getLogger( SQLJPASearchFactory.class.getName() );
-
 	protected abstract TriggerSQLStringSource getTriggerSQLStringSource();
 
 	@Override
 	protected UpdateSource getUpdateSource() {
 		EventModelParser eventModelParser = new EventModelParser();
 		List<EventModelInfo> eventModelInfos = eventModelParser.parse( new ArrayList<>( this.getUpdateClasses() ) );
-		this.setupTriggers( eventModelInfos );
+		JPAUpdateSourceLease lease = this.getUpdateSourceLease();
+		this.setupTriggers( eventModelInfos, lease );
+
+		JPAUpdateSource updateSource = new JPAUpdateSource( eventModelInfos, this.getEmf(), this.isUseJTATransaction(), this.getDelay(),
+				this.getDelayUnit(), this.getBatchSizeForUpdates(), this.getExecutorServiceForUpdater() );
+		updateSource.setMaxTimeOut( this.getMaxDelay() );
+		updateSource.setCheckpointStore( this.getUpdateCheckpointStore() );
+		updateSource.setLease( lease );
+		int pipelineDepth = this.getUpdatePipelineDepth();
+		if ( pipelineDepth > 0 ) {
+			if ( this.isUseJTATransaction() ) {
+				// we need a managed executor here
+				updateSource.setPipelineDepth( pipelineDepth, this.getExecutorServiceForUpdater() );
+			}
+			else {
+				updateSource.setPipelineDepth( pipelineDepth );
+			}
+		}
+		return updateSource;
+	}
+
+	/**
+	 * the lease that coordinates multiple nodes sharing the same database so that only one of them consumes the
+	 * updates at a time (see {@link JPAUpdateSourceLease}). The lease table is created together with the triggers.
+	 * Defaults to null, which means that this node always consumes the updates
+	 */
+	protected JPAUpdateSourceLease getUpdateSourceLease() {
+		return null;
+	}
 
-		return new JPAUpdateSource( eventModelInfos, this.getEmf(), this.isUseJTATransaction(), this.getDelay(), this.getDelayUnit(),
-				this.getBatchSizeForUpdates(), this.getExecutorServiceForUpdater() );
+	/**
+	 * the store used for checkpointed consumption of the updates (see
+	 * {@link JPAUpdateSource#setCheckpointStore(UpdateCheckpointStore)}). Defaults to null which means that update
+	 * entries are removed right after they have been applied to the index
+	 */
+	protected UpdateCheckpointStore getUpdateCheckpointStore() {
+		return null;
 	}
 
-	private void setupTriggers(List<EventModelInfo> eventModelInfos) {
+	/**
+	 * the number of batches of updates that are fetched from the database while the index is still working on the
+	 * previous ones (see {@link JPAUpdateSource#setPipelineDepth(int)}). Defaults to 0 (no pipelining). For JTA
+	 * transactions the executor from {@link #getExecutorServiceForUpdater()} is used for this, so it needs at least 2
+	 * threads
+	 */
+	protected int getUpdatePipelineDepth() {
+		return 0;
+	}
+
+	/**
+	 * the maximum delay (in {@link #getDelayUnit()}) the polling for updates backs off to if no updates are found.
+	 * Defaults to {@link #getDelay()}, i.e. no backing off
+	 */
+	protected long getMaxDelay() {
+		return this.getDelay();
+	}
+
+	/**
+	 * sets up the triggers for all the given EventModelInfos (see {@link TriggerSetup}) and the lease table
+	 */
+	private void setupTriggers(List<EventModelInfo> eventModelInfos, JPAUpdateSourceLease lease) {
 		EntityManager em = null;
 		try {
 			em = this.getEmf().createEntityManager();
 			Connection connection = this.getConnectionForSetup( em );
-
-			TriggerSQLStringSource triggerSource = this.getTriggerSQLStringSource();
 			try {
-				for ( String str : triggerSource.getSetupCode() ) {
-					Statement statement = connection.createStatement();
-					LOGGER.info( str );
-					statement.addBatch( connection.nativeSQL( str ) );
-					statement.executeBatch();
-					connection.commit();
-				}
-				for ( EventModelInfo info : eventModelInfos ) {
-					for ( String unSetupCode : triggerSource.getSpecificUnSetupCode( info ) ) {
-						Statement statement = connection.createStatement();
-						LOGGER.info( unSetupCode );
-						statement.addBatch( connection.nativeSQL( unSetupCode ) );
-						statement.executeBatch();
-						connection.commit();
-					}
-					for ( String setupCode : triggerSource.getSpecificSetupCode( info ) ) {
-						Statement statement = connection.createStatement();
-						LOGGER.info( setupCode );
-						statement.addBatch( connection.nativeSQL( setupCode ) );
-						statement.executeBatch();
-						connection.commit();
-					}
-					for ( int eventType : EventType.values() ) {
-						String[] triggerDropStrings = triggerSource.getTriggerDropCode( info, eventType );
-						for ( String triggerCreationString : triggerDropStrings ) {
-							Statement statement = connection.createStatement();
-							LOGGER.info( triggerCreationString );
-							statement.addBatch( connection.nativeSQL( triggerCreationString ) );
-							statement.executeBatch();
-							connection.commit();
-						}
-					}
-					for ( int eventType : EventType.values() ) {
-						String[] triggerCreationStrings = triggerSource.getTriggerCreationCode( info, eventType );
-						for ( String triggerCreationString : triggerCreationStrings ) {
-							Statement statement = connection.createStatement();
-							LOGGER.info( triggerCreationString );
-							statement.addBatch( connection.nativeSQL( triggerCreationString ) );
-							statement.executeBatch();
-							connection.commit();
-						}
-					}
-
+				TriggerSetup.setup( connection, this.getTriggerSQLStringSource(), eventModelInfos );
+				if ( lease != null ) {
+					lease.setup( connection );
 				}
 			}
 			catch (SQLException e) {
@@ -0,0 +1,78 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.batchindexing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link ReindexCheckpointStore} that keeps all checkpoints in one file (ideally next to the index). Every save
+ * rewrites the file atomically and forces it to disk.
+ *
+ * @author Martin Braun
+ */
+public class FileReindexCheckpointStore implements ReindexCheckpointStore {
+
+	private final File file;
+	private final HashMap<String, Checkpoint> checkpoints;
+
+	@SuppressWarnings("unchecked")
+	public FileReindexCheckpointStore(File file) {
+		this.file = file;
+		if ( file.exists() ) {
+			try (InputStream is = Files.newInputStream( file.toPath() ); ObjectInputStream ois = new ObjectInputStream( is )) {
+				this.checkpoints = (HashMap<String, Checkpoint>) ois.readObject();
+			}
+			catch (IOException | ClassNotFoundException e) {
+				throw new RuntimeException( "couldn't read the checkpoint file " + file, e );
+			}
+		}
+		else {
+			this.checkpoints = new HashMap<>();
+		}
+	}
+
+	@Override
+	public synchronized Checkpoint load(String key) {
+		return this.checkpoints.get( key );
+	}
+
+	@Override
+	public synchronized void save(String key, Checkpoint checkpoint) {
+		Map<String, Checkpoint> before = new HashMap<>( this.checkpoints );
+		this.checkpoints.put( key, checkpoint );
+		File tmp = new File( this.file.getPath() + ".tmp" );
+		try {
+			try (FileChannel channel = FileChannel.open( tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING )) {
+				OutputStream os = Channels.newOutputStream( channel );
+				ObjectOutputStream oos = new ObjectOutputStream( os );
+				oos.writeObject( this.checkpoints );
+				oos.flush();
+				channel.force( true );
+			}
+			Files.move( tmp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+		}
+		catch (IOException e) {
+			this.checkpoints.clear();
+			this.checkpoints.putAll( before );
+			throw new RuntimeException( "couldn't write the checkpoint file " + this.file, e );
+		}
+	}
+
+}
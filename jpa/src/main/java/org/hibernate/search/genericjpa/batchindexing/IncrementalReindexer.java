@@ -0,0 +1,149 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.batchindexing;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+
+import org.hibernate.search.genericjpa.batchindexing.ReindexCheckpointStore.Checkpoint;
+import org.hibernate.search.standalone.factory.StandaloneSearchFactory;
+import org.hibernate.search.standalone.factory.Transaction;
+
+/**
+ * reindexes only the rows of one entity type that were modified since the last run. The rows are read ordered by
+ * (timestamp, id) with keyset paging and the position of the last indexed row is saved in a
+ * {@link ReindexCheckpointStore} after every batch, so an interrupted run continues where it stopped and the work
+ * only depends on the number of changed rows. <br>
+ * <br>
+ * The timestamp property has to be updated on every change (e.g. a last modified column). Rows that are committed
+ * with a timestamp older than the checkpoint (long running transactions, unsynchronized clocks) are missed, start a
+ * bit earlier with {@link #since(Serializable)} if this is a concern. Deleted rows are not detected.
+ *
+ * @author Martin Braun
+ */
+public class IncrementalReindexer {
+
+	private static final Logger LOGGER = Logger.getLogger( IncrementalReindexer.class.getName() );
+
+	private static final String FIRST_QUERY_FORMAT = "SELECT obj, obj.%2$s FROM %1$s obj ORDER BY obj.%2$s, obj.%3$s";
+	private static final String SINCE_QUERY_FORMAT = "SELECT obj, obj.%2$s FROM %1$s obj WHERE obj.%2$s >= :since ORDER BY obj.%2$s, obj.%3$s";
+	private static final String NEXT_QUERY_FORMAT = "SELECT obj, obj.%2$s FROM %1$s obj WHERE obj.%2$s > :ts OR (obj.%2$s = :ts AND obj.%3$s > :id) "
+			+ "ORDER BY obj.%2$s, obj.%3$s";
+
+	private final StandaloneSearchFactory searchFactory;
+	private final EntityManagerFactory emf;
+	private final Class<?> entityClass;
+	private final String idProperty;
+	private final String timestampProperty;
+	private final ReindexCheckpointStore checkpointStore;
+
+	private int batchSize = 100;
+	private Serializable since;
+
+	public IncrementalReindexer(StandaloneSearchFactory searchFactory, EntityManagerFactory emf, Class<?> entityClass, String idProperty,
+			String timestampProperty, ReindexCheckpointStore checkpointStore) {
+		this.searchFactory = searchFactory;
+		this.emf = emf;
+		this.entityClass = entityClass;
+		this.idProperty = idProperty;
+		this.timestampProperty = timestampProperty;
+		this.checkpointStore = checkpointStore;
+	}
+
+	public IncrementalReindexer batchSize(int batchSize) {
+		if ( batchSize <= 0 ) {
+			throw new IllegalArgumentException( "batchSize must be greater than 0" );
+		}
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * starts the next run at the given timestamp instead of the saved checkpoint (without a checkpoint all rows are
+	 * reindexed). Once the run has saved its first checkpoint, the later runs continue from the checkpoint again
+	 */
+	public IncrementalReindexer since(Serializable timestamp) {
+		this.since = timestamp;
+		return this;
+	}
+
+	/**
+	 * reindexes all rows modified since the checkpoint and moves the checkpoint to the last of them
+	 *
+	 * @return the number of reindexed rows
+	 */
+	public long run() {
+		String key = this.entityClass.getName();
+		Checkpoint checkpoint = this.checkpointStore.load( key );
+		Serializable since = this.since;
+		if ( since != null ) {
+			// the explicit start wins (e.g. to catch late commits)
+			checkpoint = null;
+		}
+		String entityName = this.emf.getMetamodel().entity( this.entityClass ).getName();
+		LOGGER.info( "incrementally reindexing " + key + ( checkpoint != null ? " after " + checkpoint : "" )
+				+ ( since != null ? " since " + since : "" ) );
+		long count = 0;
+		boolean first = true;
+		while ( true ) {
+			EntityManager em = this.emf.createEntityManager();
+			try {
+				Query query;
+				if ( checkpoint != null ) {
+					query = em.createQuery( String.format( NEXT_QUERY_FORMAT, entityName, this.timestampProperty, this.idProperty ) );
+					query.setParameter( "ts", checkpoint.getTimestamp() );
+					query.setParameter( "id", checkpoint.getId() );
+				}
+				else if ( first && since != null ) {
+					query = em.createQuery( String.format( SINCE_QUERY_FORMAT, entityName, this.timestampProperty, this.idProperty ) );
+					query.setParameter( "since", since );
+				}
+				else {
+					query = em.createQuery( String.format( FIRST_QUERY_FORMAT, entityName, this.timestampProperty, this.idProperty ) );
+				}
+				first = false;
+				query.setMaxResults( this.batchSize );
+				List<?> rows = query.getResultList();
+				if ( rows.isEmpty() ) {
+					break;
+				}
+				List<Object> entities = new ArrayList<>( rows.size() );
+				for ( Object row : rows ) {
+					entities.add( ( (Object[]) row )[0] );
+				}
+				Transaction tx = new Transaction();
+				// the documents exist already, so they have to be updated instead of added
+				this.searchFactory.update( entities, tx );
+				this.searchFactory.flushToIndexes( tx );
+				tx.commit();
+				count += entities.size();
+
+				Object[] last = (Object[]) rows.get( rows.size() - 1 );
+				checkpoint = new Checkpoint( (Serializable) last[1], (Serializable) this.emf.getPersistenceUnitUtil().getIdentifier( last[0] ) );
+				this.checkpointStore.save( key, checkpoint );
+				// from now on an interrupted run resumes at the checkpoint
+				this.since = null;
+				if ( rows.size() < this.batchSize ) {
+					break;
+				}
+			}
+			finally {
+				em.close();
+			}
+		}
+		this.since = null;
+		LOGGER.info( "incrementally reindexed " + count + " entities of " + key );
+		return count;
+	}
+
+}
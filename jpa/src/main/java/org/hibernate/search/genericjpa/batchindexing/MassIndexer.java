@@ -0,0 +1,71 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.batchindexing;
+
+import java.util.concurrent.Future;
+
+/**
+ * rebuilds the index of some entity types from the database. The ids of each type are split into ranges which are
+ * loaded in parallel with keyset paging (no OFFSET). The loaded batches are passed through a bounded queue to the
+ * indexing threads that build the documents and flush them to the index batch by batch, so the memory used only
+ * depends on the batch size, the queue size and the number of threads. <br>
+ * <br>
+ * Obtain an instance via {@link org.hibernate.search.genericjpa.JPASearchFactory#createMassIndexer(Class...)}.
+ * Instances can only be started once.
+ *
+ * @author Martin Braun
+ */
+public interface MassIndexer {
+
+	/**
+	 * number of entities loaded (and indexed) per batch. Defaults to 100
+	 */
+	MassIndexer batchSizeToLoadObjects(int batchSize);
+
+	/**
+	 * number of threads (and id ranges per entity type) used to load the entities. Defaults to 2
+	 */
+	MassIndexer threadsToLoadObjects(int threads);
+
+	/**
+	 * number of threads used to build the documents and write them to the index. Defaults to 2
+	 */
+	MassIndexer threadsForIndexing(int threads);
+
+	/**
+	 * number of loaded batches that may wait for an indexing thread. Defaults to 10
+	 */
+	MassIndexer queueSize(int queueSize);
+
+	/**
+	 * whether to remove all documents of the entity types from the index before they are loaded. If this is disabled,
+	 * the entities are updated in the index instead of added (which is slower). Defaults to true
+	 */
+	MassIndexer purgeAllOnStart(boolean purgeAllOnStart);
+
+	/**
+	 * whether to optimize the index after all entities are indexed. Defaults to true
+	 */
+	MassIndexer optimizeOnFinish(boolean optimizeOnFinish);
+
+	MassIndexer progressMonitor(MassIndexerProgressMonitor progressMonitor);
+
+	/**
+	 * starts the indexing in the background
+	 *
+	 * @return a future that completes once everything is indexed. Cancelling it stops the indexing
+	 */
+	Future<?> start();
+
+	/**
+	 * starts the indexing and waits for it to finish
+	 *
+	 * @throws RuntimeException if the indexing failed
+	 */
+	void startAndWait() throws InterruptedException;
+
+}
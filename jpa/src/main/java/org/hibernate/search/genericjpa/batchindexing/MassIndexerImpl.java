@@ -0,0 +1,401 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.batchindexing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+
+import org.hibernate.search.standalone.factory.StandaloneSearchFactory;
+import org.hibernate.search.standalone.factory.Transaction;
+
+/**
+ * default implementation of {@link MassIndexer}. Every loaded batch gets its own EntityManager which is handed over
+ * to the indexing thread together with the entities (so lazy associations can still be loaded while building the
+ * documents) and closed after the batch has been flushed to the index. <br>
+ * <br>
+ * The threads are created by this class, so in a JTA environment the entities are loaded without a transaction.
+ *
+ * @author Martin Braun
+ */
+public class MassIndexerImpl implements MassIndexer {
+
+	private static final Logger LOGGER = Logger.getLogger( MassIndexerImpl.class.getName() );
+
+	private static final String COUNT_QUERY_FORMAT = "SELECT MIN(obj.%s), MAX(obj.%s), COUNT(obj) FROM %s obj";
+	private static final String FIRST_PAGE_QUERY_FORMAT = "SELECT obj FROM %s obj WHERE obj.%s >= :lower AND obj.%s <= :upper "
+			+ "ORDER BY obj.%s";
+	private static final String NEXT_PAGE_QUERY_FORMAT = "SELECT obj FROM %s obj WHERE obj.%s > :last AND obj.%s <= :upper "
+			+ "ORDER BY obj.%s";
+
+	private static final Batch POISON = new Batch( null, Collections.emptyList() );
+
+	private final StandaloneSearchFactory searchFactory;
+	private final EntityManagerFactory emf;
+	private final Map<Class<?>, String> idProperties;
+	private final List<Class<?>> rootTypes;
+
+	private int batchSize = 100;
+	private int threadsToLoadObjects = 2;
+	private int threadsForIndexing = 2;
+	private int queueSize = 10;
+	private boolean purgeAllOnStart = true;
+	private boolean optimizeOnFinish = true;
+	private MassIndexerProgressMonitor progressMonitor = new MassIndexerProgressMonitor() {
+	};
+
+	private Future<?> future;
+
+	public MassIndexerImpl(StandaloneSearchFactory searchFactory, EntityManagerFactory emf, Map<Class<?>, String> idProperties,
+			List<Class<?>> rootTypes) {
+		this.searchFactory = searchFactory;
+		this.emf = emf;
+		this.idProperties = idProperties;
+		this.rootTypes = new ArrayList<>( rootTypes );
+	}
+
+	@Override
+	public MassIndexer batchSizeToLoadObjects(int batchSize) {
+		if ( batchSize <= 0 ) {
+			throw new IllegalArgumentException( "batchSize must be greater than 0" );
+		}
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	@Override
+	public MassIndexer threadsToLoadObjects(int threads) {
+		if ( threads <= 0 ) {
+			throw new IllegalArgumentException( "threads must be greater than 0" );
+		}
+		this.threadsToLoadObjects = threads;
+		return this;
+	}
+
+	@Override
+	public MassIndexer threadsForIndexing(int threads) {
+		if ( threads <= 0 ) {
+			throw new IllegalArgumentException( "threads must be greater than 0" );
+		}
+		this.threadsForIndexing = threads;
+		return this;
+	}
+
+	@Override
+	public MassIndexer queueSize(int queueSize) {
+		if ( queueSize <= 0 ) {
+			throw new IllegalArgumentException( "queueSize must be greater than 0" );
+		}
+		this.queueSize = queueSize;
+		return this;
+	}
+
+	@Override
+	public MassIndexer purgeAllOnStart(boolean purgeAllOnStart) {
+		this.purgeAllOnStart = purgeAllOnStart;
+		return this;
+	}
+
+	@Override
+	public MassIndexer optimizeOnFinish(boolean optimizeOnFinish) {
+		this.optimizeOnFinish = optimizeOnFinish;
+		return this;
+	}
+
+	@Override
+	public MassIndexer progressMonitor(MassIndexerProgressMonitor progressMonitor) {
+		this.progressMonitor = progressMonitor;
+		return this;
+	}
+
+	@Override
+	public synchronized Future<?> start() {
+		if ( this.future != null ) {
+			throw new IllegalStateException( "this MassIndexer has already been started" );
+		}
+		ExecutorService coordinator = Executors.newSingleThreadExecutor();
+		try {
+			this.future = coordinator.submit( () -> {
+				this.run();
+				return null;
+			} );
+			return this.future;
+		}
+		finally {
+			coordinator.shutdown();
+		}
+	}
+
+	@Override
+	public void startAndWait() throws InterruptedException {
+		Future<?> future = this.start();
+		try {
+			future.get();
+		}
+		catch (InterruptedException e) {
+			future.cancel( true );
+			throw e;
+		}
+		catch (ExecutionException e) {
+			if ( e.getCause() instanceof RuntimeException ) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException( "mass indexing failed", e.getCause() );
+		}
+	}
+
+	private void run() throws InterruptedException {
+		LOGGER.info( "mass indexing " + this.rootTypes );
+		if ( this.purgeAllOnStart ) {
+			for ( Class<?> rootType : this.rootTypes ) {
+				this.searchFactory.purgeAll( rootType );
+			}
+		}
+		BlockingQueue<Batch> queue = new ArrayBlockingQueue<>( this.queueSize );
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		ExecutorService loaders = Executors.newFixedThreadPool( this.threadsToLoadObjects );
+		ExecutorService indexers = Executors.newFixedThreadPool( this.threadsForIndexing );
+		try {
+			List<Future<?>> indexerFutures = new ArrayList<>();
+			for ( int i = 0; i < this.threadsForIndexing; ++i ) {
+				indexerFutures.add( indexers.submit( () -> {
+					this.index( queue, failure );
+					return null;
+				} ) );
+			}
+			List<Future<?>> loaderFutures = new ArrayList<>();
+			for ( Class<?> rootType : this.rootTypes ) {
+				for ( Object[] range : this.partition( rootType ) ) {
+					loaderFutures.add( loaders.submit( () -> {
+						this.load( rootType, range[0], range[1], queue, failure );
+						return null;
+					} ) );
+				}
+			}
+			awaitAll( loaderFutures, failure );
+			for ( int i = 0; i < this.threadsForIndexing; ++i ) {
+				while ( !queue.offer( POISON, 100, TimeUnit.MILLISECONDS ) ) {
+					if ( failure.get() != null ) {
+						// the indexers might all be dead already
+						break;
+					}
+				}
+			}
+			awaitAll( indexerFutures, failure );
+		}
+		finally {
+			loaders.shutdownNow();
+			indexers.shutdownNow();
+			// release the EntityManagers of batches that were not indexed because of an error
+			List<Batch> left = new ArrayList<>();
+			queue.drainTo( left );
+			for ( Batch batch : left ) {
+				if ( batch != POISON ) {
+					batch.em.close();
+				}
+			}
+		}
+		if ( this.optimizeOnFinish ) {
+			for ( Class<?> rootType : this.rootTypes ) {
+				this.searchFactory.optimize( rootType );
+			}
+		}
+		this.progressMonitor.indexingCompleted();
+		LOGGER.info( "finished mass indexing " + this.rootTypes );
+	}
+
+	private static void awaitAll(List<Future<?>> futures, AtomicReference<Throwable> failure) throws InterruptedException {
+		for ( Future<?> future : futures ) {
+			try {
+				future.get();
+			}
+			catch (ExecutionException e) {
+				// report the error that stopped the others instead of the CancellationExceptions
+				Throwable cause = failure.get() != null ? failure.get() : e.getCause();
+				if ( cause instanceof RuntimeException ) {
+					throw (RuntimeException) cause;
+				}
+				throw new RuntimeException( "mass indexing failed", cause );
+			}
+		}
+	}
+
+	/**
+	 * splits the ids of the given type into at most threadsToLoadObjects ranges of the same size. This only works
+	 * for integral ids, all other ids are loaded as one range
+	 *
+	 * @return [lower, upper] (both inclusive) for every range
+	 */
+	private List<Object[]> partition(Class<?> rootType) {
+		String idProperty = this.idProperty( rootType );
+		Object[] stats;
+		EntityManager em = this.emf.createEntityManager();
+		try {
+			stats = (Object[]) em.createQuery( String.format( COUNT_QUERY_FORMAT, idProperty, idProperty, rootType.getName() ) ).getSingleResult();
+		}
+		finally {
+			em.close();
+		}
+		long count = ( (Number) stats[2] ).longValue();
+		this.progressMonitor.addToTotalCount( count );
+		if ( count == 0 ) {
+			return Collections.emptyList();
+		}
+		Object min = stats[0];
+		Object max = stats[1];
+		if ( this.threadsToLoadObjects == 1 || !isIntegral( min ) ) {
+			return Collections.singletonList( new Object[] {min, max} );
+		}
+		long lower = ( (Number) min ).longValue();
+		long upper = ( (Number) max ).longValue();
+		// double to avoid overflows for huge id spaces, the ranges don't have to be exact
+		double span = (double) upper - lower + 1;
+		int parts = (int) Math.min( this.threadsToLoadObjects, Math.min( span, count ) );
+		List<Object[]> ranges = new ArrayList<>( parts );
+		long rangeStart = lower;
+		for ( int i = 0; i < parts; ++i ) {
+			long rangeEnd = i == parts - 1 ? upper : lower + (long) ( span * ( i + 1 ) / parts ) - 1;
+			ranges.add( new Object[] {toIdType( rangeStart, min ), toIdType( rangeEnd, min )} );
+			rangeStart = rangeEnd + 1;
+		}
+		return ranges;
+	}
+
+	private static boolean isIntegral(Object id) {
+		return id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte;
+	}
+
+	private static Object toIdType(long value, Object sample) {
+		if ( sample instanceof Integer ) {
+			return (int) value;
+		}
+		if ( sample instanceof Short ) {
+			return (short) value;
+		}
+		if ( sample instanceof Byte ) {
+			return (byte) value;
+		}
+		return value;
+	}
+
+	private void load(Class<?> rootType, Object lower, Object upper, BlockingQueue<Batch> queue, AtomicReference<Throwable> failure)
+			throws InterruptedException {
+		String idProperty = this.idProperty( rootType );
+		String entityName = rootType.getName();
+		Object last = null;
+		try {
+			while ( true ) {
+				EntityManager em = this.emf.createEntityManager();
+				List<?> entities;
+				try {
+					Query query;
+					// keyset paging, so the database doesn't have to skip all rows before the page
+					if ( last == null ) {
+						query = em.createQuery( String.format( FIRST_PAGE_QUERY_FORMAT, entityName, idProperty, idProperty, idProperty ) );
+						query.setParameter( "lower", lower );
+					}
+					else {
+						query = em.createQuery( String.format( NEXT_PAGE_QUERY_FORMAT, entityName, idProperty, idProperty, idProperty ) );
+						query.setParameter( "last", last );
+					}
+					query.setParameter( "upper", upper );
+					query.setMaxResults( this.batchSize );
+					entities = query.getResultList();
+				}
+				catch (RuntimeException e) {
+					em.close();
+					throw e;
+				}
+				if ( entities.isEmpty() ) {
+					em.close();
+					return;
+				}
+				last = this.emf.getPersistenceUnitUtil().getIdentifier( entities.get( entities.size() - 1 ) );
+				this.progressMonitor.entitiesLoaded( entities.size() );
+				Batch batch = new Batch( em, entities );
+				while ( !queue.offer( batch, 100, TimeUnit.MILLISECONDS ) ) {
+					if ( failure.get() != null ) {
+						em.close();
+						// not recorded as failure, this is only a consequence
+						throw new CancellationException( "stopped loading " + rootType + " because the indexing failed" );
+					}
+				}
+				if ( entities.size() < this.batchSize ) {
+					return;
+				}
+			}
+		}
+		catch (RuntimeException | Error e) {
+			failure.compareAndSet( null, e );
+			throw e;
+		}
+	}
+
+	private void index(BlockingQueue<Batch> queue, AtomicReference<Throwable> failure) throws InterruptedException {
+		while ( true ) {
+			Batch batch = queue.take();
+			if ( batch == POISON ) {
+				return;
+			}
+			try {
+				Transaction tx = new Transaction();
+				if ( this.purgeAllOnStart ) {
+					this.searchFactory.index( batch.entities, tx );
+				}
+				else {
+					this.searchFactory.update( batch.entities, tx );
+				}
+				this.searchFactory.flushToIndexes( tx );
+				tx.commit();
+				this.progressMonitor.documentsAdded( batch.entities.size() );
+			}
+			catch (RuntimeException | Error e) {
+				failure.compareAndSet( null, e );
+				throw e;
+			}
+			finally {
+				batch.em.close();
+			}
+		}
+	}
+
+	private String idProperty(Class<?> rootType) {
+		String idProperty = this.idProperties.get( rootType );
+		if ( idProperty == null ) {
+			throw new IllegalArgumentException( rootType + " is not an indexed entity" );
+		}
+		return idProperty;
+	}
+
+	private static final class Batch {
+
+		final EntityManager em;
+		final List<?> entities;
+
+		Batch(EntityManager em, List<?> entities) {
+			this.em = em;
+			this.entities = entities;
+		}
+
+	}
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.batchindexing;
+
+/**
+ * gets notified about the progress of a {@link MassIndexer}. The methods are called from the loading and indexing
+ * threads concurrently, so implementations have to be thread-safe.
+ *
+ * @author Martin Braun
+ */
+public interface MassIndexerProgressMonitor {
+
+	/**
+	 * called once per entity type with the number of entities to index
+	 */
+	default void addToTotalCount(long count) {
+
+	}
+
+	default void entitiesLoaded(int count) {
+
+	}
+
+	/**
+	 * called after a batch of documents has been flushed to the index
+	 */
+	default void documentsAdded(long count) {
+
+	}
+
+	default void indexingCompleted() {
+
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.batchindexing;
+
+import java.io.Serializable;
+
+/**
+ * durable storage for the position of an {@link IncrementalReindexer}. {@link #save(String, Checkpoint)} has to be
+ * durable once it returns.
+ *
+ * @author Martin Braun
+ */
+public interface ReindexCheckpointStore {
+
+	/**
+	 * @param key identifies the reindexer (the entity name)
+	 *
+	 * @return the last saved checkpoint or null if there is none
+	 */
+	Checkpoint load(String key);
+
+	void save(String key, Checkpoint checkpoint);
+
+	/**
+	 * the timestamp and id of the last row that has been reindexed
+	 */
+	final class Checkpoint implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Serializable timestamp;
+		private final Serializable id;
+
+		public Checkpoint(Serializable timestamp, Serializable id) {
+			this.timestamp = timestamp;
+			this.id = id;
+		}
+
+		public Serializable getTimestamp() {
+			return this.timestamp;
+		}
+
+		public Serializable getId() {
+			return this.id;
+		}
+
+		@Override
+		public String toString() {
+			return "Checkpoint [timestamp=" + this.timestamp + ", id=" + this.id + "]";
+		}
+
+	}
+
+}
@@ -0,0 +1,262 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events.jpa;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.hibernate.search.genericjpa.db.events.UpdateConsumer;
+import org.hibernate.search.genericjpa.db.events.UpdateConsumer.UpdateInfo;
+import org.hibernate.search.genericjpa.db.events.UpdateSource;
+
+/**
+ * a {@link UpdateSource} that is fed by JPA entity lifecycle events instead of polling the database. This only works if
+ * all writes to the database go through this application. <br>
+ * <br>
+ * The changes are collected per transaction and handed to the {@link UpdateConsumer}s after the transaction committed
+ * successfully (changes of rolled back transactions are discarded). {@link JPAEntityListener} has to be registered as
+ * entity listener for all index relevant entities (either with
+ * {@link javax.persistence.EntityListeners} or as default entity listener in the orm.xml). <br>
+ * <br>
+ * If JTA transactions are used, the changes are kept in a resource of the current transaction and the end of the
+ * transaction is detected via the TransactionSynchronizationRegistry. RESOURCE_LOCAL transactions have no standard
+ * hook for this, so they have to be controlled via the {@link javax.persistence.EntityTransaction} of a
+ * {@link org.hibernate.search.jpa.FullTextEntityManager} of the SearchFactory this source belongs to (or via
+ * {@link #beginTransaction()} and {@link #afterTransactionCompletion(boolean)} manually). The changes are buffered
+ * for the current thread from the begin of such a transaction until its end. Changes made in transactions that are
+ * not controlled this way are ignored. <br>
+ * <br>
+ * The entity listeners are instantiated by the JPA provider and therefore have to find the started sources in a
+ * static registry. Every source only keeps changes of its own index relevant entities that are managed by its own
+ * EntityManagerFactory.
+ *
+ * @author Martin Braun
+ */
+public class EntityListenerUpdateSource implements UpdateSource {
+
+	private static final Logger LOGGER = Logger.getLogger( EntityListenerUpdateSource.class.getName() );
+
+	private static final List<EntityListenerUpdateSource> ACTIVE_SOURCES = new CopyOnWriteArrayList<>();
+
+	private final EntityManagerFactory emf;
+	private final Set<Class<?>> indexRelevantEntities;
+	private final boolean useJTATransaction;
+	private final ExecutorService exec;
+	private boolean createdOwnExecutorService = false;
+
+	private final ThreadLocal<Set<UpdateInfo>> resourceLocalBuffer = new ThreadLocal<>();
+	private final Object transactionResourceKey = new Object();
+
+	private List<UpdateConsumer> updateConsumers;
+	private volatile boolean started = false;
+
+	public EntityListenerUpdateSource(EntityManagerFactory emf, Set<Class<?>> indexRelevantEntities, boolean useJTATransaction) {
+		this( emf, indexRelevantEntities, useJTATransaction, Executors.newSingleThreadExecutor() );
+		this.createdOwnExecutorService = true;
+	}
+
+	/**
+	 * @param exec the executor the updates are handed to the consumers with (after the transaction completed). for JTA
+	 * transactions this has to be a {@link javax.enterprise.concurrent.ManagedExecutorService}
+	 */
+	public EntityListenerUpdateSource(EntityManagerFactory emf, Set<Class<?>> indexRelevantEntities, boolean useJTATransaction, ExecutorService exec) {
+		if ( exec == null ) {
+			throw new IllegalArgumentException( "the ExecutorService may not be null!" );
+		}
+		this.emf = emf;
+		this.indexRelevantEntities = indexRelevantEntities;
+		this.useJTATransaction = useJTATransaction;
+		this.exec = exec;
+	}
+
+	@Override
+	public void setUpdateConsumers(List<UpdateConsumer> updateConsumers) {
+		this.updateConsumers = updateConsumers;
+	}
+
+	@Override
+	public void start() {
+		if ( this.updateConsumers == null ) {
+			throw new IllegalStateException( "updateConsumers was null!" );
+		}
+		this.started = true;
+		ACTIVE_SOURCES.add( this );
+	}
+
+	@Override
+	public void stop() {
+		this.started = false;
+		ACTIVE_SOURCES.remove( this );
+		if ( this.createdOwnExecutorService ) {
+			this.exec.shutdown();
+		}
+	}
+
+	/**
+	 * called by {@link JPAEntityListener} for every lifecycle event
+	 */
+	static void entityChanged(Object entity, int eventType) {
+		for ( EntityListenerUpdateSource source : ACTIVE_SOURCES ) {
+			source.register( entity, eventType );
+		}
+	}
+
+	public boolean isStarted() {
+		return this.started;
+	}
+
+	/**
+	 * starts collecting the changes of a RESOURCE_LOCAL transaction on this thread. Changes left over from a
+	 * transaction that wasn't finished via {@link #afterTransactionCompletion(boolean)} are discarded. This is called by
+	 * the EntityTransactions of {@link org.hibernate.search.jpa.FullTextEntityManager}s automatically.
+	 */
+	public void beginTransaction() {
+		if ( this.useJTATransaction ) {
+			return;
+		}
+		this.resourceLocalBuffer.set( new LinkedHashSet<>() );
+	}
+
+	/**
+	 * flushes (or discards) the changes of the current RESOURCE_LOCAL transaction of this thread. This is called by
+	 * the EntityTransactions of {@link org.hibernate.search.jpa.FullTextEntityManager}s automatically.
+	 *
+	 * @param committed whether the transaction was committed successfully
+	 */
+	public void afterTransactionCompletion(boolean committed) {
+		if ( this.useJTATransaction ) {
+			return;
+		}
+		Set<UpdateInfo> buffer = this.resourceLocalBuffer.get();
+		this.resourceLocalBuffer.remove();
+		if ( committed && buffer != null ) {
+			this.dispatch( buffer );
+		}
+	}
+
+	private void register(Object entity, int eventType) {
+		Class<?> entityClass = this.indexRelevantClass( entity.getClass() );
+		if ( entityClass == null || !this.isManaged( entityClass ) ) {
+			return;
+		}
+		Set<UpdateInfo> buffer = this.buffer();
+		if ( buffer == null ) {
+			LOGGER.fine( entity + " was changed outside of a transaction controlled by a FullTextEntityManager, ignoring the change" );
+			return;
+		}
+		Object id = this.emf.getPersistenceUnitUtil().getIdentifier( entity );
+		if ( id == null ) {
+			LOGGER.warning( "couldn't determine the id of " + entity + ", ignoring the change" );
+			return;
+		}
+		buffer.add( new UpdateInfo( entityClass, id, eventType ) );
+	}
+
+	private Class<?> indexRelevantClass(Class<?> clazz) {
+		// the class of the entity can be a subclass (or a proxy class)
+		while ( clazz != null ) {
+			if ( this.indexRelevantEntities.contains( clazz ) ) {
+				return clazz;
+			}
+			clazz = clazz.getSuperclass();
+		}
+		return null;
+	}
+
+	/**
+	 * @return whether the entity class belongs to the persistence unit of this source (other EntityManagerFactories
+	 * can have entities with the same classes)
+	 */
+	private boolean isManaged(Class<?> entityClass) {
+		try {
+			this.emf.getMetamodel().entity( entityClass );
+			return true;
+		}
+		catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return the buffer of the current transaction or null if there is none for RESOURCE_LOCAL transactions
+	 */
+	@SuppressWarnings("unchecked")
+	private Set<UpdateInfo> buffer() {
+		if ( this.useJTATransaction ) {
+			TransactionSynchronizationRegistry registry;
+			try {
+				registry = InitialContext.doLookup( "java:comp/TransactionSynchronizationRegistry" );
+			}
+			catch (NamingException e) {
+				throw new RuntimeException( "couldn't lookup the TransactionSynchronizationRegistry", e );
+			}
+			if ( registry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION ) {
+				throw new IllegalStateException( "entity was changed outside of a JTA transaction!" );
+			}
+			Set<UpdateInfo> buffer = (Set<UpdateInfo>) registry.getResource( this.transactionResourceKey );
+			if ( buffer == null ) {
+				Set<UpdateInfo> newBuffer = new LinkedHashSet<>();
+				registry.putResource( this.transactionResourceKey, newBuffer );
+				registry.registerInterposedSynchronization( new Synchronization() {
+
+					@Override
+					public void beforeCompletion() {
+						// no-op
+					}
+
+					@Override
+					public void afterCompletion(int status) {
+						if ( status == Status.STATUS_COMMITTED ) {
+							EntityListenerUpdateSource.this.dispatch( newBuffer );
+						}
+					}
+
+				} );
+				buffer = newBuffer;
+			}
+			return buffer;
+		}
+		else {
+			return this.resourceLocalBuffer.get();
+		}
+	}
+
+	private void dispatch(Set<UpdateInfo> buffer) {
+		if ( buffer.size() == 0 ) {
+			return;
+		}
+		List<UpdateInfo> updateInfos = new ArrayList<>( buffer );
+		this.exec.submit( () -> {
+			// the consumers are not required to be thread-safe
+			synchronized (this) {
+				try {
+					for ( UpdateConsumer consumer : this.updateConsumers ) {
+						consumer.updateEvent( updateInfos );
+					}
+				}
+				catch (Exception e) {
+					LOGGER.log( Level.SEVERE, "Error occured during Update processing!", e );
+				}
+			}
+		} );
+	}
+
+}
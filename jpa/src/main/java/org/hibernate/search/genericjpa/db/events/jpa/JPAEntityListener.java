@@ -0,0 +1,48 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events.jpa;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.hibernate.search.genericjpa.db.events.EventType;
+
+/**
+ * JPA entity listener that feeds all started {@link EntityListenerUpdateSource}s. Register this with
+ * {@link javax.persistence.EntityListeners} on your entities or as default entity listener in the orm.xml:
+ *
+ * <pre>
+ * &lt;persistence-unit-metadata&gt;
+ *   &lt;persistence-unit-defaults&gt;
+ *     &lt;entity-listeners&gt;
+ *       &lt;entity-listener class="org.hibernate.search.genericjpa.db.events.jpa.JPAEntityListener"/&gt;
+ *     &lt;/entity-listeners&gt;
+ *   &lt;/persistence-unit-defaults&gt;
+ * &lt;/persistence-unit-metadata&gt;
+ * </pre>
+ *
+ * @author Martin Braun
+ */
+public class JPAEntityListener {
+
+	@PostPersist
+	public void postPersist(Object entity) {
+		EntityListenerUpdateSource.entityChanged( entity, EventType.INSERT );
+	}
+
+	@PostUpdate
+	public void postUpdate(Object entity) {
+		EntityListenerUpdateSource.entityChanged( entity, EventType.UPDATE );
+	}
+
+	@PostRemove
+	public void postRemove(Object entity) {
+		EntityListenerUpdateSource.entityChanged( entity, EventType.DELETE );
+	}
+
+}
@@ -11,8 +11,17 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.logging.Level;
@@ -21,17 +30,18 @@ import java.util.logging.Logger;
 import javax.naming.InitialContext;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
-import javax.persistence.EntityTransaction;
 import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.transaction.UserTransaction;
 
 import org.hibernate.search.genericjpa.db.events.EventModelInfo;
+import org.hibernate.search.genericjpa.db.events.UpdateCheckpointStore;
 import org.hibernate.search.genericjpa.db.events.UpdateConsumer;
 import org.hibernate.search.genericjpa.db.events.UpdateSource;
 import org.hibernate.search.genericjpa.db.events.EventModelInfo.IdInfo;
 import org.hibernate.search.genericjpa.db.events.UpdateConsumer.UpdateInfo;
+import org.hibernate.search.genericjpa.db.events.stat.UpdateStatisticsListener;
 import org.hibernate.search.genericjpa.entity.EntityManagerCloseable;
 import org.hibernate.search.genericjpa.jpa.util.MultiQueryAccess;
 import org.hibernate.search.genericjpa.jpa.util.MultiQueryAccess.ObjectClassWrapper;
@@ -45,23 +55,44 @@ import org.hibernate.search.genericjpa.jpa.util.MultiQueryAccess.ObjectClassWrap
 public class JPAUpdateSource implements UpdateSource {
 
 	private static final Logger LOGGER = Logger.getLogger( JPAUpdateSource.class.getName() );
+	private static final int PRUNE_BATCH_SIZE = 500;
 
 	private final List<EventModelInfo> eventModelInfos;
 	private final EntityManagerFactory emf;
 	private final long timeOut;
 	private final TimeUnit timeUnit;
+	private volatile long maxTimeOut;
 	private final int batchSizeForUpdates;
 	private final int batchSizeForDatabaseQueries;
 
 	private final List<Class<?>> updateClasses;
 	private final Map<Class<?>, EventModelInfo> updateClassToEventModelInfo;
 	private final Map<Class<?>, Function<Object, Object>> idAccessorMap;
+	private final Map<Class<?>, Class<?>> idTypeMap;
 
 	private List<UpdateConsumer> updateConsumers;
 	private final ScheduledExecutorService exec;
 	private boolean createdOwnExecutorService = false;
 	private final boolean useJTATransaction;
 
+	private UpdateCheckpointStore checkpointStore;
+	private JPAUpdateSourceLease lease;
+	private int pipelineDepth = 0;
+	private ExecutorService pipelineExecutor;
+	private boolean createdOwnPipelineExecutor = false;
+	private final List<List<EventModelInfo>> shards;
+	private ExecutorService shardExecutor;
+	private boolean createdOwnShardExecutor = false;
+	private final Object consumerLock = new Object();
+
+	private boolean stopped = true;
+	private ScheduledFuture<?> scheduledPoll;
+	private volatile long currentDelay;
+	private volatile long backlog;
+	private long lastSuccessfulPollStart;
+	private volatile UpdateStatisticsListener statisticsListener = new UpdateStatisticsListener() {
+	};
+
 	/**
 	 * this doesn't do real batching for the databasequeries
 	 */
@@ -100,12 +131,32 @@ public class JPAUpdateSource implements UpdateSource {
 			throw new IllegalArgumentException( "timeout must be greater than 0" );
 		}
 		this.timeOut = timeOut;
+		this.maxTimeOut = timeOut;
 		this.timeUnit = timeUnit;
 		if ( batchSizeForUpdates <= 0 ) {
 			throw new IllegalArgumentException( "batchSize must be greater than 0" );
 		}
 		this.batchSizeForUpdates = batchSizeForUpdates;
 		this.batchSizeForDatabaseQueries = batchSizeForDatabaseQueries;
+		Map<Integer, List<EventModelInfo>> shardMap = new TreeMap<>();
+		for ( EventModelInfo info : eventModelInfos ) {
+			shardMap.computeIfAbsent( info.getShard(), (key) -> new ArrayList<>() ).add( info );
+		}
+		this.shards = new ArrayList<>( shardMap.values() );
+		// all the updates of an entity have to end up in the same shard, otherwise their order is lost
+		Map<Class<?>, Integer> shardCountPerEntity = new HashMap<>();
+		for ( EventModelInfo info : eventModelInfos ) {
+			for ( IdInfo idInfo : info.getIdInfos() ) {
+				Integer shardCount = shardCountPerEntity.putIfAbsent( idInfo.getEntityClass(), info.getShardCount() );
+				if ( shardCount != null && shardCount != info.getShardCount() ) {
+					throw new IllegalArgumentException( "all Updates-Tables of " + idInfo.getEntityClass()
+							+ " have to use the same shardCount, otherwise the order of its updates is lost" );
+				}
+			}
+		}
+		if ( this.shards.size() == 0 ) {
+			this.shards.add( new ArrayList<>() );
+		}
 		this.updateClasses = new ArrayList<>();
 		this.updateClassToEventModelInfo = new HashMap<>();
 		for ( EventModelInfo info : eventModelInfos ) {
@@ -113,10 +164,12 @@ public class JPAUpdateSource implements UpdateSource {
 			this.updateClassToEventModelInfo.put( info.getUpdateClass(), info );
 		}
 		this.idAccessorMap = new HashMap<>();
+		this.idTypeMap = new HashMap<>();
 		for ( EventModelInfo evi : eventModelInfos ) {
 			try {
 				Method idMethod = evi.getUpdateClass().getDeclaredMethod( "getId" );
 				idMethod.setAccessible( true );
+				this.idTypeMap.put( evi.getUpdateClass(), idMethod.getReturnType() );
 				idAccessorMap.put( evi.getUpdateClass(), (obj) -> {
 					try {
 						return idMethod.invoke( obj );
@@ -142,107 +195,500 @@ public class JPAUpdateSource implements UpdateSource {
 		this.updateConsumers = updateConsumers;
 	}
 
+	/**
+	 * sets the maximum delay (in the TimeUnit passed in the constructor) between two polls. If a poll doesn't find any
+	 * updates, the delay until the next poll is doubled until this maximum is reached. If a poll finds at least a full
+	 * batch of updates, the next poll is started immediately. Defaults to the timeOut passed in the constructor (no
+	 * backing off)
+	 */
+	public void setMaxTimeOut(long maxTimeOut) {
+		if ( maxTimeOut < this.timeOut ) {
+			throw new IllegalArgumentException( "maxTimeOut must be greater than or equal to timeOut" );
+		}
+		this.maxTimeOut = maxTimeOut;
+	}
+
+	/**
+	 * enables pipelining of the update processing: while the UpdateConsumers work on a batch of updates, the next
+	 * batches are already fetched from the database. At most <code>pipelineDepth</code> batches are queued before
+	 * fetching blocks. The consumers are called from a single thread (per shard) owned by this UpdateSource.
+	 *
+	 * @param pipelineDepth the maximum number of queued batches, 0 disables pipelining
+	 */
+	public void setPipelineDepth(int pipelineDepth) {
+		this.setPipelineDepth( pipelineDepth, pipelineDepth > 0 ? Executors.newCachedThreadPool() : null );
+		this.createdOwnPipelineExecutor = pipelineDepth > 0;
+	}
+
+	/**
+	 * see {@link #setPipelineDepth(int)}. The consumers are called from a task submitted to the given executor (one per
+	 * poll). This executor must not be the one passed in the constructor if that only has a single thread. For JTA
+	 * transactions this has to be a {@link javax.enterprise.concurrent.ManagedExecutorService}
+	 */
+	public void setPipelineDepth(int pipelineDepth, ExecutorService pipelineExecutor) {
+		if ( pipelineDepth < 0 ) {
+			throw new IllegalArgumentException( "pipelineDepth must be greater than or equal to 0" );
+		}
+		if ( pipelineDepth > 0 && pipelineExecutor == null ) {
+			throw new IllegalArgumentException( "the pipelineExecutor may not be null if pipelining is enabled!" );
+		}
+		this.pipelineDepth = pipelineDepth;
+		this.pipelineExecutor = pipelineExecutor;
+		this.createdOwnPipelineExecutor = false;
+	}
+
+	/**
+	 * enables checkpointed consumption: the ids of the entries a consumer has applied are stored durably in the given
+	 * store before the entries are removed from the database. If the application crashes after the consumers were done
+	 * with a batch but before its removal was committed, these entries are pruned on the next poll without being
+	 * applied a second time. The consumption is still at-least-once: a crash after the index was changed but before
+	 * the ids were stored still replays the batch, the store only deduplicates the entries that made it into it.
+	 */
+	public void setCheckpointStore(UpdateCheckpointStore checkpointStore) {
+		this.checkpointStore = checkpointStore;
+	}
+
+	/**
+	 * makes this UpdateSource only consume updates while it owns the given lease. Use this if multiple nodes share the
+	 * same database so that only one of them works on the Updates-Tables at a time. The lease is renewed inside every
+	 * transaction that removes consumed update entries, a poll is aborted if the lease was lost. The lease has to be set
+	 * up before (see {@link JPAUpdateSourceLease#setup(java.sql.Connection)})
+	 */
+	public void setLease(JPAUpdateSourceLease lease) {
+		this.lease = lease;
+	}
+
+	/**
+	 * sets the executor used to consume the shards of sharded Updates-Tables (see
+	 * {@link org.hibernate.search.genericjpa.annotations.Updates#shardCount()}) in parallel. Every shard is fetched and
+	 * removed from the database in its own transactions, the ordering of the updates is kept per entity (all updates
+	 * of an entity are in the same shard). The UpdateConsumers are still called by one shard at a time. If a lease is
+	 * set, the polling thread holds its row lock in a separate transaction until all shards are done. If this is not
+	 * set, an own thread pool is used for RESOURCE_LOCAL transactions and the shards are consumed one after another for
+	 * JTA transactions. For JTA transactions this has to be a
+	 * {@link javax.enterprise.concurrent.ManagedExecutorService}
+	 */
+	public void setShardExecutor(ExecutorService shardExecutor) {
+		this.shardExecutor = shardExecutor;
+		this.createdOwnShardExecutor = false;
+	}
+
+	@Override
+	public void setStatisticsListener(UpdateStatisticsListener statisticsListener) {
+		this.statisticsListener = statisticsListener;
+	}
+
+	/**
+	 * @return the count of update entries that were found in the database at the beginning of the last poll
+	 */
+	public long getBacklog() {
+		return this.backlog;
+	}
+
+	/**
+	 * @return the current delay (in the TimeUnit passed in the constructor) until the next poll
+	 */
+	public long getCurrentDelay() {
+		return this.currentDelay;
+	}
+
 	@Override
 	public void start() {
 		if ( this.updateConsumers == null ) {
 			throw new IllegalStateException( "updateConsumers was null!" );
 		}
-		this.exec.scheduleWithFixedDelay( () -> {
-			try {
-				if ( !this.emf.isOpen() ) {
-					return;
-				}
-				EntityManager em = null;
+		if ( this.shards.size() > 1 && this.shardExecutor == null && !this.useJTATransaction ) {
+			this.shardExecutor = Executors.newFixedThreadPool( this.shards.size() );
+			this.createdOwnShardExecutor = true;
+		}
+		synchronized (this) {
+			this.stopped = false;
+			this.currentDelay = this.timeOut;
+			this.lastSuccessfulPollStart = System.currentTimeMillis();
+			this.schedule( 0 );
+		}
+	}
+
+	private synchronized void schedule(long delay) {
+		if ( !this.stopped ) {
+			this.scheduledPoll = this.exec.schedule( this::poll, delay, this.timeUnit );
+		}
+	}
+
+	private void poll() {
+		long processed = 0;
+		boolean failed = false;
+		long pollStart = System.currentTimeMillis();
+		try {
+			processed = this.pollShards();
+			// every event that was pending when the previous successful poll started
+			// has been consumed by it, so the oldest pending event can't be older than that
+			long backlog = this.backlog;
+			this.statisticsListener.backlog( backlog, backlog > 0 ? pollStart - this.lastSuccessfulPollStart : 0 );
+			this.lastSuccessfulPollStart = pollStart;
+		}
+		catch (Exception e) {
+			failed = true;
+			LOGGER.log( Level.SEVERE, e.getMessage(), e );
+		}
+		finally {
+			long delay;
+			if ( failed ) {
+				delay = this.timeOut;
+			}
+			else if ( processed >= this.batchSizeForUpdates ) {
+				// there probably is more work, don't wait
+				delay = 0;
+			}
+			else if ( processed > 0 ) {
+				delay = this.timeOut;
+			}
+			else if ( this.currentDelay < this.timeOut ) {
+				delay = this.timeOut;
+			}
+			else {
+				delay = Math.min( this.currentDelay * 2, this.maxTimeOut );
+			}
+			this.currentDelay = delay;
+			this.schedule( delay );
+		}
+	}
+
+	/**
+	 * polls all the shards (in parallel if possible)
+	 *
+	 * @return the maximum number of update entries that were processed in one shard
+	 */
+	private long pollShards() throws Exception {
+		if ( !this.emf.isOpen() ) {
+			return 0;
+		}
+		if ( this.shards.size() == 1 ) {
+			PollResult result = this.pollOnce( this.shards.get( 0 ), true );
+			this.backlog = result.backlog;
+			return result.processed;
+		}
+		long processed = 0;
+		long backlog = 0;
+		Exception exception = null;
+		if ( this.shardExecutor == null ) {
+			// one after another, every shard renews the lease in its own transactions
+			for ( List<EventModelInfo> shard : this.shards ) {
 				try {
+					PollResult result = this.pollOnce( shard, true );
+					processed = Math.max( processed, result.processed );
+					backlog += result.backlog;
+				}
+				catch (Exception e) {
+					exception = e;
+				}
+			}
+		}
+		else {
+			EntityManager em = null;
+			UserTransaction utx = null;
+			try {
+				if ( this.lease != null ) {
+					// the shards run in separate transactions, if all of them took the row lock
+					// of the lease they would run one after another. Instead this transaction holds
+					// the row lock until all of them are done
 					em = new EntityManagerCloseable( this.emf.createEntityManager() );
-					EntityTransaction tx;
-					UserTransaction utx;
-					if ( !this.useJTATransaction ) {
-						tx = em.getTransaction();
-						tx.begin();
-						utx = null;
+					utx = this.beginTransaction( em );
+					if ( !this.lease.tryAcquire( em ) ) {
+						return 0;
 					}
-					else {
-						utx = (UserTransaction) InitialContext.doLookup( "java:comp/UserTransaction" );
-						utx.begin();
-						em.joinTransaction();
-						tx = null;
-					}
-					MultiQueryAccess query = query( this, em );
-					List<Object[]> toRemove = new ArrayList<>( this.batchSizeForUpdates );
-					List<UpdateInfo> updateInfos = new ArrayList<>( this.batchSizeForUpdates );
-					long processed = 0;
-					while ( query.next() ) {
-						// we have no order problems here since
-						// the query does
-						// the ordering for us
-						Object val = query.get();
-						toRemove.add( new Object[] { query.entityClass(), val } );
-						EventModelInfo evi = this.updateClassToEventModelInfo.get( query.entityClass() );
-						for ( IdInfo info : evi.getIdInfos() ) {
-							updateInfos.add( new UpdateInfo( info.getEntityClass(), info.getIdAccessor().apply( val ), evi.getEventTypeAccessor().apply( val ) ) );
-						}
-						// TODO: maybe move this to a method as
-						// it is getting reused
-						if ( ++processed % this.batchSizeForUpdates == 0 ) {
-							for ( UpdateConsumer consumer : this.updateConsumers ) {
-								consumer.updateEvent( updateInfos );
-							}
-							for ( Object[] rem : toRemove ) {
-								// the class is in rem[0], the
-								// entity is in
-								// rem[1]
-								query.addToNextValuePosition( (Class<?>) rem[0], -1L );
-								em.remove( rem[1] );
-							}
-							toRemove.clear();
-							updateInfos.clear();
-						}
+				}
+				List<Future<PollResult>> futures = new ArrayList<>();
+				for ( List<EventModelInfo> shard : this.shards ) {
+					futures.add( this.shardExecutor.submit( () -> this.pollOnce( shard, false ) ) );
+				}
+				for ( Future<PollResult> future : futures ) {
+					try {
+						PollResult result = future.get();
+						processed = Math.max( processed, result.processed );
+						backlog += result.backlog;
 					}
-					if ( updateInfos.size() > 0 ) {
-						for ( UpdateConsumer consumer : this.updateConsumers ) {
-							consumer.updateEvent( updateInfos );
-						}
-						for ( Object[] rem : toRemove ) {
-							// the class is in rem[0], the
-							// entity is in rem[1]
-							query.addToNextValuePosition( (Class<?>) rem[0], -1L );
-							em.remove( rem[1] );
-						}
-						toRemove.clear();
-						updateInfos.clear();
+					catch (ExecutionException e) {
+						exception = (Exception) e.getCause();
 					}
-	
-					em.flush();
-					// clear memory :)
-					em.clear();
-		
-					if ( !this.useJTATransaction ) {
-						tx.commit();
+				}
+			}
+			finally {
+				if ( em != null ) {
+					try {
+						this.commitTransaction( em, utx );
 					}
-					else {
-						utx.commit();
+					finally {
+						em.close();
 					}
 				}
-				catch (Exception e) {
-					throw new RuntimeException( "Error occured during Update processing!", e );
+			}
+		}
+		this.backlog = backlog;
+		if ( exception != null ) {
+			throw exception;
+		}
+		return processed;
+	}
+
+	/**
+	 * @return the UserTransaction if JTA is used, null otherwise
+	 */
+	private UserTransaction beginTransaction(EntityManager em) throws Exception {
+		if ( !this.useJTATransaction ) {
+			em.getTransaction().begin();
+			return null;
+		}
+		else {
+			UserTransaction utx = (UserTransaction) InitialContext.doLookup( "java:comp/UserTransaction" );
+			utx.begin();
+			em.joinTransaction();
+			return utx;
+		}
+	}
+
+	private void commitTransaction(EntityManager em, UserTransaction utx) throws Exception {
+		if ( !this.useJTATransaction ) {
+			em.getTransaction().commit();
+		}
+		else {
+			utx.commit();
+		}
+	}
+
+	private void rollbackTransaction(EntityManager em, UserTransaction utx) {
+		try {
+			if ( !this.useJTATransaction ) {
+				if ( em.getTransaction().isActive() ) {
+					em.getTransaction().rollback();
 				}
-				finally {
-					if ( em != null ) {
-						em.close();
+			}
+			else if ( utx != null ) {
+				utx.rollback();
+			}
+		}
+		catch (Exception e) {
+			LOGGER.log( Level.WARNING, "couldn't roll back the transaction", e );
+		}
+	}
+
+	private static final class PollResult {
+
+		final long processed;
+		final long backlog;
+
+		PollResult(long processed, long backlog) {
+			this.processed = processed;
+			this.backlog = backlog;
+		}
+
+	}
+
+	/**
+	 * processes all the updates of the given EventModelInfos. The update entries of every batch are removed (and the
+	 * transaction committed) as soon as the batch has been handed to the consumers, so a poll never holds the row
+	 * locks of the whole backlog
+	 */
+	private PollResult pollOnce(List<EventModelInfo> eventModelInfos, boolean renewLease) {
+		EntityManager em = null;
+		UserTransaction utx = null;
+		UpdatePipeline pipeline = null;
+		try {
+			em = new EntityManagerCloseable( this.emf.createEntityManager() );
+			utx = this.beginTransaction( em );
+			if ( renewLease && this.lease != null && !this.lease.tryAcquire( em ) ) {
+				// another node is consuming the updates
+				this.commitTransaction( em, utx );
+				utx = null;
+				return new PollResult( 0, 0 );
+			}
+			if ( this.checkpointStore != null ) {
+				// these were already applied to the index in a previous run
+				Map<Class<?>, List<Object>> alreadyApplied = new HashMap<>();
+				for ( EventModelInfo evi : eventModelInfos ) {
+					for ( Long id : this.checkpointStore.load( evi.getTableName() ) ) {
+						alreadyApplied.computeIfAbsent( evi.getUpdateClass(), (key) -> new ArrayList<>() ).add(
+								toIdType( id, this.idTypeMap.get( evi.getUpdateClass() ) ) );
 					}
 				}
+				this.remove( em, alreadyApplied );
+			}
+			MultiQueryAccess query = query( this, em, eventModelInfos );
+			long backlog = query.remaining();
+			List<Object[]> fetched = new ArrayList<>( this.batchSizeForUpdates );
+			List<UpdateInfo> updateInfos = new ArrayList<>( this.batchSizeForUpdates );
+			// the entries of the batches the consumers are done with
+			Queue<List<Object[]>> consumed = new ConcurrentLinkedQueue<>();
+			long processed = 0;
+			if ( this.pipelineDepth > 0 ) {
+				pipeline = new UpdatePipeline( this.pipelineDepth, this.pipelineExecutor );
+			}
+			long fetchStart = System.nanoTime();
+			while ( query.next() ) {
+				// we have no order problems here since
+				// the query does
+				// the ordering for us
+				Object val = query.get();
+				fetched.add( new Object[] { query.entityClass(), val } );
+				EventModelInfo evi = this.updateClassToEventModelInfo.get( query.entityClass() );
+				for ( IdInfo info : evi.getIdInfos() ) {
+					updateInfos.add( new UpdateInfo( info.getEntityClass(), info.getIdAccessor().apply( val ), evi.getEventTypeAccessor().apply( val ) ) );
+				}
+				if ( ++processed % this.batchSizeForUpdates == 0 ) {
+					this.handleBatch( updateInfos, fetched, pipeline, consumed, fetchStart );
+					utx = this.removeConsumed( query, em, utx, consumed, renewLease );
+					fetchStart = System.nanoTime();
+				}
+			}
+			if ( updateInfos.size() > 0 ) {
+				this.handleBatch( updateInfos, fetched, pipeline, consumed, fetchStart );
+			}
+			if ( pipeline != null ) {
+				// all the updates have to be in the index before we remove
+				// them from the database
+				pipeline.finish();
+			}
+			utx = this.removeConsumed( query, em, utx, consumed, false );
+			this.commitTransaction( em, utx );
+			utx = null;
+			if ( this.checkpointStore != null ) {
+				// everything in the checkpoint is removed from the database now
+				for ( EventModelInfo evi : eventModelInfos ) {
+					this.checkpointStore.clear( evi.getTableName() );
+				}
+			}
+			return new PollResult( processed, backlog );
+		}
+		catch (Exception e) {
+			if ( em != null ) {
+				this.rollbackTransaction( em, utx );
+			}
+			throw new RuntimeException( "Error occured during Update processing!", e );
+		}
+		finally {
+			if ( pipeline != null ) {
+				pipeline.abort();
+			}
+			if ( em != null ) {
+				em.close();
+			}
+		}
+	}
+
+	private void handleBatch(List<UpdateInfo> updateInfos, List<Object[]> fetched, UpdatePipeline pipeline, Queue<List<Object[]>> consumed,
+			long fetchStart) throws Exception {
+		UpdateStatisticsListener statisticsListener = this.statisticsListener;
+		int size = fetched.size();
+		statisticsListener.batchFetched( size, System.nanoTime() - fetchStart );
+		Map<Class<?>, Integer> polledPerClass = new HashMap<>();
+		for ( Object[] rem : fetched ) {
+			polledPerClass.merge( (Class<?>) rem[0], 1, Integer::sum );
+		}
+		polledPerClass.forEach( statisticsListener::eventsPolled );
+		List<UpdateInfo> batch = new ArrayList<>( updateInfos );
+		List<Object[]> entries = new ArrayList<>( fetched );
+		Map<String, List<Long>> applied = new HashMap<>();
+		if ( this.checkpointStore != null ) {
+			for ( Object[] rem : entries ) {
+				Class<?> updateClass = (Class<?>) rem[0];
+				Object id = this.idAccessorMap.get( updateClass ).apply( rem[1] );
+				applied.computeIfAbsent( this.updateClassToEventModelInfo.get( updateClass ).getTableName(), (key) -> new ArrayList<>() ).add(
+						( (Number) id ).longValue() );
+			}
+		}
+		Runnable task = () -> {
+			long consumeStart = System.nanoTime();
+			// the consumers are not required to be thread-safe, but the shards
+			// are consumed in parallel
+			synchronized (this.consumerLock) {
+				for ( UpdateConsumer consumer : this.updateConsumers ) {
+					consumer.updateEvent( batch );
+				}
+			}
+			statisticsListener.batchConsumed( size, System.nanoTime() - consumeStart );
+			for ( Map.Entry<String, List<Long>> entry : applied.entrySet() ) {
+				this.checkpointStore.add( entry.getKey(), entry.getValue() );
+			}
+			consumed.add( entries );
+		};
+		if ( pipeline != null ) {
+			pipeline.put( task );
+		}
+		else {
+			task.run();
+		}
+		fetched.clear();
+		updateInfos.clear();
+	}
+
+	/**
+	 * removes the entries of all batches the consumers are done with from the database and commits them (a new
+	 * transaction is started for the next batches)
+	 *
+	 * @return the UserTransaction of the new transaction if JTA is used, null otherwise
+	 */
+	private UserTransaction removeConsumed(MultiQueryAccess query, EntityManager em, UserTransaction utx, Queue<List<Object[]>> consumed,
+			boolean renewLease) throws Exception {
+		if ( consumed.isEmpty() ) {
+			return utx;
+		}
+		Map<Class<?>, List<Object>> toRemove = new HashMap<>();
+		List<Object[]> entries;
+		while ( ( entries = consumed.poll() ) != null ) {
+			for ( Object[] rem : entries ) {
+				Class<?> updateClass = (Class<?>) rem[0];
+				toRemove.computeIfAbsent( updateClass, (key) -> new ArrayList<>() ).add( this.idAccessorMap.get( updateClass ).apply( rem[1] ) );
 			}
-			catch (Exception e) {
-				LOGGER.log( Level.SEVERE, e.getMessage(), e );
+		}
+		this.remove( em, toRemove );
+		for ( Map.Entry<Class<?>, List<Object>> entry : toRemove.entrySet() ) {
+			// these were all before the current position of the query
+			query.addToNextValuePosition( entry.getKey(), (long) -entry.getValue().size() );
+		}
+		this.commitTransaction( em, utx );
+		// clear memory :)
+		em.clear();
+		UserTransaction newUtx = this.beginTransaction( em );
+		if ( renewLease && this.lease != null && !this.lease.tryAcquire( em ) ) {
+			throw new IllegalStateException( "lost the lease while consuming the updates" );
+		}
+		return newUtx;
+	}
+
+	/**
+	 * removes the update entries with the given ids in bulk
+	 */
+	private void remove(EntityManager em, Map<Class<?>, List<Object>> ids) {
+		long start = System.nanoTime();
+		int size = 0;
+		for ( Map.Entry<Class<?>, List<Object>> entry : ids.entrySet() ) {
+			List<Object> list = entry.getValue();
+			for ( int i = 0; i < list.size(); i += PRUNE_BATCH_SIZE ) {
+				em.createQuery( new StringBuilder().append( "DELETE FROM " ).append( entry.getKey().getName() ).append( " obj WHERE obj.id IN :ids" ).toString() )
+						.setParameter( "ids", list.subList( i, Math.min( i + PRUNE_BATCH_SIZE, list.size() ) ) ).executeUpdate();
 			}
-		}, 0, this.timeOut, this.timeUnit );
+			size += list.size();
+		}
+		if ( size > 0 ) {
+			this.statisticsListener.batchRemoved( size, System.nanoTime() - start );
+		}
+	}
+
+	private static Object toIdType(Long id, Class<?> idType) {
+		if ( Integer.class.equals( idType ) || int.class.equals( idType ) ) {
+			return id.intValue();
+		}
+		return id;
 	}
 
 	public static MultiQueryAccess query(JPAUpdateSource updateSource, EntityManager em) {
+		return query( updateSource, em, updateSource.eventModelInfos );
+	}
+
+	private static MultiQueryAccess query(JPAUpdateSource updateSource, EntityManager em, List<EventModelInfo> eventModelInfos) {
 		Map<Class<?>, Long> countMap = new HashMap<>();
 		Map<Class<?>, Query> queryMap = new HashMap<>();
-		for ( EventModelInfo evi : updateSource.eventModelInfos ) {
+		for ( EventModelInfo evi : eventModelInfos ) {
 			CriteriaBuilder cb = em.getCriteriaBuilder();
 			long count;
 			{
@@ -274,9 +720,90 @@ public class JPAUpdateSource implements UpdateSource {
 
 	@Override
 	public void stop() {
+		synchronized (this) {
+			this.stopped = true;
+			if ( this.scheduledPoll != null ) {
+				this.scheduledPoll.cancel( false );
+				this.scheduledPoll = null;
+			}
+		}
+		if ( this.createdOwnShardExecutor && this.shardExecutor != null ) {
+			this.shardExecutor.shutdown();
+			this.shardExecutor = null;
+			this.createdOwnShardExecutor = false;
+		}
+		if ( this.createdOwnPipelineExecutor && this.pipelineExecutor != null ) {
+			this.pipelineExecutor.shutdown();
+		}
 		if ( this.createdOwnExecutorService && this.exec != null ) {
 			this.exec.shutdown();
 		}
 	}
 
+	/**
+	 * bounded queue of batches that are handed to the UpdateConsumers by a single worker task while the database is
+	 * still being queried for the next batches
+	 */
+	private static final class UpdatePipeline {
+
+		private static final Runnable END = () -> {
+		};
+
+		private final BlockingQueue<Runnable> queue;
+		private final Future<?> worker;
+		private volatile Exception failure;
+
+		UpdatePipeline(int depth, ExecutorService exec) {
+			this.queue = new ArrayBlockingQueue<>( depth );
+			this.worker = exec.submit( () -> {
+				while ( true ) {
+					Runnable batch = this.queue.take();
+					if ( batch == END ) {
+						return null;
+					}
+					// after a failure we just drain the queue so the producer doesn't block
+					if ( this.failure == null ) {
+						try {
+							batch.run();
+						}
+						catch (Exception e) {
+							this.failure = e;
+						}
+					}
+				}
+			} );
+		}
+
+		void put(Runnable batch) throws Exception {
+			this.checkFailure();
+			this.queue.put( batch );
+		}
+
+		/**
+		 * waits until all the queued batches have been handled
+		 */
+		void finish() throws Exception {
+			this.queue.put( END );
+			this.worker.get();
+			this.checkFailure();
+		}
+
+		/**
+		 * stops the worker without handling the remaining batches (no-op if finished already)
+		 */
+		void abort() {
+			if ( !this.worker.isDone() ) {
+				this.queue.clear();
+				this.queue.offer( END );
+			}
+		}
+
+		private void checkFailure() throws Exception {
+			if ( this.failure != null ) {
+				throw this.failure;
+			}
+		}
+
+	}
+
 }
@@ -0,0 +1,138 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.db.events.jpa;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.persistence.EntityManager;
+
+/**
+ * a lease stored in a database table that makes sure that only one node of a cluster consumes the updates of a
+ * {@link JPAUpdateSource} at a time. <br>
+ * <br>
+ * The lease is acquired (or renewed) at the beginning of every poll inside the transaction of the poll. The row lock
+ * taken by this keeps other nodes out until the poll has committed, after that they only get the lease once it has
+ * expired (i.e. the owning node didn't poll for longer than the lease duration). The lease duration therefore has to
+ * be longer than the maximum delay between two polls. The expiry is computed with the clock of the database
+ * (CURRENT_TIMESTAMP), so the clocks of the nodes don't matter. It has a precision of one second, the duration is
+ * rounded up to whole seconds.
+ *
+ * @author Martin Braun
+ */
+public class JPAUpdateSourceLease {
+
+	private static final Logger LOGGER = Logger.getLogger( JPAUpdateSourceLease.class.getName() );
+
+	public static final String DEFAULT_TABLE_NAME = "hsearch_update_lease";
+	public static final String DEFAULT_LEASE_NAME = "updates";
+
+	private final String tableName;
+	private final String leaseName;
+	private final String nodeId;
+	private final long durationSeconds;
+
+	private volatile boolean owner = false;
+
+	/**
+	 * uses the default table and lease name and a random node id
+	 */
+	public JPAUpdateSourceLease(long duration, TimeUnit unit) {
+		this( DEFAULT_TABLE_NAME, DEFAULT_LEASE_NAME, UUID.randomUUID().toString(), duration, unit );
+	}
+
+	public JPAUpdateSourceLease(String tableName, String leaseName, String nodeId, long duration, TimeUnit unit) {
+		if ( duration <= 0 ) {
+			throw new IllegalArgumentException( "duration must be greater than 0" );
+		}
+		this.tableName = tableName;
+		this.leaseName = leaseName;
+		this.nodeId = nodeId;
+		this.durationSeconds = Math.max( 1, ( unit.toMillis( duration ) + 999 ) / 1000 );
+	}
+
+	/**
+	 * creates the lease table and the row for this lease if they don't exist yet
+	 */
+	public void setup(Connection connection) throws SQLException {
+		boolean tableExists;
+		// not every database supports CREATE TABLE IF NOT EXISTS
+		try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery( "SELECT COUNT(*) FROM " + this.tableName )) {
+			tableExists = true;
+		}
+		catch (SQLException e) {
+			connection.rollback();
+			tableExists = false;
+		}
+		if ( !tableExists ) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute( "CREATE TABLE " + this.tableName
+						+ " (lease_name VARCHAR(255) NOT NULL, lease_owner VARCHAR(255), expires TIMESTAMP NOT NULL, PRIMARY KEY (lease_name))" );
+			}
+			connection.commit();
+		}
+		boolean exists;
+		try (PreparedStatement select = connection.prepareStatement( "SELECT COUNT(*) FROM " + this.tableName + " WHERE lease_name = ?" )) {
+			select.setString( 1, this.leaseName );
+			try (ResultSet resultSet = select.executeQuery()) {
+				resultSet.next();
+				exists = resultSet.getLong( 1 ) > 0;
+			}
+		}
+		if ( !exists ) {
+			try (PreparedStatement insert = connection.prepareStatement( "INSERT INTO " + this.tableName
+					+ " (lease_name, lease_owner, expires) VALUES (?, NULL, CURRENT_TIMESTAMP)" )) {
+				insert.setString( 1, this.leaseName );
+				insert.executeUpdate();
+				connection.commit();
+			}
+			catch (SQLException e) {
+				// another node was faster
+				connection.rollback();
+				LOGGER.fine( "couldn't insert the lease row, it probably was created by another node: " + e.getMessage() );
+			}
+		}
+	}
+
+	/**
+	 * tries to acquire or renew the lease. This has to be called inside the transaction of the poll.
+	 *
+	 * @return true if this node owns the lease (until the transaction has committed and for the lease duration after
+	 * that)
+	 */
+	public boolean tryAcquire(EntityManager em) {
+		// only the clock of the database is used so that skewed clocks of the nodes can't break the mutual exclusion
+		int updated = em
+				.createNativeQuery( "UPDATE " + this.tableName + " SET lease_owner = ?1, expires = TIMESTAMPADD(SQL_TSI_SECOND, " + this.durationSeconds
+						+ ", CURRENT_TIMESTAMP) WHERE lease_name = ?2 AND (lease_owner = ?3 OR lease_owner IS NULL OR expires < CURRENT_TIMESTAMP)" )
+				.setParameter( 1, this.nodeId ).setParameter( 2, this.leaseName ).setParameter( 3, this.nodeId ).executeUpdate();
+		boolean acquired = updated > 0;
+		if ( acquired != this.owner ) {
+			LOGGER.info( "node " + this.nodeId + ( acquired ? " acquired" : " lost" ) + " the lease " + this.leaseName );
+		}
+		this.owner = acquired;
+		return acquired;
+	}
+
+	/**
+	 * @return whether this node owned the lease at the last poll
+	 */
+	public boolean isOwner() {
+		return this.owner;
+	}
+
+	public String getNodeId() {
+		return this.nodeId;
+	}
+
+}
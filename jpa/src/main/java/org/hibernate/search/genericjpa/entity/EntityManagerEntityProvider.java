@@ -8,6 +8,8 @@ package org.hibernate.search.genericjpa.entity;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +25,8 @@ public class EntityManagerEntityProvider implements EntityProvider {
 
 	private static final String QUERY_FORMAT = "SELECT obj FROM %s obj "
 			+ "WHERE obj.%s IN :ids";
+	private static final String PROPERTIES_QUERY_FORMAT = "SELECT obj.%s%s FROM %s obj "
+			+ "WHERE obj.%s IN :ids";
 
 	// TODO: add support for fetch profiles?
 
@@ -54,4 +58,25 @@ public class EntityManagerEntityProvider implements EntityProvider {
 		}
 		return ret;
 	}
+
+	@Override
+	public Map<Object, Object[]> getBatchProperties(Class<?> entityClass, List<Object> ids, List<String> properties) {
+		Map<Object, Object[]> ret = new HashMap<>( ids.size() );
+		if ( ids.size() > 0 ) {
+			String idProperty = this.idProperties.get( entityClass );
+			StringBuilder selected = new StringBuilder();
+			for ( String property : properties ) {
+				selected.append( ", obj." ).append( property );
+			}
+			String queryString = String.format( PROPERTIES_QUERY_FORMAT, idProperty, selected, entityClass.getName(), idProperty );
+			Query query = this.em.createQuery( queryString );
+			query.setParameter( "ids", ids );
+			for ( Object row : query.getResultList() ) {
+				// the id is always selected, so this is an Object[] even for a single property
+				Object[] values = (Object[]) row;
+				ret.put( values[0], Arrays.copyOfRange( values, 1, values.length ) );
+			}
+		}
+		return ret;
+	}
 }
@@ -25,6 +25,9 @@ import javax.transaction.UserTransaction;
 import org.hibernate.search.standalone.entity.ReusableEntityProvider;
 
 /**
+ * {@link ReusableEntityProvider} for JPA. The state (EntityManager, transaction) is kept per thread, so one instance
+ * can be used by multiple threads at once (every thread has to call {@link #open()} and {@link #close()} itself).
+ *
  * @author Martin Braun
  */
 public class JPAReusableEntityProvider implements ReusableEntityProvider {
@@ -32,9 +35,15 @@ public class JPAReusableEntityProvider implements ReusableEntityProvider {
 	private final EntityManagerFactory emf;
 	private final Map<Class<?>, String> idProperties;
 	private final boolean useJTATransaction;
-	private EntityManager em;
-	private EntityManagerEntityProvider provider;
-	private UserTransaction utx;
+	private final ThreadLocal<State> state = new ThreadLocal<>();
+
+	private static final class State {
+
+		EntityManager em;
+		EntityManagerEntityProvider provider;
+		UserTransaction utx;
+
+	}
 
 	public JPAReusableEntityProvider(EntityManagerFactory emf, Map<Class<?>, String> idProperties, boolean useJTATransaction) {
 		this.emf = emf;
@@ -44,75 +53,84 @@ public class JPAReusableEntityProvider implements ReusableEntityProvider {
 
 	@Override
 	public Object get(Class<?> entityClass, Object id) {
-		if ( this.provider == null ) {
+		State state = this.state.get();
+		if ( state == null ) {
 			throw new IllegalStateException( "not open!" );
 		}
-		return this.provider.get( entityClass, id );
+		return state.provider.get( entityClass, id );
 	}
 
 	@Override
 	@SuppressWarnings("rawtypes")
 	public List getBatch(Class<?> entityClass, List<Object> ids) {
-		if ( this.provider == null ) {
+		State state = this.state.get();
+		if ( state == null ) {
+			throw new IllegalStateException( "not open!" );
+		}
+		return state.provider.getBatch( entityClass, ids );
+	}
+
+	@Override
+	public Map<Object, Object[]> getBatchProperties(Class<?> entityClass, List<Object> ids, List<String> properties) {
+		State state = this.state.get();
+		if ( state == null ) {
 			throw new IllegalStateException( "not open!" );
 		}
-		return this.provider.getBatch( entityClass, ids );
+		return state.provider.getBatchProperties( entityClass, ids, properties );
 	}
 
 	@Override
 	public void close() {
+		State state = this.state.get();
 		try {
-			if ( this.provider == null ) {
+			if ( state == null ) {
 				throw new IllegalStateException( "already closed!" );
 			}
-			this.commitTransaction();
-			this.em.close();
+			this.commitTransaction( state );
+			state.em.close();
 		}
 		finally {
-			this.utx = null;
-			this.em = null;
-			this.provider = null;
+			this.state.remove();
 		}
 	}
 
 	@Override
 	public void open() {
+		if ( this.state.get() != null ) {
+			throw new IllegalStateException( "already open!" );
+		}
+		State state = new State();
 		try {
-			if ( this.provider != null ) {
-				throw new IllegalStateException( "already open!" );
-			}
-			this.em = new EntityManagerCloseable( this.emf.createEntityManager() );
-			this.provider = new EntityManagerEntityProvider( this.em, this.idProperties );
-			this.beginTransaction();
+			state.em = new EntityManagerCloseable( this.emf.createEntityManager() );
+			state.provider = new EntityManagerEntityProvider( state.em, this.idProperties );
+			this.beginTransaction( state );
+			this.state.set( state );
 		}
 		catch (Throwable e) {
-			if ( this.em != null ) {
-				this.em.close();
+			if ( state.em != null ) {
+				state.em.close();
 			}
-			this.utx = null;
-			this.em = null;
-			this.provider = null;
 			throw e;
 		}
 	}
 
 	// TODO: fix the hacky stuff here
 
-	private void beginTransaction() {
+	private void beginTransaction(State state) {
 		if ( !this.useJTATransaction ) {
-			this.em.getTransaction().begin();
+			state.em.getTransaction().begin();
 		}
 		else {
 			try {
 				TransactionSynchronizationRegistry registry = InitialContext.doLookup( "java:comp/TransactionSynchronizationRegistry" );
 				if ( registry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION ) {
-					this.utx = InitialContext.doLookup( "java:comp/UserTransaction" );
-					this.utx.begin();
-					this.em.joinTransaction();
+					state.utx = InitialContext.doLookup( "java:comp/UserTransaction" );
+					state.utx.begin();
+					state.em.joinTransaction();
 				}
 				else {
 					// we didn't start the currently active transaction, so we don't have to handle it here
-					this.utx = null;
+					state.utx = null;
 				}
 			}
 			catch (NamingException | NotSupportedException | SystemException e1) {
@@ -121,15 +139,15 @@ public class JPAReusableEntityProvider implements ReusableEntityProvider {
 		}
 	}
 
-	private void commitTransaction() {
+	private void commitTransaction(State state) {
 		if ( !this.useJTATransaction ) {
-			this.em.getTransaction().commit();
+			state.em.getTransaction().commit();
 		}
 		else {
 			try {
-				if ( this.utx != null ) {
+				if ( state.utx != null ) {
 					// only commit this transaction if it was
-					this.utx.commit();
+					state.utx.commit();
 				}
 			}
 			catch (SecurityException | IllegalStateException | RollbackException | HeuristicMixedException | HeuristicRollbackException | SystemException e1) {
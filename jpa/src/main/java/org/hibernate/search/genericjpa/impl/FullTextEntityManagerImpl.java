@@ -25,7 +25,9 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaUpdate;
 
+import org.hibernate.search.genericjpa.EntityListenerJPASearchFactory;
 import org.hibernate.search.genericjpa.JPASearchFactory;
+import org.hibernate.search.genericjpa.db.events.jpa.EntityListenerUpdateSource;
 import org.hibernate.search.jpa.FullTextEntityManager;
 import org.hibernate.search.jpa.FullTextQuery;
 import org.hibernate.search.standalone.factory.Transaction;
@@ -50,10 +52,15 @@ final class FullTextEntityManagerImpl implements FullTextEntityManager, Serializ
 
 	@Override
 	public void beginSearchTransaction() {
+		this.beginSearchTransaction( 0 );
+	}
+
+	@Override
+	public void beginSearchTransaction(int autoFlushThreshold) {
 		if ( this.standaloneTransaction != null ) {
 			throw new IllegalArgumentException( "a transaction is already in progress!" );
 		}
-		this.standaloneTransaction = new Transaction();
+		this.standaloneTransaction = new Transaction( autoFlushThreshold );
 	}
 
 	@Override
@@ -76,7 +83,8 @@ final class FullTextEntityManagerImpl implements FullTextEntityManager, Serializ
 
 	@Override
 	public FullTextQuery createFullTextQuery(org.apache.lucene.search.Query luceneQuery, Class<?>... entities) {
-		return new FullTextQueryImpl( this.searchFactory.createQuery( luceneQuery, entities ), this.searchFactory.entityProvider( this.em ) );
+		return new FullTextQueryImpl( this.searchFactory.createQuery( luceneQuery, entities ), this.searchFactory.entityProvider( this.em ),
+				this.searchFactory::createEntityProvider, this.searchFactory.getAsyncSearchExecutor(), this.searchFactory.getAsyncFetchExecutor() );
 	}
 
 	@Override
@@ -253,7 +261,14 @@ final class FullTextEntityManagerImpl implements FullTextEntityManager, Serializ
 	}
 
 	public EntityTransaction getTransaction() {
-		return em.getTransaction();
+		EntityTransaction transaction = em.getTransaction();
+		if ( this.searchFactory instanceof EntityListenerJPASearchFactory ) {
+			EntityListenerUpdateSource updateSource = ( (EntityListenerJPASearchFactory) this.searchFactory ).getEntityListenerUpdateSource();
+			if ( updateSource != null && updateSource.isStarted() ) {
+				return new ListenerNotifyingEntityTransaction( transaction, updateSource );
+			}
+		}
+		return transaction;
 	}
 
 	public boolean isJoinedToTransaction() {
@@ -312,4 +327,63 @@ final class FullTextEntityManagerImpl implements FullTextEntityManager, Serializ
 		em.setProperty( arg0, arg1 );
 	}
 
+	/**
+	 * notifies the {@link EntityListenerUpdateSource} of the SearchFactory about the begin and end of RESOURCE_LOCAL
+	 * transactions
+	 */
+	private static final class ListenerNotifyingEntityTransaction implements EntityTransaction {
+
+		private final EntityTransaction delegate;
+		private final EntityListenerUpdateSource updateSource;
+
+		ListenerNotifyingEntityTransaction(EntityTransaction delegate, EntityListenerUpdateSource updateSource) {
+			this.delegate = delegate;
+			this.updateSource = updateSource;
+		}
+
+		@Override
+		public void begin() {
+			this.delegate.begin();
+			this.updateSource.beginTransaction();
+		}
+
+		@Override
+		public void commit() {
+			try {
+				this.delegate.commit();
+			}
+			catch (RuntimeException e) {
+				this.updateSource.afterTransactionCompletion( false );
+				throw e;
+			}
+			this.updateSource.afterTransactionCompletion( true );
+		}
+
+		@Override
+		public void rollback() {
+			try {
+				this.delegate.rollback();
+			}
+			finally {
+				this.updateSource.afterTransactionCompletion( false );
+			}
+		}
+
+		@Override
+		public void setRollbackOnly() {
+			this.delegate.setRollbackOnly();
+		}
+
+		@Override
+		public boolean getRollbackOnly() {
+			return this.delegate.getRollbackOnly();
+		}
+
+		@Override
+		public boolean isActive() {
+			return this.delegate.isActive();
+		}
+
+	}
+
 }
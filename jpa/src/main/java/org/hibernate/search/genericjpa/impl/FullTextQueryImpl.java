@@ -6,6 +6,8 @@
  */
 package org.hibernate.search.genericjpa.impl;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
@@ -14,7 +16,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import javax.persistence.FlushModeType;
 import javax.persistence.LockModeType;
@@ -38,6 +44,8 @@ import org.hibernate.search.query.engine.spi.FacetManager;
 import org.hibernate.search.spatial.Coordinates;
 import org.hibernate.search.standalone.entity.EntityProvider;
 import org.hibernate.search.standalone.query.HSearchQuery;
+import org.hibernate.search.standalone.query.QueryPage;
+import org.hibernate.search.standalone.query.SearchAfterToken;
 
 /**
  * Implements JPA 2 query interface and delegate the call to a Hibernate Core FullTextQuery. This has the consequence of
@@ -50,6 +58,10 @@ final class FullTextQueryImpl implements FullTextQuery {
 	private final HSearchQuery hsearchQuery;
 	
 	private EntityProvider entityProvider;
+	// the asynchronous fetches can't use the (not thread-safe) EntityManager of the query
+	private final Supplier<EntityProvider> asyncEntityProvider;
+	private final Executor searchExecutor;
+	private final Executor fetchExecutor;
 
 	private Integer firstResult;
 	private Integer maxResults;
@@ -62,8 +74,21 @@ final class FullTextQueryImpl implements FullTextQuery {
 	private FlushModeType jpaFlushMode = FlushModeType.AUTO;
 
 	public FullTextQueryImpl(HSearchQuery hsearchQuery, EntityProvider entityProvider) {
+		this( hsearchQuery, entityProvider, null, null, null );
+	}
+
+	/**
+	 * @param asyncEntityProvider creates the EntityProviders for the asynchronous fetches, these are closed afterwards
+	 * @param searchExecutor default executor for the asynchronous searches, may be null
+	 * @param fetchExecutor default executor for the asynchronous fetches, may be null
+	 */
+	public FullTextQueryImpl(HSearchQuery hsearchQuery, EntityProvider entityProvider, Supplier<EntityProvider> asyncEntityProvider,
+			Executor searchExecutor, Executor fetchExecutor) {
 		this.hsearchQuery = hsearchQuery;
 		this.entityProvider = entityProvider;
+		this.asyncEntityProvider = asyncEntityProvider;
+		this.searchExecutor = searchExecutor;
+		this.fetchExecutor = fetchExecutor;
 	}
 
 	@Override
@@ -141,6 +166,99 @@ final class FullTextQueryImpl implements FullTextQuery {
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> QueryPage<T> getResultPage() {
+		try {
+			if ( this.projection == null ) {
+				return this.hsearchQuery.queryPage( this.entityProvider, this.getFetch() );
+			}
+			else {
+				QueryPage<Object[]> page = this.hsearchQuery.queryProjectionPage( this.projection );
+				return new QueryPage<>( (List<T>) (List<?>) page.getResults(), page.getTotalHits(), page.isTotalExact(), page.getNextToken() );
+			}
+		}
+		catch (QueryTimeoutException e) {
+			throwQueryTimeoutException( e );
+			return null; // never happens
+		}
+		catch (SearchException he) {
+			throwPersistenceException( he );
+			throw he;
+		}
+	}
+
+	@Override
+	public FullTextQuery searchAfter(SearchAfterToken token) {
+		this.hsearchQuery.searchAfter( token );
+		return this;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public CompletableFuture<List> getResultListAsync() {
+		return this.getResultListAsync( this.searchExecutor, this.fetchExecutor );
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public CompletableFuture<List> getResultListAsync(Executor searchExecutor, Executor fetchExecutor) {
+		if ( searchExecutor == null || fetchExecutor == null ) {
+			throw new IllegalStateException( "no executors for asynchronous queries were configured, see JPASearchFactory#setAsyncExecutors" );
+		}
+		CompletableFuture<List> future;
+		if ( this.projection == null ) {
+			if ( this.asyncEntityProvider == null ) {
+				throw new IllegalStateException( "this query can't load entities asynchronously" );
+			}
+			EntityProvider entityProvider = this.asyncEntityProvider.get();
+			future = this.hsearchQuery.queryAsync( entityProvider, this.getFetch(), searchExecutor, fetchExecutor ).whenComplete( (result, throwable) -> {
+				try {
+					entityProvider.close();
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException( e );
+				}
+			} );
+		}
+		else {
+			future = this.hsearchQuery.queryProjectionAsync( searchExecutor, this.projection ).thenApply( (list) -> list );
+		}
+		return this.translateExceptions( future );
+	}
+
+	@Override
+	public CompletableFuture<Integer> getResultSizeAsync() {
+		if ( this.searchExecutor == null ) {
+			throw new IllegalStateException( "no executors for asynchronous queries were configured, see JPASearchFactory#setAsyncExecutors" );
+		}
+		return this.translateExceptions( this.hsearchQuery.queryResultSizeAsync( this.searchExecutor ) );
+	}
+
+	/**
+	 * completes the returned future with the same exceptions {@link #getResultList()} would throw
+	 */
+	private <T> CompletableFuture<T> translateExceptions(CompletableFuture<T> future) {
+		CompletableFuture<T> ret = new CompletableFuture<>();
+		future.whenComplete( (result, throwable) -> {
+			if ( throwable == null ) {
+				ret.complete( result );
+				return;
+			}
+			Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+			if ( cause instanceof QueryTimeoutException ) {
+				ret.completeExceptionally( new javax.persistence.QueryTimeoutException( cause.getMessage(), cause, this ) );
+			}
+			else if ( cause instanceof SearchException ) {
+				ret.completeExceptionally( new PersistenceException( cause ) );
+			}
+			else {
+				ret.completeExceptionally( cause );
+			}
+		} );
+		return ret;
+	}
+
 	@Override
 	public FacetManager getFacetManager() {
 		return this.hsearchQuery.getFacetManager();
@@ -138,6 +138,17 @@ public class MultiQueryAccess {
 		this.processed.put( clazz, newValue );
 	}
 
+	/**
+	 * @return the count of values that have not been visited yet
+	 */
+	public long remaining() {
+		long ret = 0;
+		for ( Long count : this.currentCountMap.values() ) {
+			ret += count;
+		}
+		return ret;
+	}
+
 	/**
 	 * @return the current value
 	 */
@@ -80,6 +80,13 @@ public interface FullTextEntityManager extends EntityManager {
 	 * this has to be called when you want to change the index manually!
 	 */
 	void beginSearchTransaction();
+
+	/**
+	 * like {@link #beginSearchTransaction()}, but flushes the changes to the index every time the given number of
+	 * changes was made so that big transactions don't have to keep all of them in memory. Changes that were flushed
+	 * this way can't be rolled back anymore.
+	 */
+	void beginSearchTransaction(int autoFlushThreshold);
 	
 	/**
 	 * <b>different from the original Hibernate Search!</b> <br>
@@ -6,6 +6,9 @@
  */
 package org.hibernate.search.jpa;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import javax.persistence.Query;
@@ -20,6 +23,8 @@ import org.hibernate.search.query.ObjectLookupMethod;
 import org.hibernate.search.query.engine.spi.FacetManager;
 import org.hibernate.search.spatial.Coordinates;
 import org.hibernate.search.standalone.entity.EntityProvider;
+import org.hibernate.search.standalone.query.QueryPage;
+import org.hibernate.search.standalone.query.SearchAfterToken;
 
 /**
  * The base interface for lucene powered searches.
@@ -63,6 +68,49 @@ public interface FullTextQuery extends Query, ProjectionConstants {
 	 * may be not in sync with the database at the time of query.
 	 */
 	int getResultSize();
+
+	/**
+	 * returns the results of the current page (see {@link #setFirstResult(int)} and {@link #setMaxResults(int)})
+	 * together with the total number of hits. Use this instead of calling {@link #getResultSize()} and
+	 * {@link #getResultList()} as it only runs the Lucene query once.
+	 */
+	<T> QueryPage<T> getResultPage();
+
+	/**
+	 * switches to cursor based paging for deep result sets, see
+	 * {@link org.hibernate.search.standalone.query.HSearchQuery#searchAfter(SearchAfterToken)}. The token for the next
+	 * page is returned by {@link #getResultPage()}
+	 *
+	 * @param token {@link SearchAfterToken#START} for the first page, null switches back to offset based paging
+	 */
+	FullTextQuery searchAfter(SearchAfterToken token);
+
+	/**
+	 * asynchronous version of {@link #getResultList()}. The Lucene search and the loading of the entities run on the
+	 * executors configured with {@link org.hibernate.search.genericjpa.JPASearchFactory#setAsyncExecutors}, an
+	 * IllegalStateException is thrown if there are none. The entities are loaded with an EntityManager of their own,
+	 * so they are not managed by the EntityManager this query was created with. <br>
+	 * <br>
+	 * This query must not be changed or executed again until the returned future has completed. To run several
+	 * searches at the same time, create a query for each of them.
+	 */
+	@SuppressWarnings("rawtypes")
+	CompletableFuture<List> getResultListAsync();
+
+	/**
+	 * see {@link #getResultListAsync()}
+	 *
+	 * @param searchExecutor the executor the Lucene search runs on
+	 * @param fetchExecutor the executor the entities are loaded on
+	 */
+	@SuppressWarnings("rawtypes")
+	CompletableFuture<List> getResultListAsync(Executor searchExecutor, Executor fetchExecutor);
+
+	/**
+	 * asynchronous version of {@link #getResultSize()}, the same restrictions as for {@link #getResultListAsync()}
+	 * apply
+	 */
+	CompletableFuture<Integer> getResultSizeAsync();
 	
 	/**
 	 * NOTE: NO setCriteriaQuery(Criteria criteria)!
@@ -0,0 +1,44 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.test.batchindexing;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.hibernate.search.genericjpa.batchindexing.FileReindexCheckpointStore;
+import org.hibernate.search.genericjpa.batchindexing.ReindexCheckpointStore.Checkpoint;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class FileReindexCheckpointStoreTest {
+
+	@Test
+	public void test() throws IOException {
+		File file = File.createTempFile( "checkpoint", ".ser" );
+		file.deleteOnExit();
+		assertTrue( file.delete() );
+
+		FileReindexCheckpointStore store = new FileReindexCheckpointStore( file );
+		assertNull( store.load( "Place" ) );
+		store.save( "Place", new Checkpoint( 10L, 1 ) );
+		store.save( "Place", new Checkpoint( 20L, 2 ) );
+		store.save( "Sorcerer", new Checkpoint( 5L, 3 ) );
+
+		// simulate a restart
+		store = new FileReindexCheckpointStore( file );
+		assertEquals( 20L, store.load( "Place" ).getTimestamp() );
+		assertEquals( 2, store.load( "Place" ).getId() );
+		assertEquals( 5L, store.load( "Sorcerer" ).getTimestamp() );
+	}
+
+}
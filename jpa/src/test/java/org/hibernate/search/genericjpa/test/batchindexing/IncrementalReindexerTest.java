@@ -0,0 +1,150 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.test.batchindexing;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Persistence;
+
+import org.hibernate.search.genericjpa.batchindexing.IncrementalReindexer;
+import org.hibernate.search.genericjpa.batchindexing.ReindexCheckpointStore;
+import org.hibernate.search.genericjpa.test.jpa.entities.Article;
+import org.hibernate.search.standalone.factory.StandaloneSearchFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Martin Braun
+ */
+public class IncrementalReindexerTest {
+
+	private static final String KEY = Article.class.getName();
+
+	private EntityManagerFactory emf;
+	private StandaloneSearchFactory searchFactory;
+	private final List<Integer> updated = new ArrayList<>();
+	private final MapCheckpointStore checkpointStore = new MapCheckpointStore();
+
+	@Before
+	public void setup() {
+		this.emf = Persistence.createEntityManagerFactory( "EclipseLink" );
+		EntityManager em = this.emf.createEntityManager();
+		try {
+			EntityTransaction tx = em.getTransaction();
+			tx.begin();
+			em.createQuery( "DELETE FROM Article a" ).executeUpdate();
+			em.persist( new Article( 1, 10L ) );
+			em.persist( new Article( 2, 20L ) );
+			em.persist( new Article( 3, 20L ) );
+			em.persist( new Article( 4, 30L ) );
+			em.persist( new Article( 5, 40L ) );
+			tx.commit();
+		}
+		finally {
+			em.close();
+		}
+		// only the updates are of interest here
+		this.searchFactory = (StandaloneSearchFactory) Proxy.newProxyInstance( StandaloneSearchFactory.class.getClassLoader(),
+				new Class<?>[] { StandaloneSearchFactory.class }, (proxy, method, args) -> {
+					if ( method.getName().equals( "update" ) ) {
+						for ( Object entity : (Iterable<?>) args[0] ) {
+							this.updated.add( ( (Article) entity ).getId() );
+						}
+					}
+					return null;
+				} );
+	}
+
+	@After
+	public void shutdown() {
+		this.emf.close();
+	}
+
+	@Test
+	public void testCheckpoint() {
+		this.checkpointStore.save( KEY, new ReindexCheckpointStore.Checkpoint( 20L, 2 ) );
+		IncrementalReindexer reindexer = this.reindexer();
+		assertEquals( 3, reindexer.run() );
+		assertEquals( Arrays.asList( 3, 4, 5 ), this.updated );
+		assertEquals( 40L, this.checkpointStore.load( KEY ).getTimestamp() );
+		assertEquals( 5, this.checkpointStore.load( KEY ).getId() );
+
+		this.updated.clear();
+		assertEquals( 0, reindexer.run() );
+	}
+
+	@Test
+	public void testResume() {
+		IncrementalReindexer reindexer = this.reindexer();
+		this.checkpointStore.failOnSave = 2;
+		try {
+			reindexer.run();
+			fail( "the run should have been interrupted" );
+		}
+		catch (IllegalStateException e) {
+			// expected
+		}
+		// the second batch was indexed but its checkpoint wasn't saved
+		assertEquals( Arrays.asList( 1, 2, 3, 4 ), this.updated );
+		assertEquals( 20L, this.checkpointStore.load( KEY ).getTimestamp() );
+
+		this.updated.clear();
+		assertEquals( 3, reindexer.run() );
+		assertEquals( Arrays.asList( 3, 4, 5 ), this.updated );
+	}
+
+	@Test
+	public void testSince() {
+		this.checkpointStore.save( KEY, new ReindexCheckpointStore.Checkpoint( 40L, 5 ) );
+		IncrementalReindexer reindexer = this.reindexer().since( 30L );
+		assertEquals( 2, reindexer.run() );
+		assertEquals( Arrays.asList( 4, 5 ), this.updated );
+
+		// since only applies to one run
+		this.updated.clear();
+		assertEquals( 0, reindexer.run() );
+	}
+
+	private IncrementalReindexer reindexer() {
+		return new IncrementalReindexer( this.searchFactory, this.emf, Article.class, "id", "lastModified", this.checkpointStore ).batchSize( 2 );
+	}
+
+	private static final class MapCheckpointStore implements ReindexCheckpointStore {
+
+		private final Map<String, Checkpoint> checkpoints = new HashMap<>();
+		private int saves = 0;
+		// simulates a crash at the given save
+		int failOnSave = -1;
+
+		@Override
+		public Checkpoint load(String key) {
+			return this.checkpoints.get( key );
+		}
+
+		@Override
+		public void save(String key, Checkpoint checkpoint) {
+			if ( ++this.saves == this.failOnSave ) {
+				throw new IllegalStateException( "crash" );
+			}
+			this.checkpoints.put( key, checkpoint );
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.test.db.events.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.hibernate.search.genericjpa.db.events.EventType;
+import org.hibernate.search.genericjpa.db.events.UpdateConsumer.UpdateInfo;
+import org.hibernate.search.genericjpa.db.events.jpa.EntityListenerUpdateSource;
+import org.hibernate.search.genericjpa.db.events.jpa.JPAEntityListener;
+import org.hibernate.search.genericjpa.test.jpa.entities.Place;
+import org.hibernate.search.genericjpa.test.jpa.entities.Sorcerer;
+import org.junit.Test;
+
+/**
+ * @author Martin Braun
+ */
+public class EntityListenerUpdateSourceTest {
+
+	@Test
+	public void test() throws InterruptedException {
+		EntityManagerFactory emf = Persistence.createEntityManagerFactory( "EclipseLink" );
+		EntityListenerUpdateSource updateSource = new EntityListenerUpdateSource( emf, new HashSet<>( Arrays.asList( Place.class ) ), false );
+		try {
+			List<UpdateInfo> received = Collections.synchronizedList( new ArrayList<>() );
+			CountDownLatch latch = new CountDownLatch( 1 );
+			updateSource.setUpdateConsumers( Arrays.asList( (updateInfos) -> {
+				received.addAll( updateInfos );
+				latch.countDown();
+			} ) );
+			updateSource.start();
+
+			JPAEntityListener listener = new JPAEntityListener();
+
+			// outside of a transaction controlled by a FullTextEntityManager
+			Place uncontrolled = new Place();
+			uncontrolled.setId( 3 );
+			listener.postPersist( uncontrolled );
+
+			updateSource.beginTransaction();
+			Place rolledBack = new Place();
+			rolledBack.setId( 1 );
+			listener.postPersist( rolledBack );
+			updateSource.afterTransactionCompletion( false );
+
+			// a transaction that never reported its end, its changes must not leak into the next one
+			updateSource.beginTransaction();
+			Place leftOver = new Place();
+			leftOver.setId( 4 );
+			listener.postPersist( leftOver );
+
+			updateSource.beginTransaction();
+			Place place = new Place();
+			place.setId( 2 );
+			listener.postPersist( place );
+			listener.postUpdate( place );
+			// not index relevant
+			listener.postPersist( new Sorcerer() );
+			updateSource.afterTransactionCompletion( true );
+
+			assertTrue( "didn't receive the updates in time", latch.await( 10, TimeUnit.SECONDS ) );
+			assertEquals( Arrays.asList( new UpdateInfo( Place.class, 2, EventType.INSERT ), new UpdateInfo( Place.class, 2, EventType.UPDATE ) ),
+					received );
+		}
+		finally {
+			updateSource.stop();
+			emf.close();
+		}
+	}
+
+}
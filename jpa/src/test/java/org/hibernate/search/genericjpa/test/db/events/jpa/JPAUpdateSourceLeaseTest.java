@@ -0,0 +1,70 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.test.db.events.jpa;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Persistence;
+
+import org.hibernate.search.genericjpa.db.events.jpa.JPAUpdateSourceLease;
+import org.junit.Test;
+
+/**
+ * @author Martin Braun
+ */
+public class JPAUpdateSourceLeaseTest {
+
+	@Test
+	public void test() throws SQLException, InterruptedException {
+		EntityManagerFactory emf = Persistence.createEntityManagerFactory( "EclipseLink" );
+		try {
+			JPAUpdateSourceLease first = new JPAUpdateSourceLease( "test_lease", "updates", "first", 1, TimeUnit.SECONDS );
+			JPAUpdateSourceLease second = new JPAUpdateSourceLease( "test_lease", "updates", "second", 1, TimeUnit.SECONDS );
+
+			EntityManager em = emf.createEntityManager();
+			try {
+				EntityTransaction tx = em.getTransaction();
+				tx.begin();
+				java.sql.Connection connection = em.unwrap( java.sql.Connection.class );
+				first.setup( connection );
+				// setting up twice must not fail
+				second.setup( connection );
+				tx.commit();
+
+				assertTrue( this.tryAcquire( em, first ) );
+				assertFalse( "lease was not expired yet", this.tryAcquire( em, second ) );
+				assertTrue( "renewing the lease should work", this.tryAcquire( em, first ) );
+
+				Thread.sleep( 2500 );
+				assertTrue( "lease should have expired", this.tryAcquire( em, second ) );
+				assertFalse( this.tryAcquire( em, first ) );
+			}
+			finally {
+				em.close();
+			}
+		}
+		finally {
+			emf.close();
+		}
+	}
+
+	private boolean tryAcquire(EntityManager em, JPAUpdateSourceLease lease) {
+		EntityTransaction tx = em.getTransaction();
+		tx.begin();
+		boolean ret = lease.tryAcquire( em );
+		tx.commit();
+		return ret;
+	}
+
+}
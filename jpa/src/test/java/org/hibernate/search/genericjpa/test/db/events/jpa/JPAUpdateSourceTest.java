@@ -7,12 +7,15 @@
 package org.hibernate.search.genericjpa.test.db.events.jpa;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.HashSet;
 import java.util.List;
 import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -82,9 +85,11 @@ public class JPAUpdateSourceTest {
 					}
 				}
 			} ) );
+			updateSource.setMaxTimeOut( 2 );
 			updateSource.start();
 			Thread.sleep( 1000 * 3 );
 			updateSource.stop();
+			assertEquals( "the last poll should not have found any updates anymore", 0, updateSource.getBacklog() );
 			for ( boolean ev : gotEvent ) {
 				if ( !ev ) {
 					fail( "didn't get all events that were expected" );
@@ -112,6 +117,107 @@ public class JPAUpdateSourceTest {
 		}
 	}
 
+	@Test
+	public void testPipeline() throws InterruptedException {
+		EntityManagerFactory emf = Persistence.createEntityManagerFactory( "EclipseLink" );
+		try {
+			this.insertPlaceUpdates( emf, 3 );
+			JPAUpdateSource updateSource = new JPAUpdateSource( new EventModelParser().parse( new HashSet<>( Arrays.asList( PlaceUpdates.class ) ) ), emf,
+					false, 1, TimeUnit.SECONDS, 10, 10 );
+			updateSource.setPipelineDepth( 2 );
+			CountDownLatch consuming = new CountDownLatch( 1 );
+			CountDownLatch release = new CountDownLatch( 1 );
+			updateSource.setUpdateConsumers( Arrays.asList( (updateInfos) -> {
+				consuming.countDown();
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					throw new RuntimeException( e );
+				}
+			} ) );
+			updateSource.start();
+			try {
+				assertTrue( "the consumer wasn't called in time", consuming.await( 10, TimeUnit.SECONDS ) );
+				assertEquals( "entries must not be removed before they were consumed", 3, this.countPlaceUpdates( emf ) );
+				release.countDown();
+				long deadline = System.currentTimeMillis() + 10000;
+				while ( this.countPlaceUpdates( emf ) > 0 && System.currentTimeMillis() < deadline ) {
+					Thread.sleep( 100 );
+				}
+				assertEquals( "entries should be removed once they were consumed", 0, this.countPlaceUpdates( emf ) );
+			}
+			finally {
+				release.countDown();
+				updateSource.stop();
+			}
+		}
+		finally {
+			emf.close();
+		}
+	}
+
+	@Test
+	public void testPipelineFailure() throws InterruptedException {
+		EntityManagerFactory emf = Persistence.createEntityManagerFactory( "EclipseLink" );
+		try {
+			this.insertPlaceUpdates( emf, 3 );
+			JPAUpdateSource updateSource = new JPAUpdateSource( new EventModelParser().parse( new HashSet<>( Arrays.asList( PlaceUpdates.class ) ) ), emf,
+					false, 1, TimeUnit.SECONDS, 10, 10 );
+			updateSource.setPipelineDepth( 2 );
+			AtomicInteger attempts = new AtomicInteger();
+			updateSource.setUpdateConsumers( Arrays.asList( (updateInfos) -> {
+				attempts.incrementAndGet();
+				throw new RuntimeException( "expected failure" );
+			} ) );
+			updateSource.start();
+			try {
+				// the failed poll is aborted and retried
+				long deadline = System.currentTimeMillis() + 10000;
+				while ( attempts.get() < 2 && System.currentTimeMillis() < deadline ) {
+					Thread.sleep( 100 );
+				}
+				assertTrue( "the failed updates were not retried", attempts.get() >= 2 );
+			}
+			finally {
+				updateSource.stop();
+			}
+			assertEquals( "entries must stay in the database if the consumer failed", 3, this.countPlaceUpdates( emf ) );
+		}
+		finally {
+			emf.close();
+		}
+	}
+
+	private void insertPlaceUpdates(EntityManagerFactory emf, int count) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			EntityTransaction tx = em.getTransaction();
+			tx.begin();
+			for ( int i = 1; i <= count; ++i ) {
+				PlaceUpdates update = new PlaceUpdates();
+				update.setId( i );
+				update.setPlaceId( i );
+				update.setEventType( EventType.UPDATE );
+				em.persist( update );
+			}
+			tx.commit();
+		}
+		finally {
+			em.close();
+		}
+	}
+
+	private long countPlaceUpdates(EntityManagerFactory emf) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return (Long) em.createQuery( "SELECT COUNT(a) FROM PlaceUpdates a" ).getSingleResult();
+		}
+		finally {
+			em.close();
+		}
+	}
+
 	/**
 	 * this is needed in other tests because the query method of JPAUpdateSource has package access
 	 */
@@ -7,24 +7,33 @@
 package org.hibernate.search.genericjpa.test.db.events.jpa;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 
+import org.hibernate.search.genericjpa.db.events.EventModelInfo;
 import org.hibernate.search.genericjpa.db.events.EventType;
+import org.hibernate.search.genericjpa.db.events.MySQLTriggerSQLStringSource;
+import org.hibernate.search.genericjpa.db.events.TriggerSetup;
 import org.hibernate.search.genericjpa.db.events.UpdateConsumer;
 import org.hibernate.search.genericjpa.db.events.jpa.JPAUpdateSource;
 import org.hibernate.search.genericjpa.test.jpa.entities.Place;
 import org.hibernate.search.genericjpa.test.jpa.entities.PlaceSorcererUpdates;
 import org.hibernate.search.genericjpa.test.jpa.entities.PlaceUpdates;
 import org.hibernate.search.genericjpa.test.jpa.entities.Sorcerer;
+import org.hibernate.search.genericjpa.test.jpa.entities.SorcererUpdates;
 import org.junit.Test;
 
 /**
@@ -111,4 +120,88 @@ public class MySQLTriggerIntegrationTest extends DatabaseIntegrationTest {
 			this.tearDownTriggers();
 		}
 	}
+
+	@Test
+	public void testTriggersRecreatedAfterSchemaRegeneration() throws SQLException {
+		this.setup( "EclipseLink_MySQL" );
+		MySQLTriggerSQLStringSource triggerSource = new MySQLTriggerSQLStringSource();
+		List<EventModelInfo> infos = parser.parse( new HashSet<>( Arrays.asList( PlaceSorcererUpdates.class, PlaceUpdates.class, SorcererUpdates.class ) ) );
+		try {
+			this.setupTriggers( triggerSource, infos );
+			this.assertTriggersExist( triggerSource, infos );
+
+			// drop-and-create-tables drops all the triggers with the tables, but the checksums are still there
+			this.emf.close();
+			this.setup( "EclipseLink_MySQL" );
+
+			this.setupTriggers( triggerSource, infos );
+			this.assertTriggersExist( triggerSource, infos );
+		}
+		finally {
+			EntityManager em = this.emf.createEntityManager();
+			try {
+				EntityTransaction tx = em.getTransaction();
+				tx.begin();
+				java.sql.Connection connection = em.unwrap( java.sql.Connection.class );
+				try (Statement statement = connection.createStatement()) {
+					for ( EventModelInfo info : infos ) {
+						for ( String sql : triggerSource.getSpecificUnSetupCode( info ) ) {
+							statement.execute( connection.nativeSQL( sql ) );
+						}
+						for ( int eventType : EventType.values() ) {
+							for ( String sql : triggerSource.getTriggerDropCode( info, eventType ) ) {
+								statement.execute( connection.nativeSQL( sql ) );
+							}
+						}
+					}
+				}
+				tx.commit();
+			}
+			finally {
+				em.close();
+			}
+		}
+	}
+
+	private void setupTriggers(MySQLTriggerSQLStringSource triggerSource, List<EventModelInfo> infos) throws SQLException {
+		EntityManager em = this.emf.createEntityManager();
+		try {
+			EntityTransaction tx = em.getTransaction();
+			tx.begin();
+			java.sql.Connection connection = em.unwrap( java.sql.Connection.class );
+			connection.setAutoCommit( false );
+			TriggerSetup.setup( connection, triggerSource, infos );
+			tx.commit();
+		}
+		finally {
+			em.close();
+		}
+	}
+
+	private void assertTriggersExist(MySQLTriggerSQLStringSource triggerSource, List<EventModelInfo> infos) throws SQLException {
+		EntityManager em = this.emf.createEntityManager();
+		try {
+			EntityTransaction tx = em.getTransaction();
+			tx.begin();
+			java.sql.Connection connection = em.unwrap( java.sql.Connection.class );
+			Set<String> existing = new HashSet<>();
+			try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery( triggerSource.getExistingTriggersQuery() )) {
+				while ( resultSet.next() ) {
+					existing.add( resultSet.getString( 1 ).toUpperCase() );
+				}
+			}
+			tx.commit();
+			List<String> expected = new ArrayList<>();
+			for ( EventModelInfo info : infos ) {
+				for ( String triggerName : triggerSource.getTriggerNames( info ) ) {
+					expected.add( triggerName.toUpperCase() );
+				}
+			}
+			assertTrue( "missing triggers, expected: " + expected + ", found: " + existing, existing.containsAll( expected ) );
+		}
+		finally {
+			em.close();
+		}
+	}
+
 }
@@ -7,6 +7,7 @@
 package org.hibernate.search.genericjpa.test.jpa;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -14,6 +15,8 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -22,6 +25,9 @@ import javax.persistence.Persistence;
 
 import org.apache.lucene.search.Query;
 import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.hibernate.search.genericjpa.batchindexing.MassIndexer;
+import org.hibernate.search.genericjpa.batchindexing.MassIndexerImpl;
+import org.hibernate.search.genericjpa.batchindexing.MassIndexerProgressMonitor;
 import org.hibernate.search.genericjpa.entity.EntityManagerEntityProvider;
 import org.hibernate.search.genericjpa.test.db.events.jpa.MetaModelParser;
 import org.hibernate.search.genericjpa.test.jpa.entities.AdditionalPlace;
@@ -35,6 +41,8 @@ import org.hibernate.search.standalone.factory.SearchConfigurationImpl;
 import org.hibernate.search.standalone.factory.StandaloneSearchFactory;
 import org.hibernate.search.standalone.factory.StandaloneSearchFactoryFactory;
 import org.hibernate.search.standalone.query.HSearchQuery;
+import org.hibernate.search.standalone.query.QueryPage;
+import org.hibernate.search.standalone.query.SearchAfterToken;
 import org.hibernate.search.standalone.query.HSearchQuery.Fetch;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
@@ -197,6 +205,66 @@ public class IntegrationTest {
 					assertEquals( 2, places.size() );
 				}
 
+				// TEST ASYNC QUERYING
+				{
+					QueryBuilder qb = searchFactory.buildQueryBuilder().forEntity( Place.class ).get();
+					Query query = qb.bool().should( qb.keyword().onField( "sorcerers.name" ).matching( "saruman" ).createQuery() )
+							.should( qb.keyword().onField( "sorcerers.name" ).matching( "gandalf" ).createQuery() ).createQuery();
+					HSearchQuery jpaQuery = searchFactory.createQuery( query, Place.class );
+					@SuppressWarnings("unchecked")
+					List<Place> places = jpaQuery.queryAsync( entityProvider, Fetch.BATCH, ForkJoinPool.commonPool(), ForkJoinPool.commonPool() ).join();
+					assertEquals( 2, places.size() );
+					assertEquals( Integer.valueOf( 2 ), searchFactory.createQuery( query, Place.class ).queryResultSizeAsync( ForkJoinPool.commonPool() ).join() );
+				}
+
+				// TEST PAGES
+				{
+					QueryBuilder qb = searchFactory.buildQueryBuilder().forEntity( Place.class ).get();
+					Query query = qb.bool().should( qb.keyword().onField( "sorcerers.name" ).matching( "saruman" ).createQuery() )
+							.should( qb.keyword().onField( "sorcerers.name" ).matching( "gandalf" ).createQuery() ).createQuery();
+					QueryPage<Place> page = searchFactory.createQuery( query, Place.class ).maxResults( 1 ).queryPage( entityProvider, Fetch.BATCH );
+					assertEquals( 1, page.getResults().size() );
+					assertEquals( 2, page.getTotalHits() );
+					assertTrue( page.isTotalExact() );
+
+					// walk through the same hits with searchAfter
+					HSearchQuery cursorQuery = searchFactory.createQuery( query, Place.class ).maxResults( 1 );
+					Set<Integer> ids = new HashSet<>();
+					SearchAfterToken token = SearchAfterToken.START;
+					while ( token != null ) {
+						QueryPage<Place> cursorPage = cursorQuery.searchAfter( token ).queryPage( entityProvider, Fetch.BATCH );
+						for ( Place place : cursorPage.getResults() ) {
+							assertTrue( "found twice: " + place.getId(), ids.add( place.getId() ) );
+						}
+						token = cursorPage.getNextToken();
+					}
+					assertEquals( 2, ids.size() );
+				}
+
+				// TEST MASS INDEXING
+				{
+					Query all = searchFactory.buildQueryBuilder().forEntity( Place.class ).get().all().createQuery();
+					int placeCount = searchFactory.createQuery( all, Place.class ).queryResultSize();
+					AtomicLong added = new AtomicLong();
+					MassIndexer massIndexer = new MassIndexerImpl( searchFactory, this.emf, parser.getIdProperties(), Arrays.asList( Place.class ) )
+							.batchSizeToLoadObjects( 1 ).progressMonitor( new MassIndexerProgressMonitor() {
+
+								@Override
+								public void documentsAdded(long count) {
+									added.addAndGet( count );
+								}
+
+							} );
+					try {
+						massIndexer.startAndWait();
+					}
+					catch (InterruptedException e) {
+						throw new RuntimeException( e );
+					}
+					assertEquals( placeCount, added.get() );
+					assertEquals( placeCount, searchFactory.createQuery( all, Place.class ).queryResultSize() );
+				}
+
 				// check whether we not just returned everything in the test
 				// before
 				// :D
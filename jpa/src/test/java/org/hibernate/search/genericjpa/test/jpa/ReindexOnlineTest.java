@@ -0,0 +1,228 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.genericjpa.test.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Persistence;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.hibernate.search.genericjpa.JPASearchFactory;
+import org.hibernate.search.genericjpa.db.events.UpdateSource;
+import org.hibernate.search.genericjpa.test.jpa.entities.Place;
+import org.hibernate.search.standalone.factory.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Martin Braun
+ */
+public class ReindexOnlineTest {
+
+	private static final Path INDEX_DIR = Paths.get( "target/reindexOnlineTest" );
+
+	private EntityManagerFactory emf;
+	private Integer helmsDeepId;
+	private Integer valinorId;
+
+	@Before
+	public void setup() throws IOException {
+		if ( Files.exists( INDEX_DIR ) ) {
+			try (Stream<Path> paths = Files.walk( INDEX_DIR )) {
+				paths.sorted( Comparator.reverseOrder() ).forEach( (path) -> path.toFile().delete() );
+			}
+		}
+		this.emf = Persistence.createEntityManagerFactory( "EclipseLink" );
+		EntityManager em = this.emf.createEntityManager();
+		try {
+			EntityTransaction tx = em.getTransaction();
+			tx.begin();
+			@SuppressWarnings("unchecked")
+			List<Place> toDelete = new ArrayList<>( em.createQuery( "SELECT a FROM Place a" ).getResultList() );
+			for ( Place place : toDelete ) {
+				em.remove( place );
+			}
+			em.flush();
+
+			Place helmsDeep = new Place();
+			helmsDeep.setName( "Helm's Deep" );
+			em.persist( helmsDeep );
+
+			Place valinor = new Place();
+			valinor.setName( "Valinor" );
+			em.persist( valinor );
+
+			em.flush();
+			tx.commit();
+			this.helmsDeepId = helmsDeep.getId();
+			this.valinorId = valinor.getId();
+		}
+		finally {
+			em.close();
+		}
+	}
+
+	@After
+	public void shutdown() {
+		this.emf.close();
+	}
+
+	@Test
+	public void test() throws Exception {
+		TestSearchFactory searchFactory = new TestSearchFactory( this.emf );
+		searchFactory.init();
+		searchFactory.createMassIndexer().startAndWait();
+		assertEquals( 2, this.count( searchFactory ) );
+
+		// a query that was started on the old index but is still running when it is replaced
+		CountDownLatch queryLatch = new CountDownLatch( 1 );
+		Executor blockedExecutor = (command) -> new Thread( () -> {
+			try {
+				queryLatch.await();
+			}
+			catch (InterruptedException e) {
+				throw new RuntimeException( e );
+			}
+			command.run();
+		} ).start();
+		CompletableFuture<Integer> runningQuery = searchFactory.createQuery( new MatchAllDocsQuery(), Place.class ).queryResultSizeAsync(
+				blockedExecutor );
+
+		Transaction openTransaction = new Transaction();
+		searchFactory.reindexOnline( (massIndexer) -> {
+			// these writes happen while the new index is built and have to be replayed on it
+			searchFactory.purge( Place.class, this.valinorId );
+			searchFactory.purge( Place.class, this.helmsDeepId, openTransaction );
+		} );
+		// the switch doesn't wait for the old index, but doesn't close it under the running query either
+		queryLatch.countDown();
+		assertEquals( 1, (int) runningQuery.get() );
+
+		// the purge was replayed on the new index although the entity is still in the database
+		assertEquals( 1, this.count( searchFactory ) );
+		// the write of the transaction that was open during the switch is replayed once it commits
+		openTransaction.commit();
+		assertEquals( 0, this.count( searchFactory ) );
+
+		Place mordor = new Place();
+		mordor.setId( this.valinorId + 1000 );
+		mordor.setName( "Mordor" );
+		searchFactory.index( mordor );
+		assertEquals( 1, this.count( searchFactory ) );
+		searchFactory.close();
+
+		// a restart uses the new index
+		TestSearchFactory restarted = new TestSearchFactory( this.emf );
+		restarted.init();
+		try {
+			assertEquals( 1, this.count( restarted ) );
+		}
+		finally {
+			restarted.close();
+		}
+		assertTrue( Files.exists( Paths.get( "target/reindexOnlineTest/index.current" ) ) );
+		assertFalse( Files.exists( Paths.get( "target/reindexOnlineTest/index.current.tmp" ) ) );
+	}
+
+	private int count(JPASearchFactory searchFactory) {
+		return searchFactory.createQuery( new MatchAllDocsQuery(), Place.class ).queryResultSize();
+	}
+
+	private static final class TestSearchFactory extends JPASearchFactory {
+
+		private final EntityManagerFactory emf;
+
+		TestSearchFactory(EntityManagerFactory emf) {
+			this.emf = emf;
+		}
+
+		@Override
+		public void updateEvent(List<UpdateInfo> updateInfo) {
+
+		}
+
+		@Override
+		protected EntityManagerFactory getEmf() {
+			return this.emf;
+		}
+
+		@Override
+		protected String getConfigFile() {
+			return "/hsearch-reindex-online.properties";
+		}
+
+		@Override
+		protected List<Class<?>> getIndexRootTypes() {
+			return Collections.singletonList( Place.class );
+		}
+
+		@Override
+		protected List<Class<?>> getUpdateClasses() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		protected TimeUnit getDelayUnit() {
+			return TimeUnit.MILLISECONDS;
+		}
+
+		@Override
+		protected long getDelay() {
+			return 100;
+		}
+
+		@Override
+		protected int getBatchSizeForUpdates() {
+			return 10;
+		}
+
+		@Override
+		protected Connection getConnectionForSetup(EntityManager em) {
+			return null;
+		}
+
+		@Override
+		protected ScheduledExecutorService getExecutorServiceForUpdater() {
+			return null;
+		}
+
+		@Override
+		protected boolean isUseJTATransaction() {
+			return false;
+		}
+
+		@Override
+		protected UpdateSource getUpdateSource() {
+			// only manual writes in this test
+			return null;
+		}
+
+	}
+
+}
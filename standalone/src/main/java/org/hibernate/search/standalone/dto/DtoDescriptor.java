@@ -7,10 +7,17 @@
 package org.hibernate.search.standalone.dto;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.hibernate.search.standalone.dto.annotations.DtoField;
 
@@ -51,18 +58,44 @@ public interface DtoDescriptor {
 		private final Class<?> dtoClass;
 		private final Class<?> entityClass;
 		private final Map<String, Set<FieldDescription>> fieldNamesForProfile;
+		private final Map<String, ConstructorDescription> constructorForProfile;
+		// not part of equals/hashCode, these are derived from the other fields
+		private final ConcurrentMap<String, DtoMapper<?>> mappers = new ConcurrentHashMap<>();
 
 		public DtoDescription(Class<?> dtoClass, Class<?> entityClass, Map<String, Set<FieldDescription>> fieldNamesForProfile) {
+			this( dtoClass, entityClass, fieldNamesForProfile, Collections.emptyMap() );
+		}
+
+		public DtoDescription(Class<?> dtoClass, Class<?> entityClass, Map<String, Set<FieldDescription>> fieldNamesForProfile,
+				Map<String, ConstructorDescription> constructorForProfile) {
 			super();
 			this.dtoClass = dtoClass;
 			this.entityClass = entityClass;
 			this.fieldNamesForProfile = fieldNamesForProfile;
+			this.constructorForProfile = constructorForProfile;
 		}
 
 		public Set<FieldDescription> getFieldDescriptionsForProfile(String profile) {
 			return Collections.unmodifiableSet( this.fieldNamesForProfile.getOrDefault( profile, Collections.emptySet() ) );
 		}
 
+		/**
+		 * @return the constructor the DTOs of the given profile are created with or null if they are created with the
+		 * no-arg constructor and filled via {@link #getFieldDescriptionsForProfile(String)}
+		 */
+		public ConstructorDescription getConstructorDescriptionForProfile(String profile) {
+			return this.constructorForProfile.get( profile );
+		}
+
+		/**
+		 * @return the names of all profiles that have at least one field or constructor
+		 */
+		public Set<String> getProfiles() {
+			Set<String> profiles = new HashSet<>( this.fieldNamesForProfile.keySet() );
+			profiles.addAll( this.constructorForProfile.keySet() );
+			return Collections.unmodifiableSet( profiles );
+		}
+
 		public Class<?> getEntityClass() {
 			return this.entityClass;
 		}
@@ -71,15 +104,33 @@ public interface DtoDescriptor {
 			return this.dtoClass;
 		}
 
+		/**
+		 * @return the mapper for the given profile. It is created on first use and cached afterwards
+		 */
+		@SuppressWarnings("unchecked")
+		public <T> DtoMapper<T> getMapper(String profile) {
+			return (DtoMapper<T>) this.mappers.computeIfAbsent( profile, (key) -> DtoMapper.create( this, key ) );
+		}
+
 		public static class FieldDescription {
 
 			private final String fieldName;
 			private final java.lang.reflect.Field field;
+			private final boolean fromDatabase;
 
 			public FieldDescription(String fieldName, Field field) {
+				this( fieldName, field, false );
+			}
+
+			/**
+			 * @param fromDatabase whether fieldName is an entity property to load from the database instead of a field
+			 * to project from the index
+			 */
+			public FieldDescription(String fieldName, Field field, boolean fromDatabase) {
 				super();
 				this.fieldName = fieldName;
 				this.field = field;
+				this.fromDatabase = fromDatabase;
 			}
 
 			public String getFieldName() {
@@ -90,6 +141,10 @@ public interface DtoDescriptor {
 				return field;
 			}
 
+			public boolean isFromDatabase() {
+				return fromDatabase;
+			}
+
 			@Override
 			public int hashCode() {
 				final int prime = 31;
@@ -132,12 +187,72 @@ public interface DtoDescriptor {
 
 		}
 
+		public static class ConstructorDescription {
+
+			private final Constructor<?> constructor;
+			private final List<String> fieldNames;
+			private final List<Boolean> fromDatabase;
+
+			/**
+			 * @param fieldNames the fields to project from, in the order of the parameters
+			 */
+			public ConstructorDescription(Constructor<?> constructor, List<String> fieldNames) {
+				this( constructor, fieldNames, Collections.nCopies( fieldNames.size(), false ) );
+			}
+
+			/**
+			 * @param fromDatabase for every parameter whether its field name is an entity property to load from the
+			 * database instead of a field to project from the index
+			 */
+			public ConstructorDescription(Constructor<?> constructor, List<String> fieldNames, List<Boolean> fromDatabase) {
+				super();
+				if ( fieldNames.size() != fromDatabase.size() ) {
+					throw new IllegalArgumentException( "fieldNames and fromDatabase must have the same size" );
+				}
+				this.constructor = constructor;
+				this.fieldNames = Collections.unmodifiableList( new ArrayList<>( fieldNames ) );
+				this.fromDatabase = Collections.unmodifiableList( new ArrayList<>( fromDatabase ) );
+			}
+
+			public Constructor<?> getConstructor() {
+				return this.constructor;
+			}
+
+			public List<String> getFieldNames() {
+				return this.fieldNames;
+			}
+
+			public List<Boolean> getFromDatabase() {
+				return this.fromDatabase;
+			}
+
+			@Override
+			public int hashCode() {
+				return Objects.hash( this.constructor, this.fieldNames, this.fromDatabase );
+			}
+
+			@Override
+			public boolean equals(Object obj) {
+				if ( this == obj ) {
+					return true;
+				}
+				if ( obj == null || getClass() != obj.getClass() ) {
+					return false;
+				}
+				ConstructorDescription other = (ConstructorDescription) obj;
+				return Objects.equals( this.constructor, other.constructor ) && Objects.equals( this.fieldNames, other.fieldNames )
+						&& Objects.equals( this.fromDatabase, other.fromDatabase );
+			}
+
+		}
+
 		@Override
 		public int hashCode() {
 			final int prime = 31;
 			int result = 1;
 			result = prime * result + ( ( entityClass == null ) ? 0 : entityClass.hashCode() );
 			result = prime * result + ( ( fieldNamesForProfile == null ) ? 0 : fieldNamesForProfile.hashCode() );
+			result = prime * result + ( ( constructorForProfile == null ) ? 0 : constructorForProfile.hashCode() );
 			return result;
 		}
 
@@ -169,6 +284,9 @@ public interface DtoDescriptor {
 			else if ( !fieldNamesForProfile.equals( other.fieldNamesForProfile ) ) {
 				return false;
 			}
+			if ( !Objects.equals( constructorForProfile, other.constructorForProfile ) ) {
+				return false;
+			}
 			return true;
 		}
 
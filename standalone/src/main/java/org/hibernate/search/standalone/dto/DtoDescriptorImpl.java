@@ -6,6 +6,8 @@
  */
 package org.hibernate.search.standalone.dto;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Parameter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -14,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.hibernate.search.standalone.dto.DtoDescriptor.DtoDescription.ConstructorDescription;
 import org.hibernate.search.standalone.dto.DtoDescriptor.DtoDescription.FieldDescription;
 import org.hibernate.search.standalone.dto.annotations.DtoField;
 import org.hibernate.search.standalone.dto.annotations.DtoFields;
@@ -58,17 +61,97 @@ public class DtoDescriptorImpl implements DtoDescriptor {
 					Set<FieldDescription> fieldDescriptions = fieldDescriptionsForProfile.computeIfAbsent( profileName, (key) -> {
 						return new HashSet<>();
 					} );
-					FieldDescription fieldDesc = new FieldDescription( fieldName, field );
+					FieldDescription fieldDesc = new FieldDescription( fieldName, field, annotation.fromDatabase() );
 					if ( fieldDescriptions.contains( fieldDesc ) ) {
 						throw new IllegalArgumentException( "profile " + profileName + " already has a field to project from for " + field );
 					}
 					fieldDescriptions.add( fieldDesc );
 				} );
 			} );
-		if ( fieldDescriptionsForProfile.isEmpty() ) {
+		Map<String, ConstructorDescription> constructorForProfile = this.getConstructorDescriptions( clazz );
+		for ( Map.Entry<String, ConstructorDescription> entry : constructorForProfile.entrySet() ) {
+			Set<FieldDescription> fieldDescriptions = fieldDescriptionsForProfile.get( entry.getKey() );
+			if ( fieldDescriptions == null ) {
+				continue;
+			}
+			if ( !mirrors( fieldDescriptions, entry.getValue() ) ) {
+				throw new IllegalArgumentException( "profile " + entry.getKey() + " uses both annotated fields and an annotated constructor" );
+			}
+			// the annotations of record components end up on both the fields and the
+			// parameters of the canonical constructor, the constructor is used then
+			fieldDescriptionsForProfile.remove( entry.getKey() );
+		}
+		if ( fieldDescriptionsForProfile.isEmpty() && constructorForProfile.isEmpty() ) {
 			throw new IllegalArgumentException( "no DtoField(s) found! The passed class is no annotated DTO" );
 		}
-		return new DtoDescription( clazz, dtoOverEntity[0].entityClass(), fieldDescriptionsForProfile );
+		return new DtoDescription( clazz, dtoOverEntity[0].entityClass(), fieldDescriptionsForProfile, constructorForProfile );
+	}
+
+	/**
+	 * @return true if the annotated fields describe exactly the parameters of the constructor (same field names, types
+	 * and fromDatabase), like they do for records
+	 */
+	private static boolean mirrors(Set<FieldDescription> fieldDescriptions, ConstructorDescription constructorDescription) {
+		List<String> fieldNames = constructorDescription.getFieldNames();
+		if ( fieldDescriptions.size() != fieldNames.size() ) {
+			return false;
+		}
+		Class<?>[] parameterTypes = constructorDescription.getConstructor().getParameterTypes();
+		for ( FieldDescription fieldDescription : fieldDescriptions ) {
+			int index = fieldNames.indexOf( fieldDescription.getFieldName() );
+			if ( index == -1 || !parameterTypes[index].equals( fieldDescription.getField().getType() )
+					|| constructorDescription.getFromDatabase().get( index ) != fieldDescription.isFromDatabase() ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Map<String, ConstructorDescription> getConstructorDescriptions(Class<?> clazz) {
+		Map<String, ConstructorDescription> constructorForProfile = new HashMap<>();
+		for ( Constructor<?> constructor : clazz.getDeclaredConstructors() ) {
+			Parameter[] parameters = constructor.getParameters();
+			Map<String, String[]> fieldNamesForProfile = new HashMap<>();
+			Map<String, Boolean[]> fromDatabaseForProfile = new HashMap<>();
+			for ( int i = 0; i < parameters.length; ++i ) {
+				Parameter parameter = parameters[i];
+				for ( DtoField annotation : parameter.getAnnotationsByType( DtoField.class ) ) {
+					String profileName = annotation.profileName();
+					String fieldName = annotation.fieldName();
+					if ( fieldName.equals( DtoDescription.DEFAULT_FIELD_NAME ) ) {
+						if ( !parameter.isNamePresent() ) {
+							throw new IllegalArgumentException( "the name of " + parameter + " of " + constructor
+									+ " is not available, specify the fieldName or compile with -parameters" );
+						}
+						fieldName = parameter.getName();
+					}
+					String[] fieldNames = fieldNamesForProfile.computeIfAbsent( profileName, (key) -> {
+						return new String[parameters.length];
+					} );
+					if ( fieldNames[i] != null ) {
+						throw new IllegalArgumentException( "profile " + profileName + " already has a field to project from for " + parameter + " of "
+								+ constructor );
+					}
+					fieldNames[i] = fieldName;
+					fromDatabaseForProfile.computeIfAbsent( profileName, (key) -> {
+						return new Boolean[parameters.length];
+					} )[i] = annotation.fromDatabase();
+				}
+			}
+			for ( Map.Entry<String, String[]> entry : fieldNamesForProfile.entrySet() ) {
+				if ( Arrays.asList( entry.getValue() ).contains( null ) ) {
+					throw new IllegalArgumentException( "every parameter of " + constructor + " needs a DtoField for profile " + entry.getKey() );
+				}
+				if ( constructorForProfile.containsKey( entry.getKey() ) ) {
+					throw new IllegalArgumentException( "profile " + entry.getKey() + " has more than one annotated constructor in " + clazz );
+				}
+				// should be accessible :)
+				constructor.setAccessible( true );
+				constructorForProfile.put( entry.getKey(), new ConstructorDescription( constructor, Arrays.asList( entry.getValue() ),
+						Arrays.asList( fromDatabaseForProfile.get( entry.getKey() ) ) ) );
+			}
+		}
+		return constructorForProfile;
 	}
 
 }
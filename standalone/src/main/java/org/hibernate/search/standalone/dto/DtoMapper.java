@@ -0,0 +1,180 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.dto;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.search.standalone.dto.DtoDescriptor.DtoDescription;
+import org.hibernate.search.standalone.dto.DtoDescriptor.DtoDescription.ConstructorDescription;
+import org.hibernate.search.standalone.dto.DtoDescriptor.DtoDescription.FieldDescription;
+
+/**
+ * converts the projected values of one hit into a DTO of one profile. The projection and the MethodHandles for the
+ * constructor and the fields are resolved once when the mapper is created, so mapping a hit doesn't need any
+ * reflection. DTOs with an annotated constructor are created with a single call of that constructor that gets the
+ * projected values as arguments. Instances are immutable and thread-safe. <br>
+ * <br>
+ * If the profile has fields that are loaded from the database (see {@link #hasDatabaseProperties()}), the values
+ * from the index and the ones from the database have to be passed to {@link #map(Object[], Object[])}.
+ *
+ * @author Martin Braun
+ */
+public final class DtoMapper<T> {
+
+	private static final MethodType INSTANTIATOR_TYPE = MethodType.methodType( Object.class, Object[].class );
+	private static final MethodType SETTER_TYPE = MethodType.methodType( void.class, Object.class, Object.class );
+
+	private final Class<T> dtoClass;
+	// the values of a DTO are ordered by "slots" (the fields/constructor parameters)
+	private final String[] projection;
+	private final int[] projectionSlots;
+	private final String[] databaseProperties;
+	private final int[] databaseSlots;
+	// (Object[])Object, gets the values of all slots
+	private final MethodHandle instantiator;
+	private final MethodHandle[] setters;
+
+	private DtoMapper(Class<T> dtoClass, List<String> names, List<Boolean> fromDatabase, MethodHandle instantiator, MethodHandle[] setters) {
+		this.dtoClass = dtoClass;
+		List<String> projection = new ArrayList<>();
+		List<Integer> projectionSlots = new ArrayList<>();
+		List<String> databaseProperties = new ArrayList<>();
+		List<Integer> databaseSlots = new ArrayList<>();
+		for ( int slot = 0; slot < names.size(); ++slot ) {
+			if ( fromDatabase.get( slot ) ) {
+				databaseProperties.add( names.get( slot ) );
+				databaseSlots.add( slot );
+			}
+			else {
+				projection.add( names.get( slot ) );
+				projectionSlots.add( slot );
+			}
+		}
+		this.projection = projection.toArray( new String[0] );
+		this.projectionSlots = projectionSlots.stream().mapToInt( Integer::intValue ).toArray();
+		this.databaseProperties = databaseProperties.toArray( new String[0] );
+		this.databaseSlots = databaseSlots.stream().mapToInt( Integer::intValue ).toArray();
+		this.instantiator = instantiator;
+		this.setters = setters;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> DtoMapper<T> create(DtoDescription description, String profile) {
+		Class<T> dtoClass = (Class<T>) description.getDtoClass();
+		ConstructorDescription constructorDescription = description.getConstructorDescriptionForProfile( profile );
+		if ( constructorDescription != null ) {
+			Constructor<?> constructor = constructorDescription.getConstructor();
+			try {
+				// the constructor was made accessible by the DtoDescriptor
+				MethodHandle instantiator = MethodHandles.lookup().unreflectConstructor( constructor )
+						.asSpreader( Object[].class, constructor.getParameterCount() ).asType( INSTANTIATOR_TYPE );
+				return new DtoMapper<>( dtoClass, constructorDescription.getFieldNames(), constructorDescription.getFromDatabase(), instantiator,
+						new MethodHandle[0] );
+			}
+			catch (IllegalAccessException e) {
+				throw new IllegalArgumentException( constructor + " is not accessible", e );
+			}
+		}
+		Set<FieldDescription> fieldDescriptions = description.getFieldDescriptionsForProfile( profile );
+		List<String> names = new ArrayList<>( fieldDescriptions.size() );
+		List<Boolean> fromDatabase = new ArrayList<>( fieldDescriptions.size() );
+		MethodHandle[] setters = new MethodHandle[fieldDescriptions.size()];
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			Constructor<T> constructor = dtoClass.getDeclaredConstructor();
+			constructor.setAccessible( true );
+			for ( FieldDescription fd : fieldDescriptions ) {
+				// the fields were made accessible by the DtoDescriptor
+				setters[names.size()] = lookup.unreflectSetter( fd.getField() ).asType( SETTER_TYPE );
+				names.add( fd.getFieldName() );
+				fromDatabase.add( fd.isFromDatabase() );
+			}
+			MethodHandle instantiator = MethodHandles.dropArguments( lookup.unreflectConstructor( constructor ), 0, Object[].class ).asType(
+					INSTANTIATOR_TYPE );
+			return new DtoMapper<>( dtoClass, names, fromDatabase, instantiator, setters );
+		}
+		catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalArgumentException( dtoClass + " needs an accessible no-arg constructor and non-final DtoFields", e );
+		}
+	}
+
+	public Class<T> getDtoClass() {
+		return this.dtoClass;
+	}
+
+	/**
+	 * @return the fields to project from the index in the order {@link #map(Object[])} expects them
+	 */
+	public String[] getProjection() {
+		return this.projection.clone();
+	}
+
+	/**
+	 * @return the entity properties to load from the database in the order {@link #map(Object[], Object[])} expects
+	 * them
+	 */
+	public List<String> getDatabaseProperties() {
+		return Collections.unmodifiableList( Arrays.asList( this.databaseProperties ) );
+	}
+
+	public boolean hasDatabaseProperties() {
+		return this.databaseProperties.length > 0;
+	}
+
+	/**
+	 * @throws NullPointerException if a constructor parameter of a primitive type gets a null value
+	 * @throws IllegalStateException if this mapper needs values from the database
+	 */
+	public T map(Object[] projectedValues) {
+		if ( this.hasDatabaseProperties() ) {
+			throw new IllegalStateException( this.dtoClass + " has fields that have to be loaded from the database" );
+		}
+		// without database values the slots are in projection order
+		return this.instantiate( projectedValues );
+	}
+
+	/**
+	 * @param databaseValues the values of {@link #getDatabaseProperties()}
+	 * @throws NullPointerException if a constructor parameter of a primitive type gets a null value
+	 */
+	public T map(Object[] projectedValues, Object[] databaseValues) {
+		Object[] values = new Object[this.projectionSlots.length + this.databaseSlots.length];
+		for ( int i = 0; i < this.projectionSlots.length; ++i ) {
+			values[this.projectionSlots[i]] = projectedValues[i];
+		}
+		for ( int i = 0; i < this.databaseSlots.length; ++i ) {
+			values[this.databaseSlots[i]] = databaseValues[i];
+		}
+		return this.instantiate( values );
+	}
+
+	@SuppressWarnings("unchecked")
+	private T instantiate(Object[] values) {
+		try {
+			Object val = (Object) this.instantiator.invokeExact( values );
+			for ( int i = 0; i < this.setters.length; ++i ) {
+				this.setters[i].invokeExact( val, values[i] );
+			}
+			return (T) val;
+		}
+		catch (RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable e) {
+			throw new RuntimeException( e );
+		}
+	}
+
+}
@@ -6,14 +6,25 @@
  */
 package org.hibernate.search.standalone.dto;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import org.hibernate.search.exception.SearchException;
+import org.hibernate.search.query.engine.spi.DocumentExtractor;
+import org.hibernate.search.query.engine.spi.EntityInfo;
 import org.hibernate.search.query.engine.spi.HSQuery;
 import org.hibernate.search.standalone.dto.DtoDescriptor.DtoDescription;
+import org.hibernate.search.standalone.dto.annotations.DtoField;
+import org.hibernate.search.standalone.entity.EntityProvider;
 
 /**
  * projection utility class to automatically convert from projections back to a DtoObject. The projection to use is
@@ -23,12 +34,38 @@ import org.hibernate.search.standalone.dto.DtoDescriptor.DtoDescription;
  */
 public class DtoQueryExecutor {
 
-	private final Map<Class<?>, DtoDescription> dtoDescriptions;
 	private final DtoDescriptor dtoDescriptor;
+	// shared between all queries of a SearchFactory. ClassValue lookups don't lock and don't keep the Dto-Classes
+	// from being unloaded
+	private final ClassValue<DtoDescription> dtoDescriptions;
 
 	public DtoQueryExecutor() {
-		this.dtoDescriptions = new HashMap<>();
 		this.dtoDescriptor = new DtoDescriptorImpl();
+		this.dtoDescriptions = new ClassValue<DtoDescription>() {
+
+			@Override
+			protected DtoDescription computeValue(Class<?> type) {
+				return DtoQueryExecutor.this.dtoDescriptor.getDtoDescription( type );
+			}
+
+		};
+	}
+
+	/**
+	 * parses the given Dto-Class and creates the mappers for all of its profiles so that the first query doesn't
+	 * have to do this
+	 *
+	 * @throws IllegalArgumentException if the Dto-Class is not annotated properly
+	 */
+	public void register(Class<?> dtoClass) {
+		DtoDescription desc = this.getDtoDescription( dtoClass );
+		for ( String profile : desc.getProfiles() ) {
+			desc.getMapper( profile );
+		}
+	}
+
+	public DtoDescription getDtoDescription(Class<?> dtoClass) {
+		return this.dtoDescriptions.get( dtoClass );
 	}
 
 	public <T> List<T> executeHSQuery(HSQuery hsQuery, Class<T> clazz) {
@@ -36,38 +73,37 @@ public class DtoQueryExecutor {
 	}
 
 	public <T> List<T> executeHSQuery(HSQuery hsQuery, Class<T> returnedType, String profile) {
+		return this.executeHSQuery( hsQuery, returnedType, profile, (EntityProvider) null );
+	}
 
-		DtoDescription desc = this.dtoDescriptions.computeIfAbsent( returnedType, (clazz_) -> {
-			return this.dtoDescriptor.getDtoDescription( clazz_ );
-		} );
+	/**
+	 * @param entityProvider used to load the fields marked with {@link DtoField#fromDatabase()}. Their values are
+	 * loaded with one query per entity class instead of one per hit. Hits whose entity doesn't exist in the database
+	 * anymore are skipped
+	 */
+	public <T> List<T> executeHSQuery(HSQuery hsQuery, Class<T> returnedType, String profile, EntityProvider entityProvider) {
+
+		DtoMapper<T> mapper = this.getDtoDescription( returnedType ).getMapper( profile );
+		if ( mapper.hasDatabaseProperties() && entityProvider == null ) {
+			throw new IllegalStateException( returnedType + " has fields that are loaded from the database, an EntityProvider is needed" );
+		}
 		String[] projectedFieldsBefore = hsQuery.getProjectedFields();
 		try {
-			List<String> projection = new ArrayList<>();
-			List<java.lang.reflect.Field> fields = new ArrayList<>();
-			desc.getFieldDescriptionsForProfile( profile ).forEach( (fd) -> {
-				projection.add( fd.getFieldName() );
-				fields.add( fd.getField() );
-			} );
-			hsQuery.projection( projection.toArray( new String[0] ) );
+			hsQuery.projection( mapper.getProjection() );
 
 			List<T> ret;
 			{
 				hsQuery.getTimeoutManager().start();
 
-				ret = hsQuery.queryEntityInfos().stream().map( (entityInfo) -> {
-					try {
-						T val = returnedType.newInstance();
-						Object[] projectedValues = entityInfo.getProjection();
-						for ( int i = 0; i < projection.size(); i++ ) {
-							java.lang.reflect.Field field = fields.get( i );
-							field.set( val, projectedValues[i] );
-						}
-						return val;
-					}
-					catch (InstantiationException | IllegalAccessException e) {
-						throw new RuntimeException( e );
-					}
-				} ).collect( Collectors.toList() );
+				List<EntityInfo> entityInfos = hsQuery.queryEntityInfos();
+				if ( mapper.hasDatabaseProperties() ) {
+					ret = this.mapWithDatabaseValues( entityInfos, mapper, entityProvider );
+				}
+				else {
+					ret = entityInfos.stream().map( (entityInfo) -> {
+						return mapper.map( entityInfo.getProjection() );
+					} ).collect( Collectors.toList() );
+				}
 
 				hsQuery.getTimeoutManager().stop();
 			}
@@ -77,4 +113,89 @@ public class DtoQueryExecutor {
 			hsQuery.projection( projectedFieldsBefore );
 		}
 	}
+
+	private <T> List<T> mapWithDatabaseValues(List<EntityInfo> entityInfos, DtoMapper<T> mapper, EntityProvider entityProvider) {
+		Map<Class<?>, List<Object>> idsPerClass = new HashMap<>();
+		for ( EntityInfo entityInfo : entityInfos ) {
+			idsPerClass.computeIfAbsent( entityInfo.getClazz(), (key) -> new ArrayList<>() ).add( entityInfo.getId() );
+		}
+		Map<Class<?>, Map<Object, Object[]>> databaseValuesPerClass = new HashMap<>();
+		for ( Map.Entry<Class<?>, List<Object>> entry : idsPerClass.entrySet() ) {
+			databaseValuesPerClass.put( entry.getKey(), entityProvider.getBatchProperties( entry.getKey(), entry.getValue(), mapper.getDatabaseProperties() ) );
+		}
+		List<T> ret = new ArrayList<>( entityInfos.size() );
+		for ( EntityInfo entityInfo : entityInfos ) {
+			Object[] databaseValues = databaseValuesPerClass.get( entityInfo.getClazz() ).get( entityInfo.getId() );
+			if ( databaseValues != null ) {
+				ret.add( mapper.map( entityInfo.getProjection(), databaseValues ) );
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * like {@link #executeHSQuery(HSQuery, Class, String)}, but the stored fields of the hits are read from the index
+	 * and converted one by one while the stream is consumed instead of collecting all of them into a list first. Only
+	 * this part is streamed: the search itself still collects the doc ids and scores of all hits (up to maxResults)
+	 * before the stream is returned, so use paging for huge result sets. The stream holds an IndexReader open and
+	 * therefore has to be closed.
+	 */
+	public <T> Stream<T> streamHSQuery(HSQuery hsQuery, Class<T> returnedType, String profile) {
+		DtoMapper<T> mapper = this.getDtoDescription( returnedType ).getMapper( profile );
+		if ( mapper.hasDatabaseProperties() ) {
+			throw new IllegalStateException( returnedType + " has fields that are loaded from the database, these can't be streamed" );
+		}
+		String[] projectedFieldsBefore = hsQuery.getProjectedFields();
+		DocumentExtractor extractor;
+		try {
+			hsQuery.projection( mapper.getProjection() );
+			hsQuery.getTimeoutManager().start();
+			// the extractor only collects the doc ids, the stored fields are loaded on extract
+			extractor = hsQuery.queryDocumentExtractor();
+		}
+		catch (RuntimeException e) {
+			// there is no stream to stop it on close
+			hsQuery.getTimeoutManager().stop();
+			throw e;
+		}
+		finally {
+			hsQuery.projection( projectedFieldsBefore );
+		}
+		int firstIndex = extractor.getFirstIndex();
+		int maxIndex = extractor.getMaxIndex();
+		Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>( Math.max( maxIndex - firstIndex + 1, 0 ), Spliterator.ORDERED
+				| Spliterator.NONNULL | Spliterator.SIZED ) {
+
+			private int index = firstIndex;
+
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action) {
+				if ( this.index > maxIndex ) {
+					return false;
+				}
+				try {
+					action.accept( mapper.map( extractor.extract( this.index++ ).getProjection() ) );
+				}
+				catch (IOException e) {
+					throw new SearchException( "couldn't read hit " + ( this.index - 1 ) + " from the index", e );
+				}
+				return true;
+			}
+
+		};
+		return StreamSupport.stream( spliterator, false ).onClose( () -> {
+			hsQuery.getTimeoutManager().stop();
+			extractor.close();
+		} );
+	}
+
+	/**
+	 * push-style version of {@link #streamHSQuery(HSQuery, Class, String)}, the IndexReader is released when this
+	 * method returns
+	 */
+	public <T> void executeHSQuery(HSQuery hsQuery, Class<T> returnedType, String profile, Consumer<? super T> consumer) {
+		try (Stream<T> stream = this.streamHSQuery( hsQuery, returnedType, profile )) {
+			stream.forEachOrdered( consumer );
+		}
+	}
 }
@@ -7,13 +7,22 @@
 package org.hibernate.search.standalone.dto.annotations;
 
 import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 import java.lang.annotation.Repeatable;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 
-@Target({ FIELD })
+/**
+ * marks a field of a DTO (or a parameter of one of its constructors) to be filled with the projection of the given
+ * field. If the parameters of a constructor are annotated, the constructor is used to create the DTO for the profiles
+ * of the annotations. Every parameter of such a constructor needs an annotation for each of these profiles. A profile
+ * can't use annotated fields and an annotated constructor, unless the fields are annotated exactly like the parameters
+ * (this is what happens to the components of records). The constructor is used then. For parameters, fieldName is
+ * required unless the class was compiled with -parameters
+ */
+@Target({ FIELD, PARAMETER })
 @Retention(RUNTIME)
 @Repeatable(DtoFields.class)
 public @interface DtoField {
@@ -22,4 +31,12 @@ public @interface DtoField {
 
 	String fieldName() default "__#DEFAULT_FIELD_NAME#__";
 
+	/**
+	 * if true, the value is not projected from the index but loaded from the database (fieldName is then the name of
+	 * the entity property). This way big fields don't have to be stored in the index. The values are loaded with one
+	 * query per entity class and page of hits, see
+	 * {@link org.hibernate.search.standalone.query.HSearchQuery#queryDto(Class, org.hibernate.search.standalone.entity.EntityProvider)}
+	 */
+	boolean fromDatabase() default false;
+
 }
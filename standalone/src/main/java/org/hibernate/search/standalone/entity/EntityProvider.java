@@ -8,6 +8,7 @@ package org.hibernate.search.standalone.entity;
 
 import java.io.Closeable;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Hibernate-Search is no object storage. All hits found on the Index have a original representation. This interface
@@ -25,4 +26,11 @@ public interface EntityProvider extends Closeable {
 	@SuppressWarnings("rawtypes")
 	List getBatch(Class<?> entityClass, List<Object> id);
 
+	/**
+	 * loads only the given properties of the entities with the given ids (in one query) instead of the whole entities
+	 *
+	 * @return the values of the properties (in the given order) by id. Entities that don't exist anymore are missing
+	 */
+	Map<Object, Object[]> getBatchProperties(Class<?> entityClass, List<Object> ids, List<String> properties);
+
 }
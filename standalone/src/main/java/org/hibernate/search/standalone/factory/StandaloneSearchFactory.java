@@ -9,8 +9,12 @@ package org.hibernate.search.standalone.factory;
 import java.io.Closeable;
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collection;
 import org.apache.lucene.search.Query;
 import org.hibernate.search.standalone.query.HSearchQuery;
+import org.hibernate.search.standalone.query.QueryListener;
+import org.hibernate.search.standalone.query.QueryResultCache;
+import org.hibernate.search.standalone.query.QueryStatistics;
 import org.hibernate.search.standalone.transaction.TransactionContext;
 
 public interface StandaloneSearchFactory extends org.hibernate.search.SearchFactory, Closeable {
@@ -33,6 +37,41 @@ public interface StandaloneSearchFactory extends org.hibernate.search.SearchFact
 
 	HSearchQuery createQuery(Query query, Class<?>... targetedEntities);
 
+	/**
+	 * @return histograms of the timings of {@link HSearchQuery#query(org.hibernate.search.standalone.entity.EntityProvider,
+	 * HSearchQuery.Fetch)}. This is only collected if the statistics of Hibernate Search are enabled (see
+	 * {@link #getStatistics()})
+	 */
+	QueryStatistics getQueryStatistics();
+
+	/**
+	 * enables caching of the projected results (class and id for entity queries) of queries created after this call.
+	 * The entries are invalidated automatically when the index changes. Queries that use full-text filters or spatial
+	 * parameters are not cached.
+	 *
+	 * @param maxEntries the maximum number of cached results, 0 disables the cache
+	 */
+	void enableQueryResultCache(int maxEntries);
+
+	/**
+	 * @return the cache or null if it is not enabled
+	 */
+	QueryResultCache getQueryResultCache();
+
+	/**
+	 * the listener is notified about the executions of all queries created after this call
+	 */
+	void addQueryListener(QueryListener queryListener);
+
+	/**
+	 * parses the given Dto-Classes up front so that the first DTO query for them doesn't have to
+	 *
+	 * @throws IllegalArgumentException if one of the classes is not a valid Dto-Class
+	 */
+	void registerDtoClasses(Collection<Class<?>> dtoClasses);
+
+	void removeQueryListener(QueryListener queryListener);
+
 	void purge(Class<?> entityClass, Serializable id, TransactionContext tc);
 
 	default void purge(Class<?> entityClass, Serializable id) {
@@ -7,6 +7,7 @@
 package org.hibernate.search.standalone.factory;
 
 import java.util.Collection;
+import java.util.Collections;
 
 import org.hibernate.search.cfg.spi.SearchConfiguration;
 import org.hibernate.search.engine.integration.impl.ExtendedSearchIntegrator;
@@ -21,6 +22,15 @@ public final class StandaloneSearchFactoryFactory {
 	}
 
 	public static StandaloneSearchFactory createSearchFactory(SearchConfiguration searchConfiguration, Collection<Class<?>> classes) {
+		return createSearchFactory( searchConfiguration, classes, Collections.emptyList() );
+	}
+
+	/**
+	 * @param dtoClasses the Dto-Classes to parse up front (see
+	 * {@link StandaloneSearchFactory#registerDtoClasses(Collection)})
+	 */
+	public static StandaloneSearchFactory createSearchFactory(SearchConfiguration searchConfiguration, Collection<Class<?>> classes,
+			Collection<Class<?>> dtoClasses) {
 		SearchIntegratorBuilder builder = new SearchIntegratorBuilder();
 		// we have to build an integrator here (but we don't need it afterwards)
 		builder.configuration( searchConfiguration ).buildSearchIntegrator();
@@ -29,6 +39,7 @@ public final class StandaloneSearchFactoryFactory {
 		} );
 		SearchIntegrator impl = builder.buildSearchIntegrator();
 		StandaloneSearchFactory factory = new StandaloneSearchFactoryImpl( impl.unwrap( ExtendedSearchIntegrator.class ) );
+		factory.registerDtoClasses( dtoClasses );
 		return factory;
 	}
 
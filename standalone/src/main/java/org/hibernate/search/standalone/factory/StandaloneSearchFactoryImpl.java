@@ -10,8 +10,13 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.search.Query;
@@ -26,20 +31,46 @@ import org.hibernate.search.metadata.IndexedTypeDescriptor;
 import org.hibernate.search.query.dsl.QueryContextBuilder;
 import org.hibernate.search.query.engine.spi.HSQuery;
 import org.hibernate.search.standalone.dto.DtoQueryExecutor;
+import org.hibernate.search.standalone.query.ExecutionTracker;
 import org.hibernate.search.standalone.query.HSearchQuery;
 import org.hibernate.search.standalone.query.HSearchQueryImpl;
+import org.hibernate.search.standalone.query.QueryListener;
+import org.hibernate.search.standalone.query.QueryResultCache;
+import org.hibernate.search.standalone.query.QueryStatistics;
 import org.hibernate.search.standalone.transaction.TransactionContext;
 import org.hibernate.search.stat.Statistics;
 
 public class StandaloneSearchFactoryImpl implements StandaloneSearchFactory {
 
+	private static final Logger LOGGER = Logger.getLogger( StandaloneSearchFactoryImpl.class.getName() );
+
 	private final ExtendedSearchIntegrator searchIntegrator;
 	private final DtoQueryExecutor queryExec;
+	private final QueryStatistics queryStatistics;
+	private final List<QueryListener> queryListeners;
+	private volatile QueryResultCache queryResultCache;
+	private final ExecutionTracker executionTracker = new ExecutionTracker();
 
 	public StandaloneSearchFactoryImpl(ExtendedSearchIntegrator searchIntegrator) {
 		super();
 		this.searchIntegrator = searchIntegrator;
 		this.queryExec = new DtoQueryExecutor();
+		this.queryStatistics = new QueryStatistics();
+		this.queryListeners = new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * creates a factory for another index that shares the DTO descriptions, query statistics, query listeners and
+	 * the result cache with the given one (e.g. to replace it with a rebuilt index)
+	 */
+	public StandaloneSearchFactoryImpl(ExtendedSearchIntegrator searchIntegrator, StandaloneSearchFactoryImpl queryConfiguration) {
+		super();
+		this.searchIntegrator = searchIntegrator;
+		this.queryExec = queryConfiguration.queryExec;
+		this.queryStatistics = queryConfiguration.queryStatistics;
+		this.queryListeners = queryConfiguration.queryListeners;
+		// the cached results are keyed by the state of the index, so there are no stale hits after a switch
+		this.queryResultCache = queryConfiguration.queryResultCache;
 	}
 
 	@Override
@@ -72,6 +103,29 @@ public class StandaloneSearchFactoryImpl implements StandaloneSearchFactory {
 		this.searchIntegrator.close();
 	}
 
+	/**
+	 * counts the executions of the queries of this factory. Other work that needs the indexes to stay open can be
+	 * registered here as well
+	 */
+	public ExecutionTracker getExecutionTracker() {
+		return this.executionTracker;
+	}
+
+	/**
+	 * closes this factory as soon as no query is running anymore (see {@link #getExecutionTracker()}). Queries that are
+	 * started afterwards fail
+	 */
+	public void closeWhenIdle() {
+		this.executionTracker.whenIdle( () -> {
+			try {
+				this.close();
+			}
+			catch (IOException e) {
+				LOGGER.log( Level.WARNING, "couldn't close the SearchFactory", e );
+			}
+		} );
+	}
+
 	@Override
 	public QueryContextBuilder buildQueryBuilder() {
 		return this.searchIntegrator.buildQueryBuilder();
@@ -97,17 +151,58 @@ public class StandaloneSearchFactoryImpl implements StandaloneSearchFactory {
 		return this.searchIntegrator.getStatistics();
 	}
 
+	@Override
+	public QueryStatistics getQueryStatistics() {
+		return this.queryStatistics;
+	}
+
+	@Override
+	public void registerDtoClasses(Collection<Class<?>> dtoClasses) {
+		dtoClasses.forEach( this.queryExec::register );
+	}
+
+	@Override
+	public void enableQueryResultCache(int maxEntries) {
+		this.queryResultCache = maxEntries > 0 ? new QueryResultCache( maxEntries ) : null;
+	}
+
+	@Override
+	public QueryResultCache getQueryResultCache() {
+		return this.queryResultCache;
+	}
+
+	@Override
+	public void addQueryListener(QueryListener queryListener) {
+		this.queryListeners.add( queryListener );
+	}
+
+	@Override
+	public void removeQueryListener(QueryListener queryListener) {
+		this.queryListeners.remove( queryListener );
+	}
+
 	private void doIndexWork(Iterable<?> entities, WorkType workType, TransactionContext tc) {
 		Worker worker = this.searchIntegrator.getWorker();
 		for ( Object object : entities ) {
-			worker.performWork( new Work( object, workType ), tc );
+			this.performWork( worker, new Work( object, workType ), tc );
+		}
+	}
+
+	/**
+	 * performs the work and flushes it to the indexes if the auto flush threshold of the transaction is reached so
+	 * that huge transactions don't keep all of their work on the heap
+	 */
+	private void performWork(Worker worker, Work work, TransactionContext tc) {
+		worker.performWork( work, tc );
+		if ( tc instanceof Transaction && ( (Transaction) tc ).workAdded() ) {
+			this.flushToIndexes( tc );
 		}
 	}
 
 	@Override
 	public void purgeAll(Class<?> entityClass, TransactionContext tc) {
 		Worker worker = this.searchIntegrator.getWorker();
-		worker.performWork( new Work( entityClass, null, WorkType.PURGE_ALL ), tc );
+		this.performWork( worker, new Work( entityClass, null, WorkType.PURGE_ALL ), tc );
 	}
 
 	public void doIndexWork(Object entities, WorkType workType) {
@@ -120,7 +215,26 @@ public class StandaloneSearchFactoryImpl implements StandaloneSearchFactory {
 		hsQuery.luceneQuery( query );
 		// to make sure no entity is used twice
 		hsQuery.targetedEntities( new ArrayList<>( new HashSet<>( Arrays.asList( targetedEntities ) ) ) );
-		return new HSearchQueryImpl( hsQuery, this.queryExec, this.searchIntegrator );
+		return new HSearchQueryImpl( hsQuery, this.queryExec, this.searchIntegrator, this.queryListener(), this.queryResultCache,
+				this.executionTracker );
+	}
+
+	/**
+	 * @return null if nobody is interested in the query executions
+	 */
+	private QueryListener queryListener() {
+		boolean statisticsEnabled = this.searchIntegrator.getStatistics().isStatisticsEnabled();
+		if ( !statisticsEnabled && this.queryListeners.isEmpty() ) {
+			return null;
+		}
+		return (info) -> {
+			if ( statisticsEnabled ) {
+				this.queryStatistics.queryExecuted( info );
+			}
+			for ( QueryListener listener : this.queryListeners ) {
+				listener.queryExecuted( info );
+			}
+		};
 	}
 
 	@Override
@@ -150,7 +264,7 @@ public class StandaloneSearchFactoryImpl implements StandaloneSearchFactory {
 	@Override
 	public void purge(Class<?> entityClass, Serializable id, TransactionContext tc) {
 		Worker worker = this.searchIntegrator.getWorker();
-		worker.performWork( new Work( entityClass, id, WorkType.PURGE ), tc );
+		this.performWork( worker, new Work( entityClass, id, WorkType.PURGE ), tc );
 	}
 
 	@Override
@@ -170,6 +284,9 @@ public class StandaloneSearchFactoryImpl implements StandaloneSearchFactory {
 	@Override
 	public void flushToIndexes(TransactionContext tc) {
 		this.searchIntegrator.getWorker().flushWorks( tc );
+		if ( tc instanceof Transaction ) {
+			( (Transaction) tc ).flushed();
+		}
 	}
 
 }
@@ -14,11 +14,69 @@ import javax.transaction.Synchronization;
 
 import org.hibernate.search.standalone.transaction.TransactionContext;
 
+/**
+ * a simple {@link TransactionContext} for manual index changes. <br>
+ * <br>
+ * All work is kept in memory until {@link #commit()} by default. If an auto flush threshold is set, the work is
+ * flushed to the indexes every time that many pieces of work (entities, ids or purge alls) were added. Work that was
+ * flushed like this can't be undone by {@link #rollback()} anymore, so the transaction is only all-or-nothing up to
+ * the last flush (see {@link #getFlushCount()}).
+ */
 public class Transaction implements TransactionContext {
 
 	private boolean progress = true;
 	private List<Synchronization> syncs = new ArrayList<Synchronization>();
 
+	private final int autoFlushThreshold;
+	private int pendingWork = 0;
+	private int flushCount = 0;
+
+	public Transaction() {
+		this( 0 );
+	}
+
+	/**
+	 * @param autoFlushThreshold the number of pieces of work after which the work is flushed to the indexes, 0 to keep
+	 * everything until {@link #commit()}
+	 */
+	public Transaction(int autoFlushThreshold) {
+		if ( autoFlushThreshold < 0 ) {
+			throw new IllegalArgumentException( "autoFlushThreshold must not be negative" );
+		}
+		this.autoFlushThreshold = autoFlushThreshold;
+	}
+
+	public int getAutoFlushThreshold() {
+		return this.autoFlushThreshold;
+	}
+
+	/**
+	 * @return how often the work of this transaction has been flushed to the indexes before the end of it
+	 */
+	public int getFlushCount() {
+		return this.flushCount;
+	}
+
+	/**
+	 * called for every piece of work added to this transaction
+	 *
+	 * @return whether the work should be flushed to the indexes now
+	 */
+	boolean workAdded() {
+		++this.pendingWork;
+		return this.autoFlushThreshold > 0 && this.pendingWork >= this.autoFlushThreshold;
+	}
+
+	/**
+	 * called whenever the work of this transaction has been flushed to the indexes
+	 */
+	void flushed() {
+		if ( this.pendingWork > 0 ) {
+			this.pendingWork = 0;
+			++this.flushCount;
+		}
+	}
+
 	@Override
 	public boolean isTransactionInProgress() {
 		return progress;
@@ -0,0 +1,373 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.query;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FieldCache;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryWrapperFilter;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.Bits;
+import org.hibernate.search.engine.ProjectionConstants;
+import org.hibernate.search.exception.SearchException;
+import org.hibernate.search.spi.SearchIntegrator;
+import org.hibernate.search.standalone.query.ColumnarResult.Column;
+
+/**
+ * reads numeric fields of all hits into primitive arrays. The values come from the FieldCache, which uses the
+ * NumericDocValues of a field if there are any and uninverts the indexed numeric field otherwise. Hits without a value
+ * get 0 and are marked as missing. Unsorted queries without paging are collected directly into the arrays, all others
+ * go through TopDocs.
+ *
+ * @author Martin Braun
+ */
+final class ColumnarExecutor {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final SearchIntegrator searchIntegrator;
+
+	ColumnarExecutor(SearchIntegrator searchIntegrator) {
+		this.searchIntegrator = searchIntegrator;
+	}
+
+	ColumnarResult execute(Query luceneQuery, List<Class<?>> targetedEntities, Filter filter, Sort sort, Integer firstResult, Integer maxResults,
+			Column[] columns) {
+		Map<String, Class<?>> classes = SearchAfterExecutor.targetedClasses( this.searchIntegrator, targetedEntities );
+		BooleanQuery classQuery = new BooleanQuery();
+		for ( Class<?> clazz : classes.values() ) {
+			classQuery.add( new TermQuery( new Term( ProjectionConstants.OBJECT_CLASS, clazz.getName() ) ), Occur.SHOULD );
+		}
+		// the index might contain other entities as well
+		Query query = new FilteredQuery( luceneQuery, new QueryWrapperFilter( classQuery ) );
+
+		IndexReader reader = this.searchIntegrator.getIndexReaderAccessor().open( classes.values().toArray( new Class<?>[classes.size()] ) );
+		try {
+			IndexSearcher searcher = new IndexSearcher( reader );
+			List<AtomicReaderContext> leaves = reader.leaves();
+			ColumnBuffer[] buffers = new ColumnBuffer[columns.length];
+			for ( int i = 0; i < columns.length; ++i ) {
+				buffers[i] = ColumnBuffer.of( columns[i] );
+				buffers[i].load( leaves );
+			}
+
+			int totalHits;
+			int size;
+			if ( sort == null && firstResult == null && maxResults == null ) {
+				HitCollector collector = new HitCollector( buffers );
+				searcher.search( query, filter, collector );
+				totalHits = collector.count;
+				size = collector.count;
+			}
+			else {
+				int first = firstResult != null ? firstResult : 0;
+				long wanted = maxResults != null ? (long) first + maxResults : Integer.MAX_VALUE;
+				int n = (int) Math.max( Math.min( wanted, reader.maxDoc() ), 1 );
+				TopDocs topDocs = sort == null ? searcher.search( query, filter, n ) : searcher.search( query, filter, n, sort );
+				totalHits = topDocs.totalHits;
+				ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+				int end = (int) Math.min( wanted, scoreDocs.length );
+				size = Math.max( end - first, 0 );
+				for ( ColumnBuffer buffer : buffers ) {
+					buffer.ensureCapacity( size );
+				}
+				for ( int i = first; i < end; ++i ) {
+					int leaf = ReaderUtil.subIndex( scoreDocs[i].doc, leaves );
+					int doc = scoreDocs[i].doc - leaves.get( leaf ).docBase;
+					for ( ColumnBuffer buffer : buffers ) {
+						buffer.add( leaf, doc );
+					}
+				}
+			}
+
+			Map<String, Object> ret = new HashMap<>();
+			Map<String, BitSet> missing = new HashMap<>();
+			for ( ColumnBuffer buffer : buffers ) {
+				ret.put( buffer.field, buffer.toArray() );
+				missing.put( buffer.field, buffer.missing );
+			}
+			return new ColumnarResult( size, totalHits, ret, missing );
+		}
+		catch (IOException e) {
+			throw new SearchException( "couldn't execute the columnar query", e );
+		}
+		finally {
+			this.searchIntegrator.getIndexReaderAccessor().close( reader );
+		}
+	}
+
+	private static final class HitCollector extends Collector {
+
+		private final ColumnBuffer[] buffers;
+		private int leaf;
+		private int count;
+
+		HitCollector(ColumnBuffer[] buffers) {
+			this.buffers = buffers;
+		}
+
+		@Override
+		public void setScorer(Scorer scorer) throws IOException {
+			// scores are not needed
+		}
+
+		@Override
+		public void collect(int doc) throws IOException {
+			for ( ColumnBuffer buffer : this.buffers ) {
+				buffer.add( this.leaf, doc );
+			}
+			++this.count;
+		}
+
+		@Override
+		public void setNextReader(AtomicReaderContext context) throws IOException {
+			this.leaf = context.ord;
+		}
+
+		@Override
+		public boolean acceptsDocsOutOfOrder() {
+			// the hits should be in index order
+			return false;
+		}
+
+	}
+
+	/**
+	 * growable primitive array for one field, the FieldCache values of all leaves are looked up in advance so that
+	 * adding a hit doesn't allocate anything. The FieldCache returns 0 for documents without a value, these hits are
+	 * remembered in missing
+	 */
+	private abstract static class ColumnBuffer {
+
+		final String field;
+		final BitSet missing = new BitSet();
+		private Bits[] docsWithField;
+		int size;
+
+		ColumnBuffer(String field) {
+			this.field = field;
+		}
+
+		static ColumnBuffer of(Column column) {
+			switch ( column.getType() ) {
+				case INT:
+					return new IntBuffer( column.getField() );
+				case LONG:
+					return new LongBuffer( column.getField() );
+				case FLOAT:
+					return new FloatBuffer( column.getField() );
+				case DOUBLE:
+					return new DoubleBuffer( column.getField() );
+				default:
+					throw new AssertionError( "unknown ColumnType: " + column.getType() );
+			}
+		}
+
+		static int grow(int capacity, int needed) {
+			return Math.max( needed, Math.max( capacity * 2, INITIAL_CAPACITY ) );
+		}
+
+		final void load(List<AtomicReaderContext> leaves) throws IOException {
+			this.loadValues( leaves );
+			// cached by the FieldCache when the values are loaded
+			this.docsWithField = new Bits[leaves.size()];
+			for ( int i = 0; i < leaves.size(); ++i ) {
+				this.docsWithField[i] = FieldCache.DEFAULT.getDocsWithField( leaves.get( i ).reader(), this.field );
+			}
+		}
+
+		final void add(int leaf, int doc) {
+			if ( !this.docsWithField[leaf].get( doc ) ) {
+				this.missing.set( this.size );
+			}
+			this.addValue( leaf, doc );
+		}
+
+		abstract void loadValues(List<AtomicReaderContext> leaves) throws IOException;
+
+		abstract void ensureCapacity(int capacity);
+
+		abstract void addValue(int leaf, int doc);
+
+		abstract Object toArray();
+
+	}
+
+	private static final class IntBuffer extends ColumnBuffer {
+
+		private FieldCache.Ints[] perLeaf;
+		private int[] values = new int[0];
+
+		IntBuffer(String field) {
+			super( field );
+		}
+
+		@Override
+		void loadValues(List<AtomicReaderContext> leaves) throws IOException {
+			this.perLeaf = new FieldCache.Ints[leaves.size()];
+			for ( int i = 0; i < leaves.size(); ++i ) {
+				AtomicReader reader = leaves.get( i ).reader();
+				this.perLeaf[i] = FieldCache.DEFAULT.getInts( reader, this.field, FieldCache.NUMERIC_UTILS_INT_PARSER, true );
+			}
+		}
+
+		@Override
+		void ensureCapacity(int capacity) {
+			if ( this.values.length < capacity ) {
+				this.values = Arrays.copyOf( this.values, grow( this.values.length, capacity ) );
+			}
+		}
+
+		@Override
+		void addValue(int leaf, int doc) {
+			this.ensureCapacity( this.size + 1 );
+			this.values[this.size++] = this.perLeaf[leaf].get( doc );
+		}
+
+		@Override
+		Object toArray() {
+			return this.values.length == this.size ? this.values : Arrays.copyOf( this.values, this.size );
+		}
+
+	}
+
+	private static final class LongBuffer extends ColumnBuffer {
+
+		private FieldCache.Longs[] perLeaf;
+		private long[] values = new long[0];
+
+		LongBuffer(String field) {
+			super( field );
+		}
+
+		@Override
+		void loadValues(List<AtomicReaderContext> leaves) throws IOException {
+			this.perLeaf = new FieldCache.Longs[leaves.size()];
+			for ( int i = 0; i < leaves.size(); ++i ) {
+				AtomicReader reader = leaves.get( i ).reader();
+				this.perLeaf[i] = FieldCache.DEFAULT.getLongs( reader, this.field, FieldCache.NUMERIC_UTILS_LONG_PARSER, true );
+			}
+		}
+
+		@Override
+		void ensureCapacity(int capacity) {
+			if ( this.values.length < capacity ) {
+				this.values = Arrays.copyOf( this.values, grow( this.values.length, capacity ) );
+			}
+		}
+
+		@Override
+		void addValue(int leaf, int doc) {
+			this.ensureCapacity( this.size + 1 );
+			this.values[this.size++] = this.perLeaf[leaf].get( doc );
+		}
+
+		@Override
+		Object toArray() {
+			return this.values.length == this.size ? this.values : Arrays.copyOf( this.values, this.size );
+		}
+
+	}
+
+	private static final class FloatBuffer extends ColumnBuffer {
+
+		private FieldCache.Floats[] perLeaf;
+		private float[] values = new float[0];
+
+		FloatBuffer(String field) {
+			super( field );
+		}
+
+		@Override
+		void loadValues(List<AtomicReaderContext> leaves) throws IOException {
+			this.perLeaf = new FieldCache.Floats[leaves.size()];
+			for ( int i = 0; i < leaves.size(); ++i ) {
+				AtomicReader reader = leaves.get( i ).reader();
+				this.perLeaf[i] = FieldCache.DEFAULT.getFloats( reader, this.field, FieldCache.NUMERIC_UTILS_FLOAT_PARSER, true );
+			}
+		}
+
+		@Override
+		void ensureCapacity(int capacity) {
+			if ( this.values.length < capacity ) {
+				this.values = Arrays.copyOf( this.values, grow( this.values.length, capacity ) );
+			}
+		}
+
+		@Override
+		void addValue(int leaf, int doc) {
+			this.ensureCapacity( this.size + 1 );
+			this.values[this.size++] = this.perLeaf[leaf].get( doc );
+		}
+
+		@Override
+		Object toArray() {
+			return this.values.length == this.size ? this.values : Arrays.copyOf( this.values, this.size );
+		}
+
+	}
+
+	private static final class DoubleBuffer extends ColumnBuffer {
+
+		private FieldCache.Doubles[] perLeaf;
+		private double[] values = new double[0];
+
+		DoubleBuffer(String field) {
+			super( field );
+		}
+
+		@Override
+		void loadValues(List<AtomicReaderContext> leaves) throws IOException {
+			this.perLeaf = new FieldCache.Doubles[leaves.size()];
+			for ( int i = 0; i < leaves.size(); ++i ) {
+				AtomicReader reader = leaves.get( i ).reader();
+				this.perLeaf[i] = FieldCache.DEFAULT.getDoubles( reader, this.field, FieldCache.NUMERIC_UTILS_DOUBLE_PARSER, true );
+			}
+		}
+
+		@Override
+		void ensureCapacity(int capacity) {
+			if ( this.values.length < capacity ) {
+				this.values = Arrays.copyOf( this.values, grow( this.values.length, capacity ) );
+			}
+		}
+
+		@Override
+		void addValue(int leaf, int doc) {
+			this.ensureCapacity( this.size + 1 );
+			this.values[this.size++] = this.perLeaf[leaf].get( doc );
+		}
+
+		@Override
+		Object toArray() {
+			return this.values.length == this.size ? this.values : Arrays.copyOf( this.values, this.size );
+		}
+
+	}
+
+}
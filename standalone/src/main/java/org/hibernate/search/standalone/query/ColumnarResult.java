@@ -0,0 +1,135 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.query;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * the values of some numeric fields of all hits of a query, stored as one primitive array per field (see
+ * {@link HSearchQuery#queryColumns(Column...)}). The value of hit i is at index i of each array. Hits without a value
+ * for a field get 0, {@link #getMissing(String)} tells them apart from real zeros.
+ *
+ * @author Martin Braun
+ */
+public final class ColumnarResult {
+
+	public enum ColumnType {
+		INT, LONG, FLOAT, DOUBLE
+	}
+
+	/**
+	 * a numeric field to read and the type it was indexed with
+	 */
+	public static final class Column {
+
+		private final String field;
+		private final ColumnType type;
+
+		private Column(String field, ColumnType type) {
+			this.field = Objects.requireNonNull( field );
+			this.type = type;
+		}
+
+		public static Column ints(String field) {
+			return new Column( field, ColumnType.INT );
+		}
+
+		public static Column longs(String field) {
+			return new Column( field, ColumnType.LONG );
+		}
+
+		public static Column floats(String field) {
+			return new Column( field, ColumnType.FLOAT );
+		}
+
+		public static Column doubles(String field) {
+			return new Column( field, ColumnType.DOUBLE );
+		}
+
+		public String getField() {
+			return this.field;
+		}
+
+		public ColumnType getType() {
+			return this.type;
+		}
+
+	}
+
+	private final int size;
+	private final int totalHits;
+	// field -> int[], long[], float[] or double[]
+	private final Map<String, Object> columns;
+	private final Map<String, BitSet> missing;
+
+	ColumnarResult(int size, int totalHits, Map<String, Object> columns, Map<String, BitSet> missing) {
+		this.size = size;
+		this.totalHits = totalHits;
+		this.columns = Collections.unmodifiableMap( columns );
+		this.missing = Collections.unmodifiableMap( missing );
+	}
+
+	/**
+	 * @return the number of hits in this result (the length of every array)
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the total number of hits of the query (ignoring firstResult and maxResults)
+	 */
+	public int getTotalHits() {
+		return this.totalHits;
+	}
+
+	/**
+	 * the returned arrays are not copied, changes to them are visible to other callers
+	 */
+	public int[] getInts(String field) {
+		return this.column( field, int[].class );
+	}
+
+	public long[] getLongs(String field) {
+		return this.column( field, long[].class );
+	}
+
+	public float[] getFloats(String field) {
+		return this.column( field, float[].class );
+	}
+
+	public double[] getDoubles(String field) {
+		return this.column( field, double[].class );
+	}
+
+	/**
+	 * @return the indexes of the hits that have no value for the field (their value in the array is 0). Like the
+	 * arrays, the BitSet is not copied
+	 */
+	public BitSet getMissing(String field) {
+		BitSet missing = this.missing.get( field );
+		if ( missing == null ) {
+			throw new IllegalArgumentException( "field " + field + " was not queried" );
+		}
+		return missing;
+	}
+
+	private <T> T column(String field, Class<T> arrayType) {
+		Object column = this.columns.get( field );
+		if ( column == null ) {
+			throw new IllegalArgumentException( "field " + field + " was not queried" );
+		}
+		if ( !arrayType.isInstance( column ) ) {
+			throw new IllegalArgumentException( "field " + field + " was queried as " + column.getClass().getComponentType() );
+		}
+		return arrayType.cast( column );
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.hibernate.search.query.engine.spi.HSQuery;
+import org.hibernate.search.spi.SearchIntegrator;
+import org.hibernate.search.standalone.dto.DtoQueryExecutor;
+import org.hibernate.search.standalone.entity.EntityProvider;
+import org.hibernate.search.standalone.query.HSearchQuery.Fetch;
+
+/**
+ * immutable version of a {@link HSearchQuery} (see {@link HSearchQuery#compile()}) that can be shared between threads
+ * and executed concurrently with different projections and paging parameters. Every execution works on its own
+ * HSQuery, so nothing is mutated and restored anymore.
+ *
+ * @author Martin Braun
+ */
+public final class CompiledHSearchQuery {
+
+	private final SearchIntegrator searchIntegrator;
+	private final DtoQueryExecutor queryExec;
+	private final QueryListener queryListener;
+	private final QueryResultCache resultCache;
+	private final ExecutionTracker executionTracker;
+	private final Query luceneQuery;
+	private final List<Class<?>> targetedEntities;
+	private final Sort sort;
+	private final Filter filter;
+
+	CompiledHSearchQuery(SearchIntegrator searchIntegrator, DtoQueryExecutor queryExec, QueryListener queryListener, QueryResultCache resultCache,
+			ExecutionTracker executionTracker, Query luceneQuery, List<Class<?>> targetedEntities, Sort sort, Filter filter) {
+		this.searchIntegrator = searchIntegrator;
+		this.queryExec = queryExec;
+		this.queryListener = queryListener;
+		this.resultCache = resultCache;
+		this.executionTracker = executionTracker;
+		this.luceneQuery = luceneQuery;
+		this.targetedEntities = Collections.unmodifiableList( new ArrayList<>( targetedEntities ) );
+		this.sort = sort;
+		this.filter = filter;
+	}
+
+	public Query getLuceneQuery() {
+		return this.luceneQuery;
+	}
+
+	public List<Class<?>> getTargetedEntities() {
+		return this.targetedEntities;
+	}
+
+	public List<Object[]> queryProjection(int firstResult, int maxResults, String... projection) {
+		return this.newQuery( firstResult, maxResults ).queryProjection( projection );
+	}
+
+	public QueryPage<Object[]> queryProjectionPage(int firstResult, int maxResults, String... projection) {
+		return this.newQuery( firstResult, maxResults ).queryProjectionPage( projection );
+	}
+
+	@SuppressWarnings("rawtypes")
+	public List query(EntityProvider entityProvider, Fetch fetchType, int firstResult, int maxResults) {
+		return this.newQuery( firstResult, maxResults ).query( entityProvider, fetchType );
+	}
+
+	public <T> QueryPage<T> queryPage(EntityProvider entityProvider, Fetch fetchType, int firstResult, int maxResults) {
+		return this.newQuery( firstResult, maxResults ).queryPage( entityProvider, fetchType );
+	}
+
+	public <R> List<R> queryDto(Class<R> returnedType, int firstResult, int maxResults) {
+		return this.newQuery( firstResult, maxResults ).queryDto( returnedType );
+	}
+
+	public int queryResultSize() {
+		return this.newQuery( null, null ).queryResultSize();
+	}
+
+	/**
+	 * @return a new mutable query with the state of this compiled query. This can be used for the options that are not
+	 * available here (e.g. searchAfter)
+	 */
+	public HSearchQuery newQuery() {
+		return this.newQuery( null, null );
+	}
+
+	private HSearchQuery newQuery(Integer firstResult, Integer maxResults) {
+		HSQuery hsQuery = this.searchIntegrator.createHSQuery();
+		hsQuery.luceneQuery( this.luceneQuery );
+		hsQuery.targetedEntities( this.targetedEntities );
+		HSearchQuery query = new HSearchQueryImpl( hsQuery, this.queryExec, this.searchIntegrator, this.queryListener, this.resultCache,
+				this.executionTracker );
+		if ( this.sort != null ) {
+			query.sort( this.sort );
+		}
+		if ( this.filter != null ) {
+			query.filter( this.filter );
+		}
+		if ( firstResult != null ) {
+			query.firstResult( firstResult );
+		}
+		if ( maxResults != null ) {
+			query.maxResults( maxResults );
+		}
+		return query;
+	}
+
+	@Override
+	public String toString() {
+		return "CompiledHSearchQuery [luceneQuery=" + this.luceneQuery + ", targetedEntities=" + this.targetedEntities + ", sort=" + this.sort
+				+ ", filter=" + this.filter + "]";
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.query;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * counts the running executions (queries, open streams, pending writes) on the indexes of one SearchFactory so that
+ * it can be closed as soon as nobody uses it anymore (see {@link #whenIdle(Runnable)}). Costs two atomic operations
+ * per execution.
+ *
+ * @author Martin Braun
+ */
+public final class ExecutionTracker {
+
+	private static final Runnable NOOP = () -> {
+	};
+
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicReference<Runnable> onIdle = new AtomicReference<>();
+
+	public void begin() {
+		this.running.incrementAndGet();
+	}
+
+	public void end() {
+		if ( this.running.decrementAndGet() == 0 && this.onIdle.get() != null ) {
+			this.runOnIdle();
+		}
+	}
+
+	public int getRunning() {
+		return this.running.get();
+	}
+
+	/**
+	 * runs the given action once, as soon as no execution is running anymore (right away if there is none). Executions
+	 * that begin after this must not rely on the action not having run
+	 */
+	public void whenIdle(Runnable action) {
+		if ( !this.onIdle.compareAndSet( null, action ) ) {
+			throw new IllegalStateException( "an action is already waiting for this tracker" );
+		}
+		if ( this.running.get() == 0 ) {
+			this.runOnIdle();
+		}
+	}
+
+	private void runOnIdle() {
+		// only one of the threads that see the tracker idle gets to run the action
+		Runnable action = this.onIdle.getAndSet( NOOP );
+		if ( action != null && action != NOOP ) {
+			action.run();
+		}
+	}
+
+}
@@ -7,7 +7,11 @@
 package org.hibernate.search.standalone.query;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.Filter;
@@ -31,6 +35,21 @@ public interface HSearchQuery {
 
 	HSearchQuery maxResults(int maxResults);
 
+	/**
+	 * switches this query to cursor based paging: instead of collecting firstResult + maxResults hits and skipping the
+	 * first ones, only the maxResults hits after the given token are collected, so deep pages cost as much as the
+	 * first one. Start with {@link SearchAfterToken#START} and pass {@link QueryPage#getNextToken()} of
+	 * {@link #queryPage(EntityProvider, Fetch)} for the following pages. <br>
+	 * <br>
+	 * maxResults has to be set, firstResult is ignored. Full-text filters (see {@link #enableFullTextFilter(String)}),
+	 * spatial parameters and timeouts are not supported (an IllegalStateException is thrown when fetching a page) and
+	 * only OBJECT_CLASS, ID and SCORE can be projected. Changes to the index
+	 * between two pages can make hits show up twice or not at all.
+	 *
+	 * @param token null switches back to offset based paging
+	 */
+	HSearchQuery searchAfter(SearchAfterToken token);
+
 	HSearchQuery setTimeout(long timeout, TimeUnit timeUnit);
 
 	HSearchQuery limitExecutionTimeTo(long timeout, TimeUnit timeUnit);
@@ -41,12 +60,58 @@ public interface HSearchQuery {
 
 	Query getLuceneQuery();
 
+	/**
+	 * @return an immutable, thread-safe version of this query (Lucene query, targeted entities, sort and filter) that
+	 * can be cached and executed concurrently with different projections and paging parameters
+	 *
+	 * @throws IllegalStateException if full-text filters or spatial parameters were set, as these can't be copied
+	 */
+	CompiledHSearchQuery compile();
+
 	<R> List<R> queryDto(Class<R> returnedType);
 
+	/**
+	 * like {@link #queryDto(Class)}, but the fields marked with
+	 * {@link org.hibernate.search.standalone.dto.annotations.DtoField#fromDatabase()} are loaded with the given
+	 * EntityProvider (one query per entity class, see {@link EntityProvider#getBatchProperties(Class, List, List)})
+	 */
+	<R> List<R> queryDto(Class<R> returnedType, EntityProvider entityProvider);
+
+	/**
+	 * passes the DTOs to the consumer one by one while the hits are read from the index, so the results don't have to
+	 * fit into memory at once (e.g. for exports)
+	 */
+	<R> void queryDto(Class<R> returnedType, Consumer<? super R> consumer);
+
+	/**
+	 * lazy version of {@link #queryDto(Class)}: the stored fields of the hits are read from the index while the stream
+	 * is consumed. The doc ids of all hits (up to maxResults) are still collected up front. The stream holds an
+	 * IndexReader open and has to be closed (e.g. with try-with-resources). The query must not be changed or executed
+	 * again until then.
+	 */
+	<R> Stream<R> streamDto(Class<R> returnedType);
+
 	List<Object[]> queryProjection(String... projection);
 
 	int queryResultSize();
 
+	/**
+	 * reads the given numeric fields of the hits into one primitive array per field instead of one boxed Object[] per
+	 * hit, which is a lot cheaper for analytics over many hits. The fields are read from their doc values if there are
+	 * any, otherwise from the FieldCache (which is built on first use per index segment and kept in memory). <br>
+	 * <br>
+	 * The type of each column has to match the type the field was indexed with. Hits without a value for a field get
+	 * 0, these are listed in {@link ColumnarResult#getMissing(String)}. Sort, filter, firstResult and maxResults are
+	 * honored, full-text filters, spatial parameters and timeouts are not supported.
+	 */
+	ColumnarResult queryColumns(ColumnarResult.Column... columns);
+
+	/**
+	 * like {@link #queryProjection(String...)} but also returns the total number of hits. Both are retrieved in a
+	 * single search instead of one for the results and one for {@link #queryResultSize()}
+	 */
+	QueryPage<Object[]> queryProjectionPage(String... projection);
+
 	FullTextFilter enableFullTextFilter(String name);
 
 	void disableFullTextFilter(String name);
@@ -68,6 +133,37 @@ public interface HSearchQuery {
 		return this.query( entityProvider, Fetch.FIND_BY_ID );
 	}
 
+	/**
+	 * like {@link #query(EntityProvider, Fetch)} but also returns the total number of hits. Both are retrieved in a
+	 * single search instead of one for the results and one for {@link #queryResultSize()}
+	 */
+	<T> QueryPage<T> queryPage(EntityProvider entityProvider, Fetch fetchType);
+
+	/**
+	 * asynchronous version of {@link #query(EntityProvider, Fetch)}. The Lucene search runs on the searchExecutor, the
+	 * entities are loaded on the fetchExecutor afterwards. <br>
+	 * <br>
+	 * The search uses the state of this query at the time of the call, so the query can be changed and executed again
+	 * right away and several asynchronous executions of it can run at the same time. {@link #hasPartialResults()} does
+	 * not reflect them though. Queries with full-text filters or spatial parameters can't be executed asynchronously.
+	 * If the EntityProvider is not thread-safe (e.g. it wraps an EntityManager), it must not be used by anyone else
+	 * until the returned future has completed.
+	 */
+	@SuppressWarnings("rawtypes")
+	CompletableFuture<List> queryAsync(EntityProvider entityProvider, Fetch fetchType, Executor searchExecutor, Executor fetchExecutor);
+
+	/**
+	 * asynchronous version of {@link #queryResultSize()}, the same restrictions as for
+	 * {@link #queryAsync(EntityProvider, Fetch, Executor, Executor)} apply
+	 */
+	CompletableFuture<Integer> queryResultSizeAsync(Executor searchExecutor);
+
+	/**
+	 * asynchronous version of {@link #queryProjection(String...)}, the same restrictions as for
+	 * {@link #queryAsync(EntityProvider, Fetch, Executor, Executor)} apply
+	 */
+	CompletableFuture<List<Object[]>> queryProjectionAsync(Executor searchExecutor, String... projection);
+
 	public enum Fetch {
 		BATCH, FIND_BY_ID
 	}
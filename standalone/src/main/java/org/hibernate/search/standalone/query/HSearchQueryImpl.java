@@ -6,25 +6,35 @@
  */
 package org.hibernate.search.standalone.query;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.Filter;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Sort;
 import org.hibernate.search.engine.ProjectionConstants;
+import org.hibernate.search.exception.SearchException;
 import org.hibernate.search.filter.FullTextFilter;
+import org.hibernate.search.query.engine.spi.DocumentExtractor;
 import org.hibernate.search.query.engine.spi.FacetManager;
 import org.hibernate.search.query.engine.spi.HSQuery;
 import org.hibernate.search.spatial.Coordinates;
 import org.hibernate.search.spatial.impl.Point;
 import org.hibernate.search.spi.SearchIntegrator;
+import org.hibernate.search.standalone.dto.DtoDescriptor.DtoDescription;
 import org.hibernate.search.standalone.dto.DtoQueryExecutor;
 import org.hibernate.search.standalone.entity.EntityProvider;
 
@@ -35,49 +45,146 @@ public class HSearchQueryImpl implements HSearchQuery {
 	private final HSQuery hsquery;
 	private final DtoQueryExecutor queryExec;
 	private final SearchIntegrator searchIntegrator;
+	private final QueryListener queryListener;
+	private final QueryResultCache resultCache;
+	private final ExecutionTracker executionTracker;
+
+	// HSQuery has no getters for these, but we need them for searchAfter
+	private Sort sort;
+	private Filter filter;
+	private Integer firstResult;
+	private Integer maxResults;
+	private SearchAfterToken searchAfter;
+	// full-text filters and spatial parameters change the results in ways we can't
+	// put into the key of the result cache or copy into a compiled query
+	private boolean uncacheable;
+	// the searchAfter pages are collected without the TimeoutManager of the HSQuery
+	private boolean timeoutSet;
+	// the TimeoutManager has no getters either, but the asynchronous executions need a copy of the timeout
+	private long timeout;
+	private TimeUnit timeoutUnit;
+	private boolean limitFetchingOnTimeout;
 
 	public HSearchQueryImpl(HSQuery hsquery, DtoQueryExecutor queryExec, SearchIntegrator searchIntegrator) {
+		this( hsquery, queryExec, searchIntegrator, null );
+	}
+
+	/**
+	 * @param queryListener notified after every {@link #query(EntityProvider, Fetch)}, may be null
+	 */
+	public HSearchQueryImpl(HSQuery hsquery, DtoQueryExecutor queryExec, SearchIntegrator searchIntegrator, QueryListener queryListener) {
+		this( hsquery, queryExec, searchIntegrator, queryListener, null );
+	}
+
+	/**
+	 * @param resultCache cache for the projected results, may be null
+	 */
+	public HSearchQueryImpl(HSQuery hsquery, DtoQueryExecutor queryExec, SearchIntegrator searchIntegrator, QueryListener queryListener,
+			QueryResultCache resultCache) {
+		this( hsquery, queryExec, searchIntegrator, queryListener, resultCache, new ExecutionTracker() );
+	}
+
+	/**
+	 * @param executionTracker counts the executions of this query (until the returned streams are closed and the
+	 * asynchronous executions are completed)
+	 */
+	public HSearchQueryImpl(HSQuery hsquery, DtoQueryExecutor queryExec, SearchIntegrator searchIntegrator, QueryListener queryListener,
+			QueryResultCache resultCache, ExecutionTracker executionTracker) {
 		this.hsquery = hsquery;
 		this.queryExec = queryExec;
 		this.searchIntegrator = searchIntegrator;
+		this.queryListener = queryListener;
+		this.resultCache = resultCache;
+		this.executionTracker = executionTracker;
 	}
 
 	@Override
 	public HSearchQuery sort(Sort sort) {
+		this.sort = sort;
 		this.hsquery.sort( sort );
 		return this;
 	}
 
 	@Override
 	public HSearchQuery filter(Filter filter) {
+		this.filter = filter;
 		this.hsquery.filter( filter );
 		return this;
 	}
 
 	@Override
 	public HSearchQuery firstResult(int firstResult) {
+		this.firstResult = firstResult;
 		this.hsquery.firstResult( firstResult );
 		return this;
 	}
 
 	@Override
 	public HSearchQuery maxResults(int maxResults) {
+		this.maxResults = maxResults;
 		this.hsquery.maxResults( maxResults );
 		return this;
 	}
 
+	@Override
+	public HSearchQuery searchAfter(SearchAfterToken token) {
+		this.searchAfter = token;
+		return this;
+	}
+
 	@Override
 	public Query getLuceneQuery() {
 		return this.hsquery.getLuceneQuery();
 	}
 
+	@Override
+	public CompiledHSearchQuery compile() {
+		if ( this.uncacheable ) {
+			throw new IllegalStateException( "queries with full-text filters or spatial parameters can't be compiled" );
+		}
+		return new CompiledHSearchQuery( this.searchIntegrator, this.queryExec, this.queryListener, this.resultCache, this.executionTracker,
+				this.hsquery.getLuceneQuery(), this.hsquery.getTargetedEntities(), this.sort, this.filter );
+	}
+
 	@Override
 	public <R> List<R> queryDto(Class<R> returnedType) {
-		return this.queryExec.executeHSQuery( this.hsquery, returnedType );
+		return this.tracked( () -> this.queryExec.executeHSQuery( this.hsquery, returnedType ) );
+	}
+
+	@Override
+	public <R> List<R> queryDto(Class<R> returnedType, EntityProvider entityProvider) {
+		return this.tracked( () -> this.queryExec.executeHSQuery( this.hsquery, returnedType, DtoDescription.DEFAULT_PROFILE, entityProvider ) );
+	}
+
+	@Override
+	public <R> void queryDto(Class<R> returnedType, Consumer<? super R> consumer) {
+		this.tracked( () -> {
+			this.queryExec.executeHSQuery( this.hsquery, returnedType, DtoDescription.DEFAULT_PROFILE, consumer );
+			return null;
+		} );
+	}
+
+	@Override
+	public <R> Stream<R> streamDto(Class<R> returnedType) {
+		this.executionTracker.begin();
+		try {
+			return this.queryExec.streamHSQuery( this.hsquery, returnedType, DtoDescription.DEFAULT_PROFILE ).onClose( this.executionTracker::end );
+		}
+		catch (RuntimeException e) {
+			this.executionTracker.end();
+			throw e;
+		}
 	}
 
 	@Override
 	public List<Object[]> queryProjection(String... projection) {
+		return this.tracked( () -> this.executeProjection( projection ) );
+	}
+
+	private List<Object[]> executeProjection(String... projection) {
+		if ( this.searchAfter != null || this.resultCache != null ) {
+			return this.queryProjectionPage( projection ).getResults();
+		}
 		String[] projectedFieldsBefore = this.hsquery.getProjectedFields();
 		List<Object[]> ret;
 		{
@@ -94,16 +201,91 @@ public class HSearchQueryImpl implements HSearchQuery {
 		return ret;
 	}
 
+	@Override
+	public ColumnarResult queryColumns(ColumnarResult.Column... columns) {
+		if ( this.uncacheable ) {
+			throw new IllegalStateException( "full-text filters and spatial parameters are not supported by queryColumns" );
+		}
+		return this.tracked( () -> new ColumnarExecutor( this.searchIntegrator ).execute( this.hsquery.getLuceneQuery(),
+				this.hsquery.getTargetedEntities(), this.filter, this.sort, this.firstResult, this.maxResults, columns ) );
+	}
+
+	@Override
+	public QueryPage<Object[]> queryProjectionPage(String... projection) {
+		return this.tracked( () -> this.executeProjectionPageOrCached( projection ) );
+	}
+
+	private QueryPage<Object[]> executeProjectionPageOrCached(String... projection) {
+		if ( this.searchAfter != null ) {
+			if ( this.uncacheable ) {
+				throw new IllegalStateException( "full-text filters and spatial parameters are not supported with searchAfter" );
+			}
+			if ( this.timeoutSet ) {
+				throw new IllegalStateException( "timeouts are not supported with searchAfter" );
+			}
+			if ( this.maxResults == null ) {
+				throw new IllegalStateException( "maxResults has to be set when using searchAfter" );
+			}
+			return new SearchAfterExecutor( this.searchIntegrator ).execute( this.hsquery.getLuceneQuery(), this.hsquery.getTargetedEntities(),
+					this.filter, this.sort, this.maxResults, this.searchAfter, projection );
+		}
+		Object indexState = null;
+		if ( this.resultCache != null && !this.uncacheable ) {
+			indexState = QueryResultCache.indexState( this.searchIntegrator,
+					SearchAfterExecutor.targetedClasses( this.searchIntegrator, this.hsquery.getTargetedEntities() ).values() );
+		}
+		if ( indexState != null ) {
+			QueryResultCache.Key key = new QueryResultCache.Key( this.hsquery.getLuceneQuery(), this.hsquery.getTargetedEntities(), this.sort,
+					this.filter, this.firstResult, this.maxResults, projection, indexState );
+			QueryPage<Object[]> page = this.resultCache.get( key );
+			if ( page == null ) {
+				page = this.executeProjectionPage( projection );
+				if ( page.isTotalExact() ) {
+					// partial results must not be served to others
+					this.resultCache.put( key, page );
+				}
+			}
+			return page;
+		}
+		return this.executeProjectionPage( projection );
+	}
+
+	private QueryPage<Object[]> executeProjectionPage(String... projection) {
+		String[] projectedFieldsBefore = this.hsquery.getProjectedFields();
+		List<Object[]> ret;
+		int totalHits;
+		{
+			this.hsquery.getTimeoutManager().start();
+
+			this.hsquery.projection( projection );
+			ret = this.hsquery.queryEntityInfos().stream().map( (entityInfo) -> {
+				return entityInfo.getProjection();
+			} ).collect( Collectors.toList() );
+			// the total hit count is computed by the same collector pass
+			// and cached by the HSQuery until it is changed
+			totalHits = this.hsquery.queryResultSize();
+
+			this.hsquery.getTimeoutManager().stop();
+		}
+		boolean totalExact = !this.hsquery.getTimeoutManager().hasPartialResults();
+		this.hsquery.projection( projectedFieldsBefore );
+		return new QueryPage<>( ret, totalHits, totalExact );
+	}
+
 	@Override
 	public int queryResultSize() {
-		this.hsquery.getTimeoutManager().start();
-		int resultSize = this.hsquery.queryResultSize();
-		this.hsquery.getTimeoutManager().stop();
-		return resultSize;
+		return this.tracked( () -> {
+			this.hsquery.getTimeoutManager().start();
+			int resultSize = this.hsquery.queryResultSize();
+			this.hsquery.getTimeoutManager().stop();
+			return resultSize;
+		} );
 	}
 
 	@Override
 	public FullTextFilter enableFullTextFilter(String name) {
+		// the parameters of the filter can be changed afterwards
+		this.uncacheable = true;
 		return hsquery.enableFullTextFilter( name );
 	}
 
@@ -112,14 +294,182 @@ public class HSearchQueryImpl implements HSearchQuery {
 		this.hsquery.disableFullTextFilter( name );
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@SuppressWarnings({ "rawtypes" })
 	@Override
 	public List query(EntityProvider entityProvider, Fetch fetchType) {
+		return this.tracked( () -> {
+			long[] nanos = new long[2];
+			QueryPage<Object[]> projected = this.projectIds( nanos );
+			return this.hydrate( entityProvider, fetchType, projected.getResults(), nanos[0], nanos[1] );
+		} );
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> QueryPage<T> queryPage(EntityProvider entityProvider, Fetch fetchType) {
+		return this.tracked( () -> {
+			long[] nanos = new long[2];
+			QueryPage<Object[]> projected = this.projectIds( nanos );
+			return new QueryPage<>( this.hydrate( entityProvider, fetchType, projected.getResults(), nanos[0], nanos[1] ),
+					projected.getTotalHits(), projected.isTotalExact(), projected.getNextToken() );
+		} );
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public CompletableFuture<List> queryAsync(EntityProvider entityProvider, Fetch fetchType, Executor searchExecutor, Executor fetchExecutor) {
+		HSearchQueryImpl snapshot = this.snapshot();
+		long[] nanos = new long[2];
+		return this.trackedAsync( () -> CompletableFuture.supplyAsync( () -> {
+			return snapshot.projectIds( nanos );
+		}, searchExecutor ).thenApplyAsync( (projected) -> {
+			return snapshot.hydrate( entityProvider, fetchType, projected.getResults(), nanos[0], nanos[1] );
+		}, fetchExecutor ) );
+	}
+
+	@Override
+	public CompletableFuture<Integer> queryResultSizeAsync(Executor searchExecutor) {
+		HSearchQueryImpl snapshot = this.snapshot();
+		return this.trackedAsync( () -> CompletableFuture.supplyAsync( snapshot::queryResultSize, searchExecutor ) );
+	}
+
+	@Override
+	public CompletableFuture<List<Object[]>> queryProjectionAsync(Executor searchExecutor, String... projection) {
+		HSearchQueryImpl snapshot = this.snapshot();
+		return this.trackedAsync( () -> CompletableFuture.supplyAsync( () -> snapshot.queryProjection( projection ), searchExecutor ) );
+	}
+
+	/**
+	 * copies the current state into a query with its own HSQuery. The asynchronous executions run on such a copy, so
+	 * they neither race with each other nor with changes and executions of this query on the calling thread
+	 */
+	private HSearchQueryImpl snapshot() {
+		if ( this.uncacheable ) {
+			throw new IllegalStateException( "queries with full-text filters or spatial parameters can't be executed asynchronously" );
+		}
+		HSQuery hsQuery = this.searchIntegrator.createHSQuery();
+		hsQuery.luceneQuery( this.hsquery.getLuceneQuery() );
+		hsQuery.targetedEntities( this.hsquery.getTargetedEntities() );
+		HSearchQueryImpl snapshot = new HSearchQueryImpl( hsQuery, this.queryExec, this.searchIntegrator, this.queryListener, this.resultCache,
+				this.executionTracker );
+		if ( this.sort != null ) {
+			snapshot.sort( this.sort );
+		}
+		if ( this.filter != null ) {
+			snapshot.filter( this.filter );
+		}
+		if ( this.firstResult != null ) {
+			snapshot.firstResult( this.firstResult );
+		}
+		if ( this.maxResults != null ) {
+			snapshot.maxResults( this.maxResults );
+		}
+		snapshot.searchAfter( this.searchAfter );
+		if ( this.timeoutSet ) {
+			if ( this.limitFetchingOnTimeout ) {
+				snapshot.limitExecutionTimeTo( this.timeout, this.timeoutUnit );
+			}
+			else {
+				snapshot.setTimeout( this.timeout, this.timeoutUnit );
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * counts the execution until it has returned
+	 */
+	private <T> T tracked(Supplier<T> execution) {
+		this.executionTracker.begin();
+		try {
+			return execution.get();
+		}
+		finally {
+			this.executionTracker.end();
+		}
+	}
+
+	/**
+	 * counts the execution from its submission until the returned future is completed
+	 */
+	private <T> CompletableFuture<T> trackedAsync(Supplier<CompletableFuture<T>> execution) {
+		this.executionTracker.begin();
+		CompletableFuture<T> future;
+		try {
+			future = execution.get();
+		}
+		catch (RuntimeException e) {
+			this.executionTracker.end();
+			throw e;
+		}
+		return future.whenComplete( (result, throwable) -> this.executionTracker.end() );
+	}
+
+	/**
+	 * projects the class and the id of the hits. The Lucene search is timed into nanos[0] and the extraction of the
+	 * stored fields into nanos[1]. Pages from the result cache or from searchAfter are only timed as a whole (into
+	 * nanos[0])
+	 */
+	private QueryPage<Object[]> projectIds(long[] nanos) {
+		long start = System.nanoTime();
+		if ( this.searchAfter != null || this.resultCache != null ) {
+			QueryPage<Object[]> page = this.queryProjectionPage( ProjectionConstants.OBJECT_CLASS, ProjectionConstants.ID );
+			nanos[0] = System.nanoTime() - start;
+			return page;
+		}
+		String[] projectedFieldsBefore = this.hsquery.getProjectedFields();
+		DocumentExtractor extractor;
+		this.hsquery.getTimeoutManager().start();
+		try {
+			this.hsquery.projection( ProjectionConstants.OBJECT_CLASS, ProjectionConstants.ID );
+			// the extractor only collects the doc ids, the stored fields are loaded on extract
+			extractor = this.hsquery.queryDocumentExtractor();
+		}
+		catch (RuntimeException e) {
+			this.hsquery.getTimeoutManager().stop();
+			throw e;
+		}
+		finally {
+			this.hsquery.projection( projectedFieldsBefore );
+		}
+		long extractionStart = System.nanoTime();
+		nanos[0] = extractionStart - start;
+		List<Object[]> ret = new ArrayList<>( Math.max( extractor.getMaxIndex() - extractor.getFirstIndex() + 1, 0 ) );
+		int totalHits;
+		try {
+			for ( int i = extractor.getFirstIndex(); i <= extractor.getMaxIndex(); ++i ) {
+				ret.add( extractor.extract( i ).getProjection() );
+			}
+			// computed by the same collector pass and cached by the HSQuery
+			totalHits = this.hsquery.queryResultSize();
+		}
+		catch (IOException e) {
+			throw new SearchException( "couldn't read the hits from the index", e );
+		}
+		finally {
+			extractor.close();
+			this.hsquery.getTimeoutManager().stop();
+		}
+		nanos[1] = System.nanoTime() - extractionStart;
+		boolean totalExact = !this.hsquery.getTimeoutManager().hasPartialResults();
+		return new QueryPage<>( ret, totalHits, totalExact );
+	}
+
+	/**
+	 * loads the entities for the projected (class, id) pairs
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private List hydrate(EntityProvider entityProvider, Fetch fetchType, List<Object[]> projected, long searchNanos, long extractionNanos) {
+		long start = System.nanoTime() - searchNanos - extractionNanos;
 		List<Object> ret;
-		List<Object[]> projected = this.queryProjection( ProjectionConstants.OBJECT_CLASS, ProjectionConstants.ID );
+		Map<Class<?>, Long> fetchNanos = new HashMap<>();
+		long reassemblyNanos = 0;
 		if ( fetchType == Fetch.FIND_BY_ID ) {
 			ret = projected.stream().map( (arr) -> {
-				return entityProvider.get( (Class<?>) arr[0], arr[1] );
+				long fetchStart = System.nanoTime();
+				Object value = entityProvider.get( (Class<?>) arr[0], arr[1] );
+				fetchNanos.merge( (Class<?>) arr[0], System.nanoTime() - fetchStart, Long::sum );
+				return value;
 			} ).collect( Collectors.toList() );
 		}
 		else {
@@ -141,13 +491,17 @@ public class HSearchQueryImpl implements HSearchQuery {
 			} );
 			// get all entities of the same type in one batch
 			idsForClass.entrySet().forEach( (Map.Entry<Class<?>, List<Object>> entry) -> {
-				entityProvider.getBatch( entry.getKey(), entry.getValue() ).stream().forEach( (object) -> {
+				long fetchStart = System.nanoTime();
+				List batch = entityProvider.getBatch( entry.getKey(), entry.getValue() );
+				fetchNanos.put( entry.getKey(), System.nanoTime() - fetchStart );
+				batch.stream().forEach( (object) -> {
 					Object id = this.searchIntegrator.getIndexBinding( entry.getKey() ).getDocumentBuilder().getId( object );
 					Object value = object;
 					idToObject.put( id, value );
 				} );
 			} );
 			// and put everything back into order
+			long reassemblyStart = System.nanoTime();
 			originalOrder.stream().forEach( (id) -> {
 				Object value = idToObject.get( id );
 				if ( value == null ) {
@@ -157,10 +511,17 @@ public class HSearchQueryImpl implements HSearchQuery {
 					ret.add( idToObject.get( id ) );
 				}
 			} );
+			reassemblyNanos = System.nanoTime() - reassemblyStart;
 		}
 		if ( ret.size() != projected.size() ) {
 			LOGGER.info( "returned size was not equal to projected size" );
 		}
+		if ( this.queryListener != null ) {
+			// FIND_BY_ID returns nulls for entities that were not found
+			int hydrated = (int) ret.stream().filter( Objects::nonNull ).count();
+			this.queryListener.queryExecuted( new QueryExecutionInfo( this.hsquery.getLuceneQuery().toString(), fetchType, projected.size(), hydrated,
+					searchNanos, extractionNanos, fetchNanos, reassemblyNanos, System.nanoTime() - start ) );
+		}
 		return ret;
 	}
 
@@ -168,6 +529,10 @@ public class HSearchQueryImpl implements HSearchQuery {
 	public HSearchQuery setTimeout(long timeout, TimeUnit timeUnit) {
 		this.hsquery.getTimeoutManager().setTimeout( timeout, timeUnit );
 		this.hsquery.getTimeoutManager().raiseExceptionOnTimeout();
+		this.timeoutSet = true;
+		this.timeout = timeout;
+		this.timeoutUnit = timeUnit;
+		this.limitFetchingOnTimeout = false;
 		return this;
 	}
 
@@ -175,6 +540,10 @@ public class HSearchQueryImpl implements HSearchQuery {
 	public HSearchQuery limitExecutionTimeTo(long timeout, TimeUnit timeUnit) {
 		this.hsquery.getTimeoutManager().setTimeout( timeout, timeUnit );
 		this.hsquery.getTimeoutManager().limitFetchingOnTimeout();
+		this.timeoutSet = true;
+		this.timeout = timeout;
+		this.timeoutUnit = timeUnit;
+		this.limitFetchingOnTimeout = true;
 		return this;
 	}
 
@@ -185,7 +554,7 @@ public class HSearchQueryImpl implements HSearchQuery {
 
 	@Override
 	public Explanation explain(int documentId) {
-		return this.hsquery.explain( documentId );
+		return this.tracked( () -> this.hsquery.explain( documentId ) );
 	}
 
 	@Override
@@ -206,6 +575,7 @@ public class HSearchQueryImpl implements HSearchQuery {
 
 	@Override
 	public HSearchQuery setSpatialParameters(Coordinates center, String fieldName) {
+		this.uncacheable = true;
 		this.hsquery.setSpatialParameters( center, fieldName );
 		return this;
 	}
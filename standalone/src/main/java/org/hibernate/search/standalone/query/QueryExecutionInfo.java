@@ -0,0 +1,119 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.query;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * timing breakdown of one query execution. All durations are in nanoseconds.
+ *
+ * @author Martin Braun
+ */
+public final class QueryExecutionInfo {
+
+	private final String query;
+	private final HSearchQuery.Fetch fetchType;
+	private final int hitCount;
+	private final int hydratedCount;
+	private final long searchNanos;
+	private final long extractionNanos;
+	private final Map<Class<?>, Long> fetchNanos;
+	private final long reassemblyNanos;
+	private final long totalNanos;
+
+	public QueryExecutionInfo(String query, HSearchQuery.Fetch fetchType, int hitCount, int hydratedCount, long searchNanos, long extractionNanos,
+			Map<Class<?>, Long> fetchNanos, long reassemblyNanos, long totalNanos) {
+		this.query = query;
+		this.fetchType = fetchType;
+		this.hitCount = hitCount;
+		this.hydratedCount = hydratedCount;
+		this.searchNanos = searchNanos;
+		this.extractionNanos = extractionNanos;
+		this.fetchNanos = Collections.unmodifiableMap( fetchNanos );
+		this.reassemblyNanos = reassemblyNanos;
+		this.totalNanos = totalNanos;
+	}
+
+	/**
+	 * @return the String representation of the query
+	 */
+	public String getQuery() {
+		return this.query;
+	}
+
+	public HSearchQuery.Fetch getFetchType() {
+		return this.fetchType;
+	}
+
+	/**
+	 * @return the number of hits returned from the index
+	 */
+	public int getHitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * @return the number of entities that were found in the database for the hits
+	 */
+	public int getHydratedCount() {
+		return this.hydratedCount;
+	}
+
+	/**
+	 * @return the time the Lucene search (collecting the top documents) took. For results that were served from the
+	 * result cache or by a searchAfter page this also contains the extraction as these are only timed as a whole
+	 */
+	public long getSearchNanos() {
+		return this.searchNanos;
+	}
+
+	/**
+	 * @return the time it took to load the class and the id of the hits from the stored fields of the index
+	 */
+	public long getExtractionNanos() {
+		return this.extractionNanos;
+	}
+
+	/**
+	 * @return the time it took to fetch the entities of each class from the database
+	 */
+	public Map<Class<?>, Long> getFetchNanos() {
+		return this.fetchNanos;
+	}
+
+	/**
+	 * @return the sum of {@link #getFetchNanos()}
+	 */
+	public long getTotalFetchNanos() {
+		long sum = 0;
+		for ( Long nanos : this.fetchNanos.values() ) {
+			sum += nanos;
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the time it took to put the fetched entities back into the order of the hits
+	 */
+	public long getReassemblyNanos() {
+		return this.reassemblyNanos;
+	}
+
+	public long getTotalNanos() {
+		return this.totalNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "QueryExecutionInfo [query=" + this.query + ", fetchType=" + this.fetchType + ", hitCount=" + this.hitCount + ", hydratedCount="
+				+ this.hydratedCount + ", searchNanos=" + this.searchNanos + ", extractionNanos="
+				+ this.extractionNanos + ", fetchNanos=" + this.fetchNanos + ", reassemblyNanos=" + this.reassemblyNanos
+				+ ", totalNanos=" + this.totalNanos + "]";
+	}
+
+}
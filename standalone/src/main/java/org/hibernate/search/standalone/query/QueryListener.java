@@ -0,0 +1,19 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.query;
+
+/**
+ * gets notified after every {@link HSearchQuery#query(org.hibernate.search.standalone.entity.EntityProvider,
+ * HSearchQuery.Fetch)}. This can be called from several threads at once and should return quickly
+ *
+ * @author Martin Braun
+ */
+public interface QueryListener {
+
+	void queryExecuted(QueryExecutionInfo info);
+
+}
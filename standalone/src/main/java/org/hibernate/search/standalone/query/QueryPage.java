@@ -0,0 +1,71 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.query;
+
+import java.util.List;
+
+/**
+ * one page of results together with the total number of hits of the query
+ *
+ * @author Martin Braun
+ */
+public final class QueryPage<T> {
+
+	private final List<T> results;
+	private final int totalHits;
+	private final boolean totalExact;
+	private final SearchAfterToken nextToken;
+
+	public QueryPage(List<T> results, int totalHits, boolean totalExact) {
+		this( results, totalHits, totalExact, null );
+	}
+
+	public QueryPage(List<T> results, int totalHits, boolean totalExact, SearchAfterToken nextToken) {
+		this.results = results;
+		this.totalHits = totalHits;
+		this.totalExact = totalExact;
+		this.nextToken = nextToken;
+	}
+
+	/**
+	 * @return the results of this page (limited by firstResult and maxResults)
+	 */
+	public List<T> getResults() {
+		return this.results;
+	}
+
+	/**
+	 * @return the number of hits in the index for the whole query. This might be different from the number of
+	 * entities found in the database
+	 */
+	public int getTotalHits() {
+		return this.totalHits;
+	}
+
+	/**
+	 * @return false if the search was stopped early (see {@link HSearchQuery#limitExecutionTimeTo(long,
+	 * java.util.concurrent.TimeUnit)}) and {@link #getTotalHits()} is only a lower bound
+	 */
+	public boolean isTotalExact() {
+		return this.totalExact;
+	}
+
+	/**
+	 * @return the token to pass to {@link HSearchQuery#searchAfter(SearchAfterToken)} for the next page or null if
+	 * this is the last page (or searchAfter was not used)
+	 */
+	public SearchAfterToken getNextToken() {
+		return this.nextToken;
+	}
+
+	@Override
+	public String toString() {
+		return "QueryPage [results=" + this.results + ", totalHits=" + this.totalHits + ", totalExact=" + this.totalExact + ", nextToken="
+				+ this.nextToken + "]";
+	}
+
+}
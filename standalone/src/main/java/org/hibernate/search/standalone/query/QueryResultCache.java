@@ -0,0 +1,171 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.hibernate.search.engine.spi.EntityIndexBinding;
+import org.hibernate.search.indexes.spi.IndexManager;
+import org.hibernate.search.indexes.spi.ReaderProvider;
+import org.hibernate.search.spi.SearchIntegrator;
+
+/**
+ * LRU cache for the projected results of queries. The entries are keyed by everything that influences the result
+ * (query, targeted entities, sort, filter, paging and projection) and by the versions of the indexes that were
+ * used. As soon as the index changes, the old entries don't match anymore and are evicted over time. Only the
+ * projections (usually class and id) are cached, the entities are still loaded from the EntityProvider.
+ *
+ * @author Martin Braun
+ */
+public class QueryResultCache {
+
+	private final Map<Key, QueryPage<Object[]>> cache;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	public QueryResultCache(int maxEntries) {
+		if ( maxEntries <= 0 ) {
+			throw new IllegalArgumentException( "maxEntries must be greater than 0" );
+		}
+		this.cache = new LinkedHashMap<Key, QueryPage<Object[]>>( 16, 0.75F, true ) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, QueryPage<Object[]>> eldest) {
+				return this.size() > maxEntries;
+			}
+
+		};
+	}
+
+	/**
+	 * @return the state of the indexes of the given classes: the version of the current DirectoryReader per index. This
+	 * changes whenever the index is changed. Only numbers are kept so the cache doesn't hold on to closed readers.
+	 * The readers are acquired from the ReaderProviders of the IndexManagers, which usually share them between
+	 * queries, but this is still one open/close round trip per index on every cached query. Null if the state can't be
+	 * determined (a class without an index or a reader that isn't a DirectoryReader), the query must not be cached
+	 * then
+	 */
+	static Object indexState(SearchIntegrator searchIntegrator, Collection<Class<?>> classes) {
+		Map<String, Long> versions = new HashMap<>();
+		for ( Class<?> clazz : classes ) {
+			EntityIndexBinding indexBinding = searchIntegrator.getIndexBinding( clazz );
+			if ( indexBinding == null ) {
+				return null;
+			}
+			for ( IndexManager indexManager : indexBinding.getIndexManagers() ) {
+				if ( versions.containsKey( indexManager.getIndexName() ) ) {
+					continue;
+				}
+				ReaderProvider readerProvider = indexManager.getReaderProvider();
+				IndexReader reader = readerProvider.openIndexReader();
+				try {
+					if ( !( reader instanceof DirectoryReader ) ) {
+						return null;
+					}
+					versions.put( indexManager.getIndexName(), ( (DirectoryReader) reader ).getVersion() );
+				}
+				finally {
+					readerProvider.closeIndexReader( reader );
+				}
+			}
+		}
+		return versions;
+	}
+
+	QueryPage<Object[]> get(Key key) {
+		QueryPage<Object[]> page;
+		synchronized (this.cache) {
+			page = this.cache.get( key );
+		}
+		if ( page == null ) {
+			this.misses.increment();
+			return null;
+		}
+		this.hits.increment();
+		return copy( page );
+	}
+
+	void put(Key key, QueryPage<Object[]> page) {
+		QueryPage<Object[]> copy = copy( page );
+		synchronized (this.cache) {
+			this.cache.put( key, copy );
+		}
+	}
+
+	public void clear() {
+		synchronized (this.cache) {
+			this.cache.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (this.cache) {
+			return this.cache.size();
+		}
+	}
+
+	public long getHitCount() {
+		return this.hits.sum();
+	}
+
+	public long getMissCount() {
+		return this.misses.sum();
+	}
+
+	private static QueryPage<Object[]> copy(QueryPage<Object[]> page) {
+		List<Object[]> results = new ArrayList<>( page.getResults().size() );
+		for ( Object[] row : page.getResults() ) {
+			results.add( row.clone() );
+		}
+		return new QueryPage<>( results, page.getTotalHits(), page.isTotalExact() );
+	}
+
+	static final class Key {
+
+		private final List<Object> values;
+		private final int hashCode;
+
+		Key(Query query, List<Class<?>> targetedEntities, Sort sort, Filter filter, Integer firstResult, Integer maxResults, String[] projection,
+				Object indexState) {
+			this.values = Arrays.asList( query, targetedEntities, sort, filter, firstResult, maxResults, Arrays.asList( projection ), indexState );
+			this.hashCode = this.values.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if ( this == obj ) {
+				return true;
+			}
+			if ( !( obj instanceof Key ) ) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return this.hashCode == other.hashCode && this.values.equals( other.values );
+		}
+
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.query;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link QueryListener} that aggregates the executions into histograms per phase
+ *
+ * @author Martin Braun
+ */
+public class QueryStatistics implements QueryListener {
+
+	private final Histogram search = new Histogram();
+	private final Histogram extraction = new Histogram();
+	private final Histogram fetch = new Histogram();
+	private final Histogram reassembly = new Histogram();
+	private final Histogram total = new Histogram();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder hydrated = new LongAdder();
+	private final LongAdder incompleteQueries = new LongAdder();
+
+	@Override
+	public void queryExecuted(QueryExecutionInfo info) {
+		this.search.record( info.getSearchNanos() );
+		this.extraction.record( info.getExtractionNanos() );
+		this.fetch.record( info.getTotalFetchNanos() );
+		this.reassembly.record( info.getReassemblyNanos() );
+		this.total.record( info.getTotalNanos() );
+		this.hits.add( info.getHitCount() );
+		this.hydrated.add( info.getHydratedCount() );
+		if ( info.getHitCount() != info.getHydratedCount() ) {
+			this.incompleteQueries.increment();
+		}
+	}
+
+	public long getQueryCount() {
+		return this.total.getCount();
+	}
+
+	public Histogram getSearchHistogram() {
+		return this.search;
+	}
+
+	public Histogram getExtractionHistogram() {
+		return this.extraction;
+	}
+
+	public Histogram getFetchHistogram() {
+		return this.fetch;
+	}
+
+	public Histogram getReassemblyHistogram() {
+		return this.reassembly;
+	}
+
+	public Histogram getTotalHistogram() {
+		return this.total;
+	}
+
+	/**
+	 * @return the number of hits returned from the index over all queries
+	 */
+	public long getHitCount() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * @return the number of entities found in the database over all queries
+	 */
+	public long getHydratedCount() {
+		return this.hydrated.sum();
+	}
+
+	/**
+	 * @return the number of queries for which not every hit was found in the database (i.e. the index was not up to
+	 * date)
+	 */
+	public long getIncompleteQueryCount() {
+		return this.incompleteQueries.sum();
+	}
+
+	public void clear() {
+		this.search.clear();
+		this.extraction.clear();
+		this.fetch.clear();
+		this.reassembly.clear();
+		this.total.clear();
+		this.hits.reset();
+		this.hydrated.reset();
+		this.incompleteQueries.reset();
+	}
+
+	/**
+	 * histogram of durations with buckets of exponentially growing (powers of two) microseconds
+	 */
+	public static final class Histogram {
+
+		private static final int BUCKETS = 64;
+
+		private final AtomicLongArray buckets = new AtomicLongArray( BUCKETS );
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator( Math::max, 0 );
+
+		void record(long nanos) {
+			long micros = Math.max( nanos / 1000, 0 );
+			this.buckets.incrementAndGet( BUCKETS - Long.numberOfLeadingZeros( micros ) );
+			this.count.increment();
+			this.sum.add( nanos );
+			this.max.accumulate( nanos );
+		}
+
+		public long getCount() {
+			return this.count.sum();
+		}
+
+		public double getAverageMillis() {
+			long count = this.count.sum();
+			return count == 0 ? 0 : this.sum.sum() / (double) count / 1_000_000D;
+		}
+
+		public double getMaxMillis() {
+			return this.max.get() / 1_000_000D;
+		}
+
+		/**
+		 * @return the counts per bucket. Bucket 0 contains the durations below 1 microsecond, bucket i > 0 the
+		 * durations from 2^(i-1) (inclusive) to 2^i (exclusive) microseconds
+		 */
+		public long[] getBuckets() {
+			long[] ret = new long[BUCKETS];
+			for ( int i = 0; i < BUCKETS; ++i ) {
+				ret[i] = this.buckets.get( i );
+			}
+			return ret;
+		}
+
+		/**
+		 * @param percentile between 0 and 100
+		 *
+		 * @return an upper bound (in milliseconds) for the given percentile of the recorded durations, accurate to a
+		 * factor of two
+		 */
+		public double getPercentileMillis(double percentile) {
+			if ( percentile < 0 || percentile > 100 ) {
+				throw new IllegalArgumentException( "percentile has to be between 0 and 100" );
+			}
+			long[] buckets = this.getBuckets();
+			long count = 0;
+			for ( long bucket : buckets ) {
+				count += bucket;
+			}
+			if ( count == 0 ) {
+				return 0;
+			}
+			long rank = (long) Math.ceil( count * percentile / 100D );
+			long seen = 0;
+			for ( int i = 0; i < BUCKETS; ++i ) {
+				seen += buckets[i];
+				if ( seen >= rank && buckets[i] > 0 ) {
+					return ( 1L << i ) / 1000D;
+				}
+			}
+			return this.getMaxMillis();
+		}
+
+		void clear() {
+			for ( int i = 0; i < BUCKETS; ++i ) {
+				this.buckets.set( i, 0 );
+			}
+			this.count.reset();
+			this.sum.reset();
+			this.max.reset();
+		}
+
+	}
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryWrapperFilter;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.hibernate.search.engine.ProjectionConstants;
+import org.hibernate.search.engine.spi.DocumentBuilderIndexedEntity;
+import org.hibernate.search.exception.SearchException;
+import org.hibernate.search.spi.SearchIntegrator;
+
+/**
+ * runs a query with {@link IndexSearcher#searchAfter(ScoreDoc, Query, Filter, int, Sort, boolean, boolean)} directly
+ * on the IndexReaders of the targeted entities as HSQuery has no support for this.
+ *
+ * @author Martin Braun
+ */
+final class SearchAfterExecutor {
+
+	private final SearchIntegrator searchIntegrator;
+
+	SearchAfterExecutor(SearchIntegrator searchIntegrator) {
+		this.searchIntegrator = searchIntegrator;
+	}
+
+	/**
+	 * @param projection only {@link ProjectionConstants#OBJECT_CLASS}, {@link ProjectionConstants#ID} and
+	 * {@link ProjectionConstants#SCORE} are supported
+	 */
+	QueryPage<Object[]> execute(Query luceneQuery, List<Class<?>> targetedEntities, Filter filter, Sort sort, int maxResults, SearchAfterToken after,
+			String[] projection) {
+		boolean score = false;
+		for ( String field : projection ) {
+			if ( ProjectionConstants.SCORE.equals( field ) ) {
+				score = true;
+			}
+			else if ( !ProjectionConstants.OBJECT_CLASS.equals( field ) && !ProjectionConstants.ID.equals( field ) ) {
+				throw new IllegalArgumentException( "only OBJECT_CLASS, ID and SCORE can be projected with searchAfter, found: " + field );
+			}
+		}
+		Map<String, Class<?>> classes = targetedClasses( this.searchIntegrator, targetedEntities );
+		Set<String> fieldsToLoad = new HashSet<>();
+		fieldsToLoad.add( ProjectionConstants.OBJECT_CLASS );
+		BooleanQuery classQuery = new BooleanQuery();
+		for ( Class<?> clazz : classes.values() ) {
+			classQuery.add( new TermQuery( new Term( ProjectionConstants.OBJECT_CLASS, clazz.getName() ) ), Occur.SHOULD );
+			fieldsToLoad.add( this.documentBuilder( clazz ).getIdKeywordName() );
+		}
+		// the index might contain other entities as well
+		Query query = new FilteredQuery( luceneQuery, new QueryWrapperFilter( classQuery ) );
+
+		IndexReader reader = this.searchIntegrator.getIndexReaderAccessor().open( classes.values().toArray( new Class<?>[classes.size()] ) );
+		try {
+			IndexSearcher searcher = new IndexSearcher( reader );
+			ScoreDoc afterDoc = after.toScoreDoc();
+			TopDocs topDocs;
+			if ( sort == null ) {
+				topDocs = searcher.searchAfter( afterDoc, query, filter, maxResults );
+			}
+			else {
+				topDocs = searcher.searchAfter( afterDoc, query, filter, maxResults, sort, score, false );
+			}
+			List<Object[]> ret = new ArrayList<>( topDocs.scoreDocs.length );
+			for ( ScoreDoc scoreDoc : topDocs.scoreDocs ) {
+				Document document = searcher.doc( scoreDoc.doc, fieldsToLoad );
+				Class<?> clazz = classes.get( document.get( ProjectionConstants.OBJECT_CLASS ) );
+				DocumentBuilderIndexedEntity builder = this.documentBuilder( clazz );
+				Object id = builder.getIdBridge().get( builder.getIdKeywordName(), document );
+				Object[] row = new Object[projection.length];
+				for ( int i = 0; i < projection.length; ++i ) {
+					if ( ProjectionConstants.OBJECT_CLASS.equals( projection[i] ) ) {
+						row[i] = clazz;
+					}
+					else if ( ProjectionConstants.ID.equals( projection[i] ) ) {
+						row[i] = id;
+					}
+					else {
+						row[i] = scoreDoc.score;
+					}
+				}
+				ret.add( row );
+			}
+			SearchAfterToken next = null;
+			if ( topDocs.scoreDocs.length == maxResults && maxResults > 0 ) {
+				next = SearchAfterToken.of( topDocs.scoreDocs[topDocs.scoreDocs.length - 1] );
+			}
+			return new QueryPage<>( ret, topDocs.totalHits, true, next );
+		}
+		catch (IOException e) {
+			throw new SearchException( "couldn't execute the searchAfter query", e );
+		}
+		finally {
+			this.searchIntegrator.getIndexReaderAccessor().close( reader );
+		}
+	}
+
+	private DocumentBuilderIndexedEntity documentBuilder(Class<?> clazz) {
+		return this.searchIntegrator.getIndexBinding( clazz ).getDocumentBuilder();
+	}
+
+	/**
+	 * @return the targeted entities and all their indexed subclasses by name
+	 */
+	static Map<String, Class<?>> targetedClasses(SearchIntegrator searchIntegrator, List<Class<?>> targetedEntities) {
+		Map<String, Class<?>> ret = new HashMap<>();
+		for ( Class<?> indexed : searchIntegrator.getIndexedTypes() ) {
+			if ( targetedEntities == null || targetedEntities.isEmpty() ) {
+				ret.put( indexed.getName(), indexed );
+				continue;
+			}
+			for ( Class<?> targeted : targetedEntities ) {
+				if ( targeted.isAssignableFrom( indexed ) ) {
+					ret.put( indexed.getName(), indexed );
+					break;
+				}
+			}
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.query;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * cursor for deep pagination with {@link HSearchQuery#searchAfter(SearchAfterToken)}. It contains the last hit of the
+ * previous page (document, score and sort values) and can be serialized to be passed between requests. Start with
+ * {@link #START} and use {@link QueryPage#getNextToken()} afterwards.
+ *
+ * @author Martin Braun
+ */
+public final class SearchAfterToken implements Serializable {
+
+	private static final long serialVersionUID = 4253768293610932184L;
+
+	/**
+	 * token for the first page
+	 */
+	public static final SearchAfterToken START = new SearchAfterToken( -1, Float.NaN, null, null, -1 );
+
+	private final int doc;
+	private final float score;
+	// BytesRef is not serializable, so these are stored as byte[]
+	private final Object[] fields;
+	private final boolean[] bytesRefFields;
+	private final int shardIndex;
+
+	private SearchAfterToken(int doc, float score, Object[] fields, boolean[] bytesRefFields, int shardIndex) {
+		this.doc = doc;
+		this.score = score;
+		this.fields = fields;
+		this.bytesRefFields = bytesRefFields;
+		this.shardIndex = shardIndex;
+	}
+
+	static SearchAfterToken of(ScoreDoc scoreDoc) {
+		Object[] fields = null;
+		boolean[] bytesRefFields = null;
+		if ( scoreDoc instanceof FieldDoc ) {
+			Object[] docFields = ( (FieldDoc) scoreDoc ).fields;
+			fields = new Object[docFields.length];
+			bytesRefFields = new boolean[docFields.length];
+			for ( int i = 0; i < docFields.length; ++i ) {
+				if ( docFields[i] instanceof BytesRef ) {
+					BytesRef ref = (BytesRef) docFields[i];
+					fields[i] = Arrays.copyOfRange( ref.bytes, ref.offset, ref.offset + ref.length );
+					bytesRefFields[i] = true;
+				}
+				else {
+					fields[i] = docFields[i];
+				}
+			}
+		}
+		return new SearchAfterToken( scoreDoc.doc, scoreDoc.score, fields, bytesRefFields, scoreDoc.shardIndex );
+	}
+
+	/**
+	 * @return null for {@link #START}
+	 */
+	ScoreDoc toScoreDoc() {
+		if ( this.isStart() ) {
+			return null;
+		}
+		if ( this.fields == null ) {
+			return new ScoreDoc( this.doc, this.score, this.shardIndex );
+		}
+		Object[] docFields = new Object[this.fields.length];
+		for ( int i = 0; i < this.fields.length; ++i ) {
+			docFields[i] = this.bytesRefFields[i] ? new BytesRef( (byte[]) this.fields[i] ) : this.fields[i];
+		}
+		return new FieldDoc( this.doc, this.score, docFields, this.shardIndex );
+	}
+
+	public boolean isStart() {
+		return this.doc < 0;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchAfterToken [doc=" + this.doc + ", score=" + this.score + ", fields=" + Arrays.toString( this.fields ) + ", shardIndex="
+				+ this.shardIndex + "]";
+	}
+
+}
@@ -8,6 +8,8 @@ package org.hibernate.search.standalone.test.dto;
 
 import org.hibernate.search.standalone.dto.DtoDescriptor;
 import org.hibernate.search.standalone.dto.DtoDescriptorImpl;
+import org.hibernate.search.standalone.dto.DtoMapper;
+import org.hibernate.search.standalone.dto.DtoQueryExecutor;
 import org.hibernate.search.standalone.dto.DtoDescriptor.DtoDescription;
 import org.hibernate.search.standalone.dto.annotations.DtoField;
 import org.hibernate.search.standalone.dto.annotations.DtoOverEntity;
@@ -46,6 +48,58 @@ public class DtoDescriptorTest extends TestCase {
 
 	}
 
+	@DtoOverEntity(entityClass = B.class)
+	public static class D {
+
+		final String fieldOne;
+		final int fieldTwo;
+
+		public D(@DtoField(fieldName = "fieldOne") @DtoField(fieldName = "toastFieldName", profileName = "toast") String fieldOne,
+				@DtoField(fieldName = "fieldTwo") @DtoField(fieldName = "toastFieldTwo", profileName = "toast") int fieldTwo) {
+			this.fieldOne = fieldOne;
+			this.fieldTwo = fieldTwo;
+		}
+
+	}
+
+	// looks like a compiled record: the component annotations are on the fields and the canonical constructor
+	@DtoOverEntity(entityClass = B.class)
+	public static final class RecordLike {
+
+		@DtoField(fieldName = "fieldOne")
+		private final String fieldOne;
+		@DtoField(fieldName = "fieldTwo")
+		private final int fieldTwo;
+
+		public RecordLike(@DtoField(fieldName = "fieldOne") String fieldOne, @DtoField(fieldName = "fieldTwo") int fieldTwo) {
+			this.fieldOne = fieldOne;
+			this.fieldTwo = fieldTwo;
+		}
+
+	}
+
+	@DtoOverEntity(entityClass = B.class)
+	public static class Mixed {
+
+		@DtoField(fieldName = "other")
+		String other;
+
+		public Mixed(@DtoField(fieldName = "fieldOne") String fieldOne) {
+		}
+
+	}
+
+	@DtoOverEntity(entityClass = B.class)
+	public static class E {
+
+		@DtoField
+		String indexed;
+
+		@DtoField(fieldName = "text", fromDatabase = true)
+		String big;
+
+	}
+
 	public void testDescriptor() {
 		DtoDescriptor descriptor = new DtoDescriptorImpl();
 		DtoDescription description = descriptor.getDtoDescription( A.class );
@@ -76,4 +130,90 @@ public class DtoDescriptorTest extends TestCase {
 
 		}
 	}
+
+	public void testMapper() {
+		DtoDescription description = new DtoDescriptorImpl().getDtoDescription( A.class );
+		DtoMapper<A> mapper = description.getMapper( DtoDescription.DEFAULT_PROFILE );
+		assertSame( mapper, description.getMapper( DtoDescription.DEFAULT_PROFILE ) );
+
+		String[] projection = mapper.getProjection();
+		Object[] values = new Object[projection.length];
+		for ( int i = 0; i < projection.length; ++i ) {
+			values[i] = projection[i] + "Value";
+		}
+		A a = mapper.map( values );
+		assertEquals( "fieldOneValue", a.fieldOne );
+		assertEquals( "fieldTwoValue", a.fieldTwo );
+
+		A toast = description.<A>getMapper( "toast" ).map( new Object[] {"toastValue"} );
+		assertEquals( "toastValue", toast.fieldOne );
+		assertNull( toast.fieldTwo );
+	}
+
+	public void testRegister() {
+		DtoQueryExecutor queryExec = new DtoQueryExecutor();
+		queryExec.register( A.class );
+		DtoDescription description = queryExec.getDtoDescription( A.class );
+		assertSame( description, queryExec.getDtoDescription( A.class ) );
+		assertEquals( 2, description.getProfiles().size() );
+		try {
+			queryExec.register( C.class );
+			fail( "registering an invalid Dto-Class should yield an exception" );
+		}
+		catch (IllegalArgumentException e) {
+
+		}
+	}
+
+	public void testConstructorMapper() {
+		DtoDescription description = new DtoDescriptorImpl().getDtoDescription( D.class );
+		assertEquals( 2, description.getProfiles().size() );
+		assertEquals( 0, description.getFieldDescriptionsForProfile( DtoDescription.DEFAULT_PROFILE ).size() );
+
+		DtoMapper<D> mapper = description.getMapper( DtoDescription.DEFAULT_PROFILE );
+		assertEquals( 2, mapper.getProjection().length );
+		assertEquals( "fieldOne", mapper.getProjection()[0] );
+		assertEquals( "fieldTwo", mapper.getProjection()[1] );
+		D d = mapper.map( new Object[] {"one", 2} );
+		assertEquals( "one", d.fieldOne );
+		assertEquals( 2, d.fieldTwo );
+
+		assertEquals( "toastFieldTwo", description.<D>getMapper( "toast" ).getProjection()[1] );
+	}
+
+	public void testRecordLike() {
+		DtoDescription description = new DtoDescriptorImpl().getDtoDescription( RecordLike.class );
+		assertEquals( 0, description.getFieldDescriptionsForProfile( DtoDescription.DEFAULT_PROFILE ).size() );
+		RecordLike recordLike = description.<RecordLike>getMapper( DtoDescription.DEFAULT_PROFILE ).map( new Object[] {"one", 2} );
+		assertEquals( "one", recordLike.fieldOne );
+		assertEquals( 2, recordLike.fieldTwo );
+
+		try {
+			new DtoDescriptorImpl().getDtoDescription( Mixed.class );
+			fail( "fields and a constructor annotated differently for the same profile should yield an exception" );
+		}
+		catch (IllegalArgumentException e) {
+
+		}
+	}
+
+	public void testDatabaseMapper() {
+		DtoMapper<E> mapper = new DtoDescriptorImpl().getDtoDescription( E.class ).getMapper( DtoDescription.DEFAULT_PROFILE );
+		assertTrue( mapper.hasDatabaseProperties() );
+		assertEquals( 1, mapper.getProjection().length );
+		assertEquals( "indexed", mapper.getProjection()[0] );
+		assertEquals( 1, mapper.getDatabaseProperties().size() );
+		assertEquals( "text", mapper.getDatabaseProperties().get( 0 ) );
+
+		E e = mapper.map( new Object[] {"fromIndex"}, new Object[] {"fromDatabase"} );
+		assertEquals( "fromIndex", e.indexed );
+		assertEquals( "fromDatabase", e.big );
+		try {
+			mapper.map( new Object[] {"fromIndex"} );
+			fail( "mapping without the database values should yield an exception" );
+		}
+		catch (IllegalStateException ex) {
+
+		}
+	}
 }
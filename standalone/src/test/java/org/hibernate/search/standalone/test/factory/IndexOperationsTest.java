@@ -14,6 +14,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.TermQuery;
@@ -250,6 +252,15 @@ public class IndexOperationsTest {
 	private void assertCount(int count) {
 		assertEquals( count, this.factory.createQuery( this.factory.buildQueryBuilder().forEntity( Book.class ).get().all().createQuery(), Book.class )
 				.queryResultSize() );
+
+		try (Stream<Book> stream = this.factory.createQuery( this.factory.buildQueryBuilder().forEntity( Book.class ).get().all().createQuery(),
+				Book.class ).streamDto( Book.class )) {
+			assertEquals( count, stream.collect( Collectors.toList() ).size() );
+		}
+		List<Book> pushed = new ArrayList<>();
+		this.factory.createQuery( this.factory.buildQueryBuilder().forEntity( Book.class ).get().all().createQuery(), Book.class ).queryDto(
+				Book.class, pushed::add );
+		assertEquals( count, pushed.size() );
 	}
 
 	private List<Book> all() {
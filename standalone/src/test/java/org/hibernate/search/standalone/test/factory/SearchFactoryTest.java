@@ -7,30 +7,44 @@
 package org.hibernate.search.standalone.test.factory;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.hibernate.search.annotations.ContainedIn;
 import org.hibernate.search.annotations.DocumentId;
 import org.hibernate.search.annotations.Field;
 import org.hibernate.search.annotations.Indexed;
 import org.hibernate.search.annotations.IndexedEmbedded;
+import org.hibernate.search.annotations.NumericField;
 import org.hibernate.search.annotations.Store;
 import org.hibernate.search.backend.spi.Work;
 import org.hibernate.search.backend.spi.WorkType;
 import org.hibernate.search.cfg.spi.SearchConfiguration;
+import org.hibernate.search.engine.ProjectionConstants;
 import org.hibernate.search.spi.SearchIntegrator;
 import org.hibernate.search.spi.SearchIntegratorBuilder;
 import org.hibernate.search.standalone.factory.SearchConfigurationImpl;
 import org.hibernate.search.standalone.factory.StandaloneSearchFactory;
 import org.hibernate.search.standalone.factory.StandaloneSearchFactoryFactory;
 import org.hibernate.search.standalone.factory.Transaction;
+import org.hibernate.search.standalone.query.ColumnarResult;
+import org.hibernate.search.standalone.query.CompiledHSearchQuery;
 import org.hibernate.search.standalone.query.HSearchQuery;
+import org.hibernate.search.standalone.query.SearchAfterToken;
 import org.junit.Test;
 
 public class SearchFactoryTest {
@@ -96,6 +110,44 @@ public class SearchFactoryTest {
 
 	}
 
+	@Indexed
+	public static class Priced {
+
+		private int id;
+		private long price;
+		private Long discount;
+
+		@DocumentId
+		public int getId() {
+			return this.id;
+		}
+
+		public void setId(int id) {
+			this.id = id;
+		}
+
+		@Field
+		@NumericField
+		public long getPrice() {
+			return this.price;
+		}
+
+		public void setPrice(long price) {
+			this.price = price;
+		}
+
+		@Field
+		@NumericField
+		public Long getDiscount() {
+			return this.discount;
+		}
+
+		public void setDiscount(Long discount) {
+			this.discount = discount;
+		}
+
+	}
+
 	public static class Embedded2 {
 
 		private String test;
@@ -191,4 +243,148 @@ public class SearchFactoryTest {
 			assertEquals( 0, query.queryResultSize() );
 		}
 	}
+
+	@Test
+	public void testSearchAfterWithTimeout() throws IOException {
+		try (StandaloneSearchFactory factory = StandaloneSearchFactoryFactory.createSearchFactory( new SearchConfigurationImpl(),
+				Arrays.asList( TopLevel.class, Embedded.class, Embedded2.class ) )) {
+			TopLevel tl = new TopLevel();
+			tl.setId( 123 );
+			factory.index( tl );
+
+			// searchAfter can't apply timeouts, so it must not silently ignore them
+			Query all = factory.buildQueryBuilder().forEntity( TopLevel.class ).get().all().createQuery();
+			try {
+				factory.createQuery( all, TopLevel.class ).maxResults( 1 ).setTimeout( 10, TimeUnit.SECONDS ).searchAfter( SearchAfterToken.START )
+						.queryProjectionPage( ProjectionConstants.ID );
+				fail( "Exception expected" );
+			}
+			catch (IllegalStateException e) {
+
+			}
+		}
+	}
+
+	@Test
+	public void testQueryResultCache() throws IOException {
+		try (StandaloneSearchFactory factory = StandaloneSearchFactoryFactory.createSearchFactory( new SearchConfigurationImpl(),
+				Arrays.asList( TopLevel.class, Embedded.class, Embedded2.class ) )) {
+			factory.enableQueryResultCache( 10 );
+
+			TopLevel tl = new TopLevel();
+			tl.setId( 123 );
+			factory.index( tl );
+
+			Query all = factory.buildQueryBuilder().forEntity( TopLevel.class ).get().all().createQuery();
+			assertEquals( 1, factory.createQuery( all, TopLevel.class ).queryProjection( ProjectionConstants.ID ).size() );
+			assertEquals( 1, factory.createQuery( all, TopLevel.class ).queryProjection( ProjectionConstants.ID ).size() );
+			assertEquals( 1, factory.getQueryResultCache().getMissCount() );
+			assertEquals( 1, factory.getQueryResultCache().getHitCount() );
+
+			// a change in the index invalidates the cached results
+			TopLevel tl2 = new TopLevel();
+			tl2.setId( 124 );
+			factory.index( tl2 );
+			assertEquals( 2, factory.createQuery( all, TopLevel.class ).queryProjection( ProjectionConstants.ID ).size() );
+			assertEquals( 2, factory.getQueryResultCache().getMissCount() );
+		}
+	}
+
+	@Test
+	public void testCompiledQuery() throws IOException {
+		try (StandaloneSearchFactory factory = StandaloneSearchFactoryFactory.createSearchFactory( new SearchConfigurationImpl(),
+				Arrays.asList( TopLevel.class, Embedded.class, Embedded2.class ) )) {
+			for ( int i = 0; i < 10; ++i ) {
+				TopLevel tl = new TopLevel();
+				tl.setId( i );
+				factory.index( tl );
+			}
+			CompiledHSearchQuery compiled = factory.createQuery( factory.buildQueryBuilder().forEntity( TopLevel.class ).get().all().createQuery(),
+					TopLevel.class ).compile();
+			// every page is fetched concurrently from the same compiled query
+			List<Integer> ids = IntStream.range( 0, 5 ).parallel().mapToObj( (page) -> compiled.queryProjection( page * 2, 2, ProjectionConstants.ID ) )
+					.flatMap( List::stream ).map( (row) -> (Integer) row[0] ).sorted().collect( Collectors.toList() );
+			assertEquals( IntStream.range( 0, 10 ).boxed().collect( Collectors.toList() ), ids );
+			assertEquals( 10, compiled.queryResultSize() );
+		}
+	}
+
+	@Test
+	public void testAsyncUsesStateAtCall() throws IOException, InterruptedException, ExecutionException {
+		try (StandaloneSearchFactory factory = StandaloneSearchFactoryFactory.createSearchFactory( new SearchConfigurationImpl(),
+				Arrays.asList( TopLevel.class, Embedded.class, Embedded2.class ) )) {
+			for ( int i = 0; i < 10; ++i ) {
+				TopLevel tl = new TopLevel();
+				tl.setId( i );
+				factory.index( tl );
+			}
+			CountDownLatch latch = new CountDownLatch( 1 );
+			Executor blocked = (command) -> new Thread( () -> {
+				try {
+					latch.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				command.run();
+			} ).start();
+			HSearchQuery query = factory.createQuery( factory.buildQueryBuilder().forEntity( TopLevel.class ).get().all().createQuery(),
+					TopLevel.class ).maxResults( 1 );
+			CompletableFuture<List<Object[]>> async = query.queryProjectionAsync( blocked, ProjectionConstants.ID );
+			// changing and executing the query while the asynchronous search waits must not affect it
+			query.maxResults( 10 );
+			assertEquals( 10, query.queryProjection( ProjectionConstants.ID ).size() );
+			latch.countDown();
+			assertEquals( 1, async.get().size() );
+		}
+	}
+
+	@Test
+	public void testColumns() throws IOException {
+		try (StandaloneSearchFactory factory = StandaloneSearchFactoryFactory.createSearchFactory( new SearchConfigurationImpl(),
+				Arrays.asList( Priced.class ) )) {
+			for ( int i = 0; i < 10; ++i ) {
+				Priced priced = new Priced();
+				priced.setId( i );
+				priced.setPrice( i * 100L );
+				if ( i % 2 == 0 ) {
+					priced.setDiscount( i * 10L );
+				}
+				factory.index( priced );
+			}
+			Query all = factory.buildQueryBuilder().forEntity( Priced.class ).get().all().createQuery();
+			ColumnarResult result = factory.createQuery( all, Priced.class ).queryColumns( ColumnarResult.Column.longs( "price" ) );
+			assertEquals( 10, result.size() );
+			assertEquals( 4500L, Arrays.stream( result.getLongs( "price" ) ).sum() );
+
+			ColumnarResult page = factory.createQuery( all, Priced.class ).firstResult( 2 ).maxResults( 3 )
+					.queryColumns( ColumnarResult.Column.longs( "price" ) );
+			assertEquals( 3, page.size() );
+			assertEquals( 10, page.getTotalHits() );
+
+			// the hit with a discount of 0 has to be told apart from the ones without a discount
+			ColumnarResult discounts = factory.createQuery( all, Priced.class ).queryColumns( ColumnarResult.Column.longs( "discount" ) );
+			assertEquals( 6, Arrays.stream( discounts.getLongs( "discount" ) ).filter( (discount) -> discount == 0 ).count() );
+			assertEquals( 5, discounts.getMissing( "discount" ).cardinality() );
+			assertEquals( 0, result.getMissing( "price" ).cardinality() );
+		}
+	}
+
+	@Test
+	public void testAutoFlush() throws IOException {
+		try (StandaloneSearchFactory factory = StandaloneSearchFactoryFactory.createSearchFactory( new SearchConfigurationImpl(),
+				Arrays.asList( TopLevel.class, Embedded.class, Embedded2.class ) )) {
+			Transaction tc = new Transaction( 3 );
+			for ( int i = 0; i < 10; ++i ) {
+				TopLevel tl = new TopLevel();
+				tl.setId( i );
+				factory.index( tl, tc );
+			}
+			assertEquals( 3, tc.getFlushCount() );
+			tc.commit();
+			assertEquals( 10, factory.createQuery( factory.buildQueryBuilder().forEntity( TopLevel.class ).get().all().createQuery(), TopLevel.class )
+					.queryResultSize() );
+		}
+	}
+
 }
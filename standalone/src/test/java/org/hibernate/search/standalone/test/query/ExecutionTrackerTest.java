@@ -0,0 +1,48 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.test.query;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.search.standalone.query.ExecutionTracker;
+import org.junit.Test;
+
+/**
+ * @author Martin Braun
+ */
+public class ExecutionTrackerTest {
+
+	@Test
+	public void testWaitsForRunningExecutions() {
+		ExecutionTracker tracker = new ExecutionTracker();
+		AtomicInteger runs = new AtomicInteger();
+		tracker.begin();
+		tracker.begin();
+		tracker.whenIdle( runs::incrementAndGet );
+		assertEquals( 0, runs.get() );
+		tracker.end();
+		assertEquals( 0, runs.get() );
+		tracker.end();
+		assertEquals( 1, runs.get() );
+
+		// only once
+		tracker.begin();
+		tracker.end();
+		assertEquals( 1, runs.get() );
+	}
+
+	@Test
+	public void testIdle() {
+		ExecutionTracker tracker = new ExecutionTracker();
+		AtomicInteger runs = new AtomicInteger();
+		tracker.whenIdle( runs::incrementAndGet );
+		assertEquals( 1, runs.get() );
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Hibernate Search, full-text search for your domain model
+ *
+ * License: GNU Lesser General Public License (LGPL), version 2.1 or later
+ * See the lgpl.txt file in the root directory or <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ */
+package org.hibernate.search.standalone.test.query;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.search.standalone.query.HSearchQuery.Fetch;
+import org.hibernate.search.standalone.query.QueryExecutionInfo;
+import org.hibernate.search.standalone.query.QueryStatistics;
+import org.junit.Test;
+
+/**
+ * @author Martin Braun
+ */
+public class QueryStatisticsTest {
+
+	@Test
+	public void test() {
+		QueryStatistics statistics = new QueryStatistics();
+		Map<Class<?>, Long> fetchNanos = new HashMap<>();
+		fetchNanos.put( String.class, 3_000_000L );
+		fetchNanos.put( Integer.class, 1_000_000L );
+		for ( int i = 0; i < 99; ++i ) {
+			statistics.queryExecuted( new QueryExecutionInfo( "query", Fetch.BATCH, 10, 10, 1_000_000L, 2_000_000L, fetchNanos, 0, 5_000_000L ) );
+		}
+		statistics.queryExecuted( new QueryExecutionInfo( "query", Fetch.BATCH, 10, 9, 1_000_000L, 2_000_000L, fetchNanos, 0, 100_000_000L ) );
+
+		assertEquals( 100, statistics.getQueryCount() );
+		assertEquals( 1000, statistics.getHitCount() );
+		assertEquals( 999, statistics.getHydratedCount() );
+		assertEquals( 1, statistics.getIncompleteQueryCount() );
+		assertEquals( 1D, statistics.getSearchHistogram().getAverageMillis(), 0.0001D );
+		assertEquals( 2D, statistics.getExtractionHistogram().getAverageMillis(), 0.0001D );
+		assertEquals( 4D, statistics.getFetchHistogram().getAverageMillis(), 0.0001D );
+		assertEquals( 100D, statistics.getTotalHistogram().getMaxMillis(), 0.0001D );
+		// 5000 micros are in the bucket [4096, 8192)
+		assertEquals( 8.192D, statistics.getTotalHistogram().getPercentileMillis( 50 ), 0.0001D );
+		// 100000 micros are in the bucket [65536, 131072)
+		assertEquals( 131.072D, statistics.getTotalHistogram().getPercentileMillis( 100 ), 0.0001D );
+
+		statistics.clear();
+		assertEquals( 0, statistics.getQueryCount() );
+		assertEquals( 0D, statistics.getTotalHistogram().getPercentileMillis( 50 ), 0.0001D );
+	}
+
+}